@@ -3,32 +3,38 @@ package nl.arjanfrans.mario;
 import com.badlogic.gdx.Game;
 import com.badlogic.gdx.Screen;
 import nl.arjanfrans.mario.model.World;
+import nl.arjanfrans.mario.model.WorldConfig;
+import nl.arjanfrans.mario.model.level.LevelLoader;
 import nl.arjanfrans.mario.view.MainMenu;
 
 /** @brief The class meant to render the game.
  */
 public class MarioGame extends Game {
+	private final WorldConfig config = new WorldConfig();
+	private LevelLoader loader;
 	private World world;
 	private Screen mainMenu;
 	public static final String VERSION = "0.01";
 	public static final boolean DEBUG = true;
 	public static final int FPS = 60;
 
-	/** @brief The method creates a new World object.
+	/** @brief The method shows the main menu and starts loading the level.
+	 *  @details The World is created once the level is loaded, see render().
 	 */
 	@Override
 	public void create()
 	{
 		this.mainMenu = new MainMenu(this);
 		this.setScreen(mainMenu);
-		world = new World();
+		loader = new LevelLoader(config.level);
 	}
 
-	/** @brief The method disposes of a World object.
+	/** @brief The method disposes of the World object, or stops the loading.
 	 */
 	@Override
 	public void dispose() {
-		world.dispose();
+		if (loader != null) loader.dispose();
+		if (world != null) world.dispose();
 	}
 
 	/** @brief The method resizes the game, as the window is resized.
@@ -36,7 +42,7 @@ public class MarioGame extends Game {
 	@Override
 	public void resize(int width, int height)
 	{
-		if (!this.getScreen().equals(this.mainMenu)) {
+		if (world != null && !this.getScreen().equals(this.mainMenu)) {
 			world.getRenderer().resize(width, height);
 		}
 	}
@@ -54,11 +60,20 @@ public class MarioGame extends Game {
 	}
 
 	/** @brief The method makes any necessary updates to the game, and calls when the application should render itself.
+	 *  @details While the level loads on other threads the screen keeps rendering, the World is
+	 *  created on the first frame after it is loaded.
 	 */
 	@Override
 	public void render() {
 		super.render();
-		if (!this.getScreen().equals(this.mainMenu)) {
+		if (world == null) {
+			if (loader.update()) {
+				world = new World(config, loader.getLevel());
+				loader.dispose();
+				loader = null;
+			}
+		}
+		else if (!this.getScreen().equals(this.mainMenu)) {
 			world.update();
 		}
 	}
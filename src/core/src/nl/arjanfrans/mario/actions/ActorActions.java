@@ -18,15 +18,18 @@ public class ActorActions extends Actions {
 
 	/**
 	 * @brief Inherited class Action
-	 * @details Remove actor
+	 * @details Remove actor from the world at the end of the tick
 	 */
 	static public class removeActor extends Action {
+		private World world;
 
 		/** @brief Constructor method
 		 *  @details Method which initializes an instance of removeActor
+		 * @param world World object the actor is in
 		 * @param actor Actor object
 		 */
-		public removeActor(Actor actor) {
+		public removeActor(World world, Actor actor) {
+			this.world = world;
 			this.actor = actor;
 		}
 
@@ -35,7 +38,7 @@ public class ActorActions extends Actions {
 		 * @return true boolean value
 		 */
 		public boolean act(float delta) {
-			World.objectsToRemove.add(actor);
+			world.removeActor(actor);
 			return true;
 		}
 	}
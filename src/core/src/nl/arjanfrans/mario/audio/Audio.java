@@ -26,11 +26,36 @@ public class Audio {
 
 	public static String currentSong = "";
 
+	private static boolean enabled = true;
+
+	/** @brief A method meant to turn all sound effects and music on or off.
+	 * 	@param on - false to keep the game silent, for example when it runs without a window.
+	 */
+	public static void setEnabled(boolean on) {
+		enabled = on;
+		if(!enabled) stopSong();
+	}
+
+	/** @brief A method meant to check whether audio is turned on.
+	 * @return true if sounds and music are played.
+	 */
+	public static boolean isEnabled() {
+		return enabled;
+	}
+
+	/** @brief A method meant to play a sound effect, if audio is turned on.
+	 * 	@param sound - one of the sound effects of this class.
+	 */
+	public static void play(Sound sound) {
+		if(enabled) sound.play();
+	}
+
 	/** @brief A method meant to play a song on loop depending on the state of the game.
 	 * 	@param name - the name of the song (based on the state of the game).
 	 * 	@param looping  - a boolean meant to indicate whether the song is looping or not.
 	 */
 	public static void playSong(String name, boolean looping) {
+		if(!enabled) return;
 		if(name.equals("overworld")) {
 			currentSong = "overworld";
 			song = overworld;
@@ -58,6 +83,13 @@ public class Audio {
 		return song;
 	}
 
+	/** @brief A method meant to check if the current song is still playing.
+	 * @return false when audio is turned off or no song has been started.
+	 */
+	public static boolean isSongPlaying() {
+		return enabled && song != null && song.isPlaying();
+	}
+
 	/** @brief A method meant to stop the current song instance variable from playing.
 	 */
 	public static void stopSong() {
@@ -71,7 +103,8 @@ public class Audio {
 	public static void dispose() {
 		overworld.dispose();
 		undergrounds.dispose();
-		song.dispose();
+		lifelost.dispose();
+		finish.dispose();
 		jump.dispose();
 		stomp.dispose();
 		coin.dispose();
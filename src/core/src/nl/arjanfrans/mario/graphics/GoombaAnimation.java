@@ -14,6 +14,7 @@ import com.badlogic.gdx.utils.Array;
 public class GoombaAnimation extends CharacterAnimation {
 	private Animation walking;
 	private Animation trampled;
+	private final Vector2 dimensions = new Vector2();
 
 	/** @brief Constructor method for GoombaAnimation
 	 *  @details Method which initializes an instance of GoombaAnimation.
@@ -44,18 +45,18 @@ public class GoombaAnimation extends CharacterAnimation {
 
 	/** @brief A method meant to retrieve the dimensions of a Goomba animation based on the Goomba's state.
 	 * 	@param state - the state of the Goomba, refers to the State enum class.
-	 *  @return An instance of Vector2.
+	 *  @return An instance of Vector2. The vector is reused by the next call, copy it to keep it.
 	 */
 	public Vector2 getDimensions(State state) {
 		switch(state) {
 			case Walking:
-				return new Vector2(walking.getKeyFrame(0).getRegionWidth() * scale, 
+				return dimensions.set(walking.getKeyFrame(0).getRegionWidth() * scale, 
 						walking.getKeyFrame(0).getRegionHeight() * scale);
 			case Dying:
-				return new Vector2(trampled.getKeyFrame(0).getRegionWidth() * scale, 
+				return dimensions.set(trampled.getKeyFrame(0).getRegionWidth() * scale, 
 						trampled.getKeyFrame(0).getRegionHeight() * scale);
 			default:
-				return new Vector2(walking.getKeyFrame(0).getRegionWidth() * scale, 
+				return dimensions.set(walking.getKeyFrame(0).getRegionWidth() * scale, 
 						walking.getKeyFrame(0).getRegionHeight() * scale);
 		}
 	}
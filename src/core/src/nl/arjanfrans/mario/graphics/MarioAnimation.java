@@ -24,6 +24,7 @@ public class MarioAnimation extends CharacterAnimation {
 	private static Animation flagslide_big;
 	private static Animation pose_small;
 	private static Animation pose_big;
+	private final Vector2 dimensions = new Vector2();
 
 	/** @brief Constructor method for MarioAnimation
 	 *  @details Method which initializes an instance of MarioAnimation.
@@ -118,76 +119,76 @@ public class MarioAnimation extends CharacterAnimation {
 	/** @brief A method meant to retrieve the dimensions of a Mario animation based on Mario's state, and size.
 	 * 	@param state - the state of the Goomba, refers to the State enum class.
 	 * 	@param level - an integer indicating Mario's current size.
-	 *  @return An instance of Vector2.
+	 *  @return An instance of Vector2. The vector is reused by the next call, copy it to keep it.
 	 */
 	public Vector2 getDimensions(State state, int level) {
 		switch(state) {
 			case Walking:
 				if(level == 1) {
-					return new Vector2(walking.getKeyFrame(0).getRegionWidth() * scale, 
+					return dimensions.set(walking.getKeyFrame(0).getRegionWidth() * scale, 
 							walking.getKeyFrame(0).getRegionHeight() * scale);
 				}
 				else if(level == 2) {
-					return new Vector2(walking_big.getKeyFrame(0).getRegionWidth() * scale, 
+					return dimensions.set(walking_big.getKeyFrame(0).getRegionWidth() * scale, 
 							walking_big.getKeyFrame(0).getRegionHeight() * scale);
 				}
 				break;
 			case Standing:
 				if(level == 1) {
-					return new Vector2(standing.getKeyFrame(0).getRegionWidth() * scale, 
+					return dimensions.set(standing.getKeyFrame(0).getRegionWidth() * scale, 
 							standing.getKeyFrame(0).getRegionHeight() * scale);
 				}
 				else if(level == 2) {
-					return new Vector2(standing_big.getKeyFrame(0).getRegionWidth() * scale, 
+					return dimensions.set(standing_big.getKeyFrame(0).getRegionWidth() * scale, 
 							standing_big.getKeyFrame(0).getRegionHeight() * scale);
 				}
 				break;
 			case Jumping:
 				if(level == 1) {
 					//TODO define sizes in constructor
-					return new Vector2(jumping.getKeyFrame(0).getRegionWidth() * scale, 
+					return dimensions.set(jumping.getKeyFrame(0).getRegionWidth() * scale, 
 							jumping.getKeyFrame(0).getRegionHeight() * scale);
 				}
 				else if(level == 2) {
-					return new Vector2(jumping_big.getKeyFrame(0).getRegionWidth() * scale, 
+					return dimensions.set(jumping_big.getKeyFrame(0).getRegionWidth() * scale, 
 						jumping_big.getKeyFrame(0).getRegionHeight() * scale);
 				}
 				break;
 			case Pose:
 				if(level == 1) {
-					return new Vector2(pose_small.getKeyFrame(0).getRegionWidth() * scale, 
+					return dimensions.set(pose_small.getKeyFrame(0).getRegionWidth() * scale, 
 							pose_small.getKeyFrame(0).getRegionHeight() * scale);
 				}
 				else if(level == 2) {
-					return new Vector2(pose_big.getKeyFrame(0).getRegionWidth() * scale, 
+					return dimensions.set(pose_big.getKeyFrame(0).getRegionWidth() * scale, 
 						pose_big.getKeyFrame(0).getRegionHeight() * scale);
 				}
 				break;
 			case FlagSlide:
 				if(level == 1) {
-					return new Vector2(flagslide_small.getKeyFrame(0).getRegionWidth() * scale, 
+					return dimensions.set(flagslide_small.getKeyFrame(0).getRegionWidth() * scale, 
 							flagslide_small.getKeyFrame(0).getRegionHeight() * scale);
 				}
 				else if(level == 2) {
-					return new Vector2(flagslide_big.getKeyFrame(0).getRegionWidth() * scale, 
+					return dimensions.set(flagslide_big.getKeyFrame(0).getRegionWidth() * scale, 
 							flagslide_big.getKeyFrame(0).getRegionHeight() * scale);
 				}
 				break;
 			case Dying:
-				return new Vector2(dying.getKeyFrame(0).getRegionWidth() * scale, 
+				return dimensions.set(dying.getKeyFrame(0).getRegionWidth() * scale, 
 						dying.getKeyFrame(0).getRegionHeight() * scale);
 			default:
 				if(level == 1) {
-					return new Vector2(walking.getKeyFrame(0).getRegionWidth() * scale, 
+					return dimensions.set(walking.getKeyFrame(0).getRegionWidth() * scale, 
 							walking.getKeyFrame(0).getRegionHeight() * scale);
 				}
 				else if(level == 2) {
-					return new Vector2(walking_big.getKeyFrame(0).getRegionWidth() * scale, 
+					return dimensions.set(walking_big.getKeyFrame(0).getRegionWidth() * scale, 
 							walking_big.getKeyFrame(0).getRegionHeight() * scale);
 				}
 				break;
 		}
-		return new Vector2(dying.getKeyFrame(0).getRegionWidth() * scale, 
+		return dimensions.set(dying.getKeyFrame(0).getRegionWidth() * scale, 
 				dying.getKeyFrame(0).getRegionHeight() * scale);
 	}
 
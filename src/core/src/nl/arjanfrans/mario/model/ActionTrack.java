@@ -0,0 +1,125 @@
+/** @file ActionTrack.java
+ */
+
+package nl.arjanfrans.mario.model;
+
+import com.badlogic.gdx.scenes.scene2d.Action;
+import com.badlogic.gdx.scenes.scene2d.Actor;
+
+/**
+ * @brief Keeps track of the scripted actions of an actor, so they can be saved and restarted
+ * @details Actions like the death of Mario or the bump of a brick are trees of libGDX actions
+ * that can not be copied. Every script an actor can run gets a number instead, and the track
+ * remembers which scripts are running, where the actor stood when each started and on how many
+ * ticks each has acted. A WorldSnapshot only holds those numbers. To restore a script it is
+ * created again at the same place and acted on the same amount of ticks, which brings every
+ * delay, sequence and tween inside it to exactly the same point. The actor then gets its own
+ * saved fields back, so the moves the script made on the way do not matter.
+ */
+public abstract class ActionTrack {
+	private static final int MAX_SCRIPTS = 4;
+
+	private final Actor actor;
+	private final Action[] actions = new Action[MAX_SCRIPTS];
+	private final int[] scripts = new int[MAX_SCRIPTS];
+	private final int[] ticks = new int[MAX_SCRIPTS];
+	private final float[] startX = new float[MAX_SCRIPTS];
+	private final float[] startY = new float[MAX_SCRIPTS];
+	private int size = 0;
+
+	/** @brief Constructor method
+	 *  @param actor Actor object the scripts run on
+	 */
+	public ActionTrack(Actor actor) {
+		this.actor = actor;
+	}
+
+	/** @brief Creates the actions of a script
+	 *  @details Called with the actor at the position it had when the script started. Creating
+	 *  a script must not change the state of the game, only the actions may.
+	 *  @param script number of the script
+	 *  @return Action object
+	 */
+	protected abstract Action create(int script);
+
+	/** @brief Starts a script on the actor
+	 *  @param script number of the script
+	 */
+	void start(int script) {
+		Action action = create(script);
+		if(size == MAX_SCRIPTS) throw new IllegalStateException("Too many scripts on " + actor);
+		actions[size] = action;
+		scripts[size] = script;
+		ticks[size] = 0;
+		startX[size] = actor.getX();
+		startY[size] = actor.getY();
+		size++;
+		actor.addAction(action);
+	}
+
+	/** @brief Counts the tick the actions have acted on and forgets the scripts that finished
+	 *  @details Call right after Actor.act(), scripts started later in the tick have not acted yet.
+	 */
+	void update() {
+		for(int i = size - 1; i >= 0; i--) {
+			if(actor.getActions().contains(actions[i], true)) {
+				ticks[i]++;
+			}
+			else {
+				remove(i);
+			}
+		}
+	}
+
+	/** @brief Forgets all scripts, call together with Actor.clearActions()
+	 */
+	void clear() {
+		for(int i = 0; i < size; i++) actions[i] = null;
+		size = 0;
+	}
+
+	/** @brief Writes the running scripts into a snapshot
+	 *  @param snapshot WorldSnapshot object
+	 */
+	void write(WorldSnapshot snapshot) {
+		snapshot.writeInt(size);
+		for(int i = 0; i < size; i++) {
+			snapshot.writeInt(scripts[i]);
+			snapshot.writeInt(ticks[i]);
+			snapshot.writeFloat(startX[i]);
+			snapshot.writeFloat(startY[i]);
+		}
+	}
+
+	/** @brief Replaces the actions of the actor with the scripts of a snapshot
+	 *  @details Moves the actor, so the saved position has to be set afterwards.
+	 *  @param snapshot WorldSnapshot object
+	 *  @param delta Length of one tick
+	 */
+	void read(WorldSnapshot snapshot, float delta) {
+		actor.clearActions();
+		clear();
+		int count = snapshot.readInt();
+		for(int s = 0; s < count; s++) {
+			int script = snapshot.readInt();
+			int acted = snapshot.readInt();
+			actor.setPosition(snapshot.readFloat(), snapshot.readFloat());
+			start(script);
+			Action action = actions[size - 1];
+			for(int t = 0; t < acted; t++) action.act(delta);
+			ticks[size - 1] = acted;
+		}
+	}
+
+	private void remove(int i) {
+		size--;
+		for(int j = i; j < size; j++) {
+			actions[j] = actions[j + 1];
+			scripts[j] = scripts[j + 1];
+			ticks[j] = ticks[j + 1];
+			startX[j] = startX[j + 1];
+			startY[j] = startY[j + 1];
+		}
+		actions[size] = null;
+	}
+}
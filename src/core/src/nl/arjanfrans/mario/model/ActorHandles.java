@@ -0,0 +1,179 @@
+/** @file ActorHandles.java
+ */
+
+package nl.arjanfrans.mario.model;
+
+import com.badlogic.gdx.scenes.scene2d.Actor;
+import com.badlogic.gdx.utils.IntArray;
+import com.badlogic.gdx.utils.ObjectIntMap;
+
+/**
+ * @brief Generational handles of the actors in the world
+ * @details Every actor that is spawned gets a slot. Its handle holds the index of the slot and
+ * the generation the slot had when the actor got it. When the actor is removed the generation
+ * of the slot goes up, so old handles stop resolving even after the slot is reused. Removing an
+ * actor twice, or removing an actor that was pooled and spawned again, is therefore harmless.
+ * Each slot also remembers the position of its actor in the ActorRegistry of its type, so the
+ * registry can remove it without searching.
+ */
+public class ActorHandles {
+	/** Handle that never resolves to an actor */
+	public static final int NONE = 0;
+	private static final int INDEX_BITS = 20;
+	private static final int INDEX_MASK = (1 << INDEX_BITS) - 1;
+	private static final int MAX_GENERATION = (1 << (31 - INDEX_BITS)) - 1;
+
+	private Actor[] actors = new Actor[64];
+	private int[] generations = new int[64];
+	private int[] positions = new int[64];
+	private int slots = 0;
+	private final IntArray free = new IntArray();
+	private final ObjectIntMap<Actor> handles = new ObjectIntMap<Actor>();
+
+	/** @brief Gives an actor a slot
+	 *  @param actor Actor object
+	 *  @return handle of the actor
+	 */
+	int create(Actor actor) {
+		int index;
+		if(free.size > 0) {
+			index = free.pop();
+		}
+		else {
+			if(slots == actors.length) grow(slots * 2);
+			if(slots > INDEX_MASK) throw new IllegalStateException("Too many actors in the world");
+			index = slots++;
+			generations[index] = 1;
+		}
+		actors[index] = actor;
+		positions[index] = -1;
+		int handle = generations[index] << INDEX_BITS | index;
+		handles.put(actor, handle);
+		return handle;
+	}
+
+	/** @brief Gives the slot of a handle back, the handle and its copies stop resolving
+	 *  @param handle of the actor
+	 */
+	void release(int handle) {
+		if(!isValid(handle)) return;
+		int index = handle & INDEX_MASK;
+		// A pooled actor can already have a newer handle
+		if(handles.get(actors[index], NONE) == handle) handles.remove(actors[index], NONE);
+		actors[index] = null;
+		generations[index] = generations[index] == MAX_GENERATION ? 1 : generations[index] + 1;
+		free.add(index);
+	}
+
+	/** @brief Releases all slots
+	 */
+	void clear() {
+		for(int i = 0; i < slots; i++) {
+			if(actors[i] != null) release(generations[i] << INDEX_BITS | i);
+		}
+	}
+
+	/** @brief Writes the generation of every slot and the free slots into a snapshot
+	 *  @details The actors are written by the world, each with its handle.
+	 *  @param snapshot WorldSnapshot object
+	 */
+	void write(WorldSnapshot snapshot) {
+		snapshot.writeInt(slots);
+		snapshot.writeInts(generations, slots);
+		snapshot.writeInt(free.size);
+		snapshot.writeInts(free.items, free.size);
+	}
+
+	/** @brief Empties all slots and puts the generations and free slots of a snapshot back
+	 *  @details The actors are put back in their slots with place(), so their handles and the
+	 *  order in which slots are handed out stay the same as in the snapshot.
+	 *  @param snapshot WorldSnapshot object
+	 */
+	void read(WorldSnapshot snapshot) {
+		for(int i = 0; i < slots; i++) actors[i] = null;
+		handles.clear();
+		int count = snapshot.readInt();
+		if(count > actors.length) grow(Math.max(count, actors.length * 2));
+		slots = count;
+		snapshot.readInts(generations, slots);
+		for(int i = 0; i < slots; i++) positions[i] = -1;
+		free.clear();
+		int freeCount = snapshot.readInt();
+		free.ensureCapacity(freeCount);
+		snapshot.readInts(free.items, freeCount);
+		free.size = freeCount;
+	}
+
+	/** @brief Puts an actor back in the slot of its handle
+	 *  @param actor Actor object
+	 *  @param handle the actor had when the snapshot was taken
+	 */
+	void place(Actor actor, int handle) {
+		actors[handle & INDEX_MASK] = actor;
+		positions[handle & INDEX_MASK] = -1;
+		handles.put(actor, handle);
+	}
+
+	/** @brief Check if a handle still belongs to an actor in the world
+	 *  @param handle of the actor
+	 *  @return true if get() returns the actor
+	 */
+	public boolean isValid(int handle) {
+		int index = handle & INDEX_MASK;
+		return handle != NONE && index < slots && generations[index] == handle >>> INDEX_BITS && actors[index] != null;
+	}
+
+	/** @brief Get the actor of a handle
+	 *  @param handle of the actor
+	 *  @return Actor object, or null when the actor has been removed
+	 */
+	public Actor get(int handle) {
+		return isValid(handle) ? actors[handle & INDEX_MASK] : null;
+	}
+
+	/** @brief Get the handle of an actor
+	 *  @param actor Actor object
+	 *  @return handle, or NONE when the actor has no slot
+	 */
+	public int handleOf(Actor actor) {
+		return handles.get(actor, NONE);
+	}
+
+	/** @brief Get the slot of a handle
+	 *  @details Slots are handed out in the same order when the same actors are spawned and
+	 *  removed in the same order, so they can be used to order actors.
+	 *  @param handle of the actor
+	 *  @return index of the slot
+	 */
+	public static int slot(int handle) {
+		return handle & INDEX_MASK;
+	}
+
+	/** @brief Get the position of the actor in its registry
+	 *  @param handle of the actor
+	 *  @return position, -1 if the actor is in no registry
+	 */
+	int getPosition(int handle) {
+		return positions[handle & INDEX_MASK];
+	}
+
+	/** @brief Set the position of the actor in its registry
+	 *  @param handle of the actor
+	 *  @param position index in the registry, -1 if the actor is in no registry
+	 */
+	void setPosition(int handle, int position) {
+		positions[handle & INDEX_MASK] = position;
+	}
+
+	private void grow(int capacity) {
+		Actor[] newActors = new Actor[capacity];
+		int[] newGenerations = new int[capacity];
+		int[] newPositions = new int[capacity];
+		System.arraycopy(actors, 0, newActors, 0, slots);
+		System.arraycopy(generations, 0, newGenerations, 0, slots);
+		System.arraycopy(positions, 0, newPositions, 0, slots);
+		actors = newActors;
+		generations = newGenerations;
+		positions = newPositions;
+	}
+}
@@ -0,0 +1,129 @@
+/** @file ActorRegistry.java
+ */
+
+package nl.arjanfrans.mario.model;
+
+import java.util.Iterator;
+
+import com.badlogic.gdx.scenes.scene2d.Actor;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.Array.ArrayIterable;
+import com.badlogic.gdx.utils.IntArray;
+
+/**
+ * @brief Live list of the actors of one type that are in the world
+ * @details The world adds actors when they are spawned and removes them when they leave the
+ * stage. Everybody else can only read the list, and reading it does not allocate. An actor is
+ * removed by moving the last actor into its place, the position of every actor is kept in the
+ * slot of its handle, so removing does not search. The order of the list is therefore not the
+ * order in which the actors were spawned.
+ */
+public class ActorRegistry<T extends Actor> implements Iterable<T> {
+	private final Array<T> actors;
+	private final ArrayIterable<T> iterable; /**< Iterates over actors without allowing remove() */
+	private final IntArray handles = new IntArray();
+	private final ActorHandles table;
+
+	/** @brief Constructor method
+	 *  @param type Class of the actors in this registry
+	 *  @param table Handles of the actors of the world
+	 */
+	ActorRegistry(Class<T> type, ActorHandles table) {
+		actors = new Array<T>(false, 16, type);
+		iterable = new ArrayIterable<T>(actors, false);
+		this.table = table;
+	}
+
+	/** @brief Add an actor that has been spawned
+	 *  @param actor Actor object
+	 *  @param handle of the actor
+	 */
+	void add(T actor, int handle) {
+		table.setPosition(handle, actors.size);
+		actors.add(actor);
+		handles.add(handle);
+	}
+
+	/** @brief Remove an actor that left the world
+	 *  @param handle of the actor, it must still be valid
+	 *  @return true if the actor was in this registry
+	 */
+	boolean remove(int handle) {
+		int position = table.getPosition(handle);
+		if(position < 0 || position >= handles.size || handles.get(position) != handle) return false;
+		int last = handles.size - 1;
+		actors.set(position, actors.get(last));
+		handles.set(position, handles.get(last));
+		table.setPosition(handles.get(position), position);
+		actors.removeIndex(last);
+		handles.removeIndex(last);
+		table.setPosition(handle, -1);
+		return true;
+	}
+
+	/** @brief Remove all actors
+	 */
+	void clear() {
+		actors.clear();
+		handles.clear();
+	}
+
+	/** @brief Writes the handles of the actors into a snapshot, in the order of the list
+	 *  @param snapshot WorldSnapshot object
+	 */
+	void write(WorldSnapshot snapshot) {
+		snapshot.writeInt(handles.size);
+		snapshot.writeInts(handles.items, handles.size);
+	}
+
+	/** @brief Fills the list again with the actors of a snapshot, in the same order
+	 *  @details The actors must already be back in the slots of their handles.
+	 *  @param snapshot WorldSnapshot object
+	 */
+	@SuppressWarnings("unchecked")
+	void read(WorldSnapshot snapshot) {
+		clear();
+		int count = snapshot.readInt();
+		for(int i = 0; i < count; i++) {
+			int handle = snapshot.readInt();
+			add((T) table.get(handle), handle);
+		}
+	}
+
+	/** @brief Get the amount of actors
+	 *  @return size of the registry
+	 */
+	public int size() {
+		return actors.size;
+	}
+
+	/** @brief Get an actor by index
+	 *  @param index between 0 and size()
+	 *  @return Actor object
+	 */
+	public T get(int index) {
+		return actors.get(index);
+	}
+
+	/** @brief Check if an actor is in the world
+	 *  @param actor Actor object
+	 *  @return true if the registry contains the actor
+	 */
+	public boolean contains(T actor) {
+		int handle = table.handleOf(actor);
+		if(!table.isValid(handle)) return false;
+		int position = table.getPosition(handle);
+		return position >= 0 && position < handles.size && handles.get(position) == handle;
+	}
+
+	/** @brief Iterate over the actors
+	 *  @details The iterator is reused, so it can not be used nested. Loops that may run inside
+	 *  another loop over the same registry should use get() instead. Its remove() throws, an
+	 *  actor leaves the registry through World.removeActor().
+	 *  @return Iterator object
+	 */
+	@Override
+	public Iterator<T> iterator() {
+		return iterable.iterator();
+	}
+}
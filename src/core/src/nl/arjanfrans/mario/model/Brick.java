@@ -9,6 +9,7 @@ import com.badlogic.gdx.graphics.g2d.Animation;
 import com.badlogic.gdx.graphics.g2d.Batch;
 import com.badlogic.gdx.graphics.g2d.TextureRegion;
 import com.badlogic.gdx.math.Interpolation;
+import com.badlogic.gdx.scenes.scene2d.Action;
 import com.badlogic.gdx.scenes.scene2d.Actor;
 import com.badlogic.gdx.scenes.scene2d.actions.Actions;
 import com.badlogic.gdx.utils.Array;
@@ -17,6 +18,9 @@ import com.badlogic.gdx.utils.Array;
  * @brief This class is the class meant to model the bricks in the game.
  */
 public class Brick extends StaticActor {
+	private static final int BUMP = 0; /**< Script of the bump when the brick is hit */
+	private static final int SHATTER = 1; /**< Script of a brick that broke */
+
 	private TextureRegion texture;
 	private TextureRegion empty_texture;
 
@@ -31,6 +35,16 @@ public class Brick extends StaticActor {
 	private Coin coin;
 
 	private BrickShatter shatter;
+	private final ActionTrack scripts = new ActionTrack(this) {
+		@Override
+		protected Action create(int script) {
+			if(script == SHATTER) {
+				return Actions.sequence(Actions.delay(0.3f), Actions.alpha(0, 0.1f), new ActorActions.removeActor(world, Brick.this));
+			}
+			return Actions.sequence(Actions.moveTo(Brick.this.getOriginX(), Brick.this.getOriginY() + 0.2f, 0.1f, Interpolation.linear),
+					Actions.moveTo(Brick.this.getOriginX(), Brick.this.getOriginY(), 0.1f, Interpolation.linear));
+		}
+	};
 
 	/** @brief Constructor method
 	 *  @details Method which initializes an instance of Brick.
@@ -48,14 +62,16 @@ public class Brick extends StaticActor {
 		this.destructable = destructable;
 		this.setOrigin(x, y);
 		this.setBounds(x, y, 16 * (1/16f), 16 * (1/16f));
-		bonus_animation = Tiles.getAnimation(0.15f, "bonus_block");
-		bonus_animation.setPlayMode(Animation.PlayMode.LOOP_PINGPONG);
+		if(bonus_animation == null) {
+			bonus_animation = Tiles.getAnimation(0.15f, "bonus_block");
+			bonus_animation.setPlayMode(Animation.PlayMode.LOOP_PINGPONG);
+		}
 		empty_texture = Tiles.getTile("brick_empty");
 		items = new Array<Actor>();
 		if(color.equals("brown")) {
 			texture = Tiles.getTile("brick");
 			empty_texture = Tiles.getTile("brick_empty");
-			shatter =  new BrickShatter(this.getX(), this.getY());
+			shatter =  new BrickShatter(this.getX(), this.getY(), world.getClock());
 		}
 	}
 
@@ -66,14 +82,9 @@ public class Brick extends StaticActor {
 	public void act(float delta) {
 		stateTime += delta;
 		super.act(delta);
+		scripts.update();
 	}
 	
-	/** @brief Shatters the brick into pieces.
-	 */
-	private void shatter() {
-		this.addAction(Actions.sequence(Actions.delay(0.3f), Actions.alpha(0, 0.1f), ActorActions.removeActor(this)));
-	}
-
 	/** @brief This method updates the actor based on time.
 	 *  @param parentAlpha - The parent alpha, to be multiplied with this actor's alpha, allowing the parent's alpha to affect all children.
 	 * @param batch - an object used to draw 2D rectangles that reference a texture (region).
@@ -82,7 +93,6 @@ public class Brick extends StaticActor {
 	public void draw(Batch batch, float parentAlpha) {
 		if(destroyed) {
 			shatter.draw(batch);
-			shatter();
 		}
 		else {
 			if(items.size < 1 && hitcount > 0) {
@@ -111,6 +121,9 @@ public class Brick extends StaticActor {
 			if(items.size == 0) {
 				if(destructable) {
 					destroyed = true;
+					world.getCollisionGrid().setOccupant((int) getOriginX(), (int) getOriginY(), null);
+					// The pieces fly off and the brick leaves the world, also when nothing is drawn
+					scripts.start(SHATTER);
 				} else  {
 					if(hitcount == 1) {
 						this.marioGetsCoin();
@@ -120,17 +133,40 @@ public class Brick extends StaticActor {
 					}
 				}
 			}
-			this.addAction(Actions.sequence(Actions.moveTo(this.getOriginX(), this.getOriginY() + 0.2f, 0.1f, Interpolation.linear),
-					Actions.moveTo(this.getOriginX(), this.getOriginY(), 0.1f, Interpolation.linear)));
-			Audio.bump.play();
+			scripts.start(BUMP);
+			Audio.play(Audio.bump);
 		}
 		else {
-			this.addAction(Actions.sequence(Actions.moveTo(this.getOriginX(), this.getOriginY() + 0.2f, 0.1f, Interpolation.linear),
-					Actions.moveTo(this.getOriginX(), this.getOriginY(), 0.1f, Interpolation.linear)));
-			Audio.bump.play();
+			scripts.start(BUMP);
+			Audio.play(Audio.bump);
 		}
 	}
 
+	/** @brief This method writes the state of the brick actor into a snapshot.
+	 *  @param snapshot - WorldSnapshot object.
+	 */
+	public void write(WorldSnapshot snapshot) {
+		scripts.write(snapshot);
+		snapshot.writeFloat(super.getX());
+		snapshot.writeFloat(super.getY());
+		snapshot.writeFloat(this.getColor().a);
+		snapshot.writeFloat(stateTime);
+		snapshot.writeInt(hitcount);
+		snapshot.writeBoolean(destroyed);
+	}
+
+	/** @brief This method puts the brick actor back in the state of a snapshot.
+	 *  @param snapshot - WorldSnapshot object.
+	 */
+	public void read(WorldSnapshot snapshot) {
+		scripts.read(snapshot, world.getClock().getDelta());
+		this.setPosition(snapshot.readFloat(), snapshot.readFloat());
+		this.getColor().a = snapshot.readFloat();
+		stateTime = snapshot.readFloat();
+		hitcount = snapshot.readInt();
+		destroyed = snapshot.readBoolean();
+	}
+
 
 	/** @brief This method gets the x coordinate of the brick.
 	 *  @return a float representing the y coordinate.
@@ -150,6 +186,20 @@ public class Brick extends StaticActor {
 		return Math.round(super.getY()  * 100.0f) / 100.0f;
 	}
 
+	/** @brief This method gets how often the brick has been hit by big Mario.
+	 *  @return an integer.
+	 */
+	public int getHitcount() {
+		return hitcount;
+	}
+
+	/** @brief This method sets how often the brick has been hit, for a brick that was a tile in between hits.
+	 *  @param hitcount - an integer.
+	 */
+	public void setHitcount(int hitcount) {
+		this.hitcount = hitcount;
+	}
+
 	/** @brief This method gets items located inside the brick.
 	 *  @return an array of Actor objects.
 	 */
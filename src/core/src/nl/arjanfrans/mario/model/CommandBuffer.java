@@ -0,0 +1,67 @@
+/** @file CommandBuffer.java
+ */
+
+package nl.arjanfrans.mario.model;
+
+import com.badlogic.gdx.utils.IntArray;
+
+/**
+ * @brief Spawns and removals of actors that wait for the end of the tick
+ * @details Actors are spawned and removed while the stage acts, for example when a goomba dies
+ * or a brick is bumped. The changes are recorded here by handle and the world applies them in
+ * the order they were made, once all actors have acted. Nothing that is iterated during a tick
+ * changes during that tick.
+ */
+public class CommandBuffer {
+	/** Command that puts the actor of a handle in the world */
+	public static final int SPAWN = 0;
+	/** Command that takes the actor of a handle out of the world */
+	public static final int REMOVE = 1;
+
+	private final IntArray commands = new IntArray();
+
+	/** @brief Records that an actor enters the world
+	 *  @param handle of the actor
+	 */
+	public void spawn(int handle) {
+		commands.add(SPAWN);
+		commands.add(handle);
+	}
+
+	/** @brief Records that an actor leaves the world
+	 *  @param handle of the actor, removing a handle twice is harmless
+	 */
+	public void remove(int handle) {
+		commands.add(REMOVE);
+		commands.add(handle);
+	}
+
+	/** @brief Get the amount of recorded commands
+	 *  @return size
+	 */
+	public int size() {
+		return commands.size / 2;
+	}
+
+	/** @brief Get the kind of a command
+	 *  @param index between 0 and size(), in the order the commands were recorded
+	 *  @return SPAWN or REMOVE
+	 */
+	public int getCommand(int index) {
+		return commands.get(index * 2);
+	}
+
+	/** @brief Get the handle a command is about
+	 *  @param index between 0 and size()
+	 *  @return handle of the actor
+	 */
+	public int getHandle(int index) {
+		return commands.get(index * 2 + 1);
+	}
+
+	/** @brief Forgets all commands, after they have been applied
+	 */
+	public void clear() {
+		commands.clear();
+	}
+}
@@ -0,0 +1,214 @@
+/** @file ContactPipeline.java
+ */
+
+package nl.arjanfrans.mario.model;
+
+import nl.arjanfrans.mario.model.collision.SpatialHash;
+import nl.arjanfrans.mario.model.enemy.GoombaStore;
+
+import com.badlogic.gdx.math.Rectangle;
+import com.badlogic.gdx.scenes.scene2d.Actor;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.LongArray;
+
+/**
+ * @brief Finds the contacts between actors once per tick and resolves them in a fixed order
+ * @details Once all actors have moved, the pairs that share a cell of the spatial hash are the
+ * broad phase. Each pair is tested once: the narrow phase compares the rectangles and decides
+ * what kind of contact it is, from the state the actors had at the end of their move. Head bumps
+ * are recorded by the actors themselves while they move. The contacts are then sorted by kind and
+ * by the handles of the actors, and resolved in that order. The outcome does not depend on the
+ * order of the actors in the stage, and a crowd of goombas does not make every goomba search its
+ * neighbours again.
+ */
+public class ContactPipeline {
+	/** An actor jumped against a static actor from below */
+	public static final int HEAD_BUMP = 0;
+	/** Mario fell onto a goomba */
+	public static final int STOMP = 1;
+	/** Mario walked into a goomba */
+	public static final int HURT = 2;
+	/** Mario touched a mushroom */
+	public static final int POWER_UP = 3;
+	/** Two goombas walked into each other */
+	public static final int TURN_AROUND = 4;
+
+	private static final int KIND_BITS = 3;
+	private static final int ID_BITS = 21;
+	private static final int ID_MASK = (1 << ID_BITS) - 1;
+	private static final int INDEX_BITS = 63 - KIND_BITS - 2 * ID_BITS;
+	private static final int MAX_CONTACTS = 1 << INDEX_BITS;
+
+	private final ActorHandles handles;
+	private final Array<MovingActor> pairs = new Array<MovingActor>();
+	private final LongArray order = new LongArray();
+	private int[] kinds = new int[32];
+	private MovingActor[] first = new MovingActor[32];
+	private Actor[] second = new Actor[32];
+	private int[] stored = new int[32];
+	private int size = 0;
+
+	/** @brief Constructor method
+	 *  @param handles Handles of the actors in the world, they decide the order of the contacts
+	 */
+	public ContactPipeline(ActorHandles handles) {
+		this.handles = handles;
+	}
+
+	/** @brief Records that an actor jumped against a static actor from below
+	 *  @details The actor has already been stopped, the static actor is hit when the contacts are
+	 *  resolved.
+	 *  @param actor MovingActor that jumped
+	 *  @param hit StaticActor it jumped against
+	 */
+	void headBump(MovingActor actor, StaticActor hit) {
+		add(HEAD_BUMP, actor, hit, -1);
+	}
+
+	/** @brief Finds the contacts between the actors in the spatial hash and with the goomba store
+	 *  @param movers Spatial hash with Mario and the moving actors of the awake chunks
+	 *  @param player Mario object
+	 *  @param store Goombas that are kept in a store, can be null
+	 */
+	void collect(SpatialHash movers, Mario player, GoombaStore store) {
+		movers.pairs(pairs);
+		for(int i = 0; i < pairs.size; i += 2) {
+			MovingActor a = pairs.get(i), b = pairs.get(i + 1);
+			if(b == player) {
+				b = a;
+				a = player;
+			}
+			if(a == player) touchPlayer(player, b);
+			else if(a instanceof Goomba && b instanceof Goomba && canTouch(a) && canTouch(b)
+					&& a.rectangle().overlaps(b.rectangle())) {
+				// Lowest handle first, the pair is turned around once
+				if(id(b) < id(a)) add(TURN_AROUND, b, a, -1);
+				else add(TURN_AROUND, a, b, -1);
+			}
+		}
+
+		if(store != null && player.canBeTouched()) {
+			Rectangle rect = player.rectangle();
+			for(int i = store.findTouching(rect, 0); i != -1; i = store.findTouching(rect, i + 1)) {
+				add(player.tramples(store.getY(i)) ? STOMP : HURT, player, null, i);
+			}
+		}
+	}
+
+	/** @brief Resolves the recorded contacts in order and forgets them
+	 *  @param store Goombas that are kept in a store, can be null
+	 */
+	void resolve(GoombaStore store) {
+		order.clear();
+		for(int i = 0; i < size; i++) {
+			order.add(key(i));
+		}
+		order.sort();
+
+		long last = -1;
+		for(int i = 0; i < order.size; i++) {
+			long key = order.get(i);
+			int c = (int) (key & (MAX_CONTACTS - 1));
+			// The same contact recorded twice, for example by two substeps
+			if(second[c] != null && key >>> INDEX_BITS == last) continue;
+			last = key >>> INDEX_BITS;
+			dispatch(kinds[c], first[c], second[c], stored[c], store);
+		}
+		clear();
+	}
+
+	/** @brief Forgets the recorded contacts without resolving them
+	 */
+	void clear() {
+		for(int i = 0; i < size; i++) {
+			first[i] = null;
+			second[i] = null;
+		}
+		size = 0;
+	}
+
+	/** @brief Get the amount of recorded contacts
+	 *  @return size
+	 */
+	public int size() {
+		return size;
+	}
+
+	private void touchPlayer(Mario player, MovingActor other) {
+		if(!player.canBeTouched() || !canTouch(other)) return;
+		if(!other.rectangle().overlaps(player.rectangle())) return;
+		if(other instanceof Goomba) {
+			add(player.tramples(other.getY()) ? STOMP : HURT, player, other, -1);
+		}
+		else if(other instanceof Mushroom && other.isVisible()) {
+			add(POWER_UP, player, other, -1);
+		}
+	}
+
+	private void dispatch(int kind, MovingActor a, Actor b, int storeIndex, GoombaStore store) {
+		switch(kind) {
+		case HEAD_BUMP:
+			((StaticActor) b).hit(a.level);
+			break;
+		case STOMP:
+			if(!((Mario) a).canBeTouched()) break;
+			((Mario) a).stomp();
+			if(b != null) ((Goomba) b).deadByTrample();
+			else store.trample(storeIndex);
+			break;
+		case HURT:
+			if(((Mario) a).canBeTouched()) ((Mario) a).hitByEnemy();
+			break;
+		case POWER_UP:
+			if(((Mario) a).canBeTouched() && !((Mushroom) b).isDead()) ((Mario) a).powerUp((Mushroom) b);
+			break;
+		case TURN_AROUND:
+			a.collisionXAction();
+			((MovingActor) b).collisionXAction();
+			break;
+		}
+	}
+
+	private static boolean canTouch(MovingActor actor) {
+		return !actor.isDead() && actor.getState() != MovingActor.State.Dying;
+	}
+
+	private void add(int kind, MovingActor a, Actor b, int storeIndex) {
+		if(size == MAX_CONTACTS) return;
+		if(size == kinds.length) grow(size * 2);
+		kinds[size] = kind;
+		first[size] = a;
+		second[size] = b;
+		stored[size] = storeIndex;
+		size++;
+	}
+
+	/** Kind, then the first and the second actor, then the order the contact was recorded in */
+	private long key(int c) {
+		long idA = id(first[c]);
+		// Goombas in the store come after the actors, in the order they were found
+		long idB = second[c] != null ? id(second[c]) : ID_MASK;
+		return (long) kinds[c] << (INDEX_BITS + 2 * ID_BITS) | idA << (INDEX_BITS + ID_BITS) | idB << INDEX_BITS | c;
+	}
+
+	/** Mario has no handle and comes first, the others by the slot of their handle */
+	private int id(Actor actor) {
+		int handle = handles.handleOf(actor);
+		return handle == ActorHandles.NONE ? 0 : ActorHandles.slot(handle) + 1;
+	}
+
+	private void grow(int capacity) {
+		int[] newKinds = new int[capacity];
+		MovingActor[] newFirst = new MovingActor[capacity];
+		Actor[] newSecond = new Actor[capacity];
+		int[] newStored = new int[capacity];
+		System.arraycopy(kinds, 0, newKinds, 0, size);
+		System.arraycopy(first, 0, newFirst, 0, size);
+		System.arraycopy(second, 0, newSecond, 0, size);
+		System.arraycopy(stored, 0, newStored, 0, size);
+		kinds = newKinds;
+		first = newFirst;
+		second = newSecond;
+		stored = newStored;
+	}
+}
@@ -0,0 +1,91 @@
+/** @file FixedPoint.java
+ */
+
+package nl.arjanfrans.mario.model;
+
+/**
+ * @brief Subpixel integers for the physics of moving actors
+ * @details When WorldConfig.fixedPoint is set, positions are kept on a grid of 1/ONE tile and
+ * velocities are whole subpixels per tick, like the NES does. Gravity, damping and the moves of
+ * the substeps are integer arithmetic, and every position and velocity handed back to the
+ * actors is a float that holds the integer exactly. Two runs with the same input then reach
+ * the same state on every tick, on any JVM.
+ */
+public class FixedPoint {
+	/** Subpixels per tile, as a shift */
+	public static final int SHIFT = 12;
+	/** Subpixels per tile */
+	public static final int ONE = 1 << SHIFT;
+
+	private final int ticksPerSecond;
+	private final int gravity;
+
+	/** @brief Constructor method
+	 *  @param step Length of one tick in seconds, must be 1/n of a second
+	 */
+	public FixedPoint(float step) {
+		this.ticksPerSecond = Math.round(1 / step);
+		if(ticksPerSecond <= 0 || Math.abs(1f / ticksPerSecond - step) > 1e-7f) {
+			throw new IllegalArgumentException("Fixed point physics need a step of 1/n seconds, not " + step);
+		}
+		this.gravity = Math.round(World.GRAVITY * ONE / (ticksPerSecond * (float) ticksPerSecond));
+	}
+
+	/** @brief Puts a position on the subpixel grid
+	 *  @param tiles Position in tiles
+	 *  @return position in subpixels
+	 */
+	public static int toFixed(float tiles) {
+		return Math.round(tiles * ONE);
+	}
+
+	/** @brief Get a position in tiles
+	 *  @param subpixels Position in subpixels
+	 *  @return the exact position in tiles
+	 */
+	public static float toFloat(int subpixels) {
+		return subpixels / (float) ONE;
+	}
+
+	/** @brief Puts a velocity on the subpixel grid
+	 *  @param tilesPerSecond Velocity as the actors use it
+	 *  @return velocity in subpixels per tick
+	 */
+	public int toSubpixelsPerTick(float tilesPerSecond) {
+		return Math.round(tilesPerSecond * ONE / ticksPerSecond);
+	}
+
+	/** @brief Get a velocity in tiles per second
+	 *  @param subpixelsPerTick Velocity in subpixels per tick
+	 *  @return the exact velocity in tiles per second
+	 */
+	public float toTilesPerSecond(int subpixelsPerTick) {
+		return subpixelsPerTick * ticksPerSecond / (float) ONE;
+	}
+
+	/** @brief Check if a velocity is below one tile per second, actors then stop
+	 *  @param subpixelsPerTick Velocity in subpixels per tick
+	 *  @return true if the velocity is too slow to keep moving
+	 */
+	public boolean isSlow(int subpixelsPerTick) {
+		return Math.abs(subpixelsPerTick) * ticksPerSecond < ONE;
+	}
+
+	/** @brief Applies damping to a velocity
+	 *  @param subpixelsPerTick Velocity in subpixels per tick
+	 *  @param damping Factor of the actor per 1/MovingActor.DAMPING_RATE of a second, scaled to
+	 *  the tick with StrictMath so it is the same on any JVM, and rounded to whole subpixels
+	 *  @return the damped velocity, rounded towards 0 so left and right damp the same
+	 */
+	public int damp(int subpixelsPerTick, float damping) {
+		long factor = Math.round(StrictMath.pow(damping, MovingActor.DAMPING_RATE / (double) ticksPerSecond) * ONE);
+		return (int) ((long) subpixelsPerTick * factor / ONE);
+	}
+
+	/** @brief Get gravity
+	 *  @return the change of velocity in subpixels per tick, per tick
+	 */
+	public int getGravity() {
+		return gravity;
+	}
+}
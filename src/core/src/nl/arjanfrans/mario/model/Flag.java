@@ -8,6 +8,7 @@ import nl.arjanfrans.mario.graphics.Tiles;
 import com.badlogic.gdx.graphics.g2d.Animation;
 import com.badlogic.gdx.graphics.g2d.Batch;
 import com.badlogic.gdx.math.Rectangle;
+import com.badlogic.gdx.scenes.scene2d.Action;
 import com.badlogic.gdx.scenes.scene2d.Actor;
 import com.badlogic.gdx.scenes.scene2d.Touchable;
 import com.badlogic.gdx.scenes.scene2d.actions.Actions;
@@ -17,6 +18,7 @@ import com.badlogic.gdx.scenes.scene2d.actions.Actions;
  * if Mario interacts with it
  */
 public class Flag extends Actor {
+	private static final int TAKE_DOWN = 0; /**< Script of the slide down the pole */
 
 	private Animation animation; /**< Animation that the flag displays */
 	private float stateTime; /**<  Internal time representation of object */
@@ -25,6 +27,15 @@ public class Flag extends Actor {
 	private boolean down = false; /**< If the flag has been captured or not */
 	private float bottomY; /**< Y coordinate to describe the bottom of the flag */
 	private float slideOffset = 2; /**< Y value to compensate for the slide height */
+	private final Rectangle bounds = new Rectangle(); /**< Rectangle returned by rect() */
+	private final ActionTrack scripts = new ActionTrack(this) {
+		@Override
+		protected Action create(int script) {
+			return Actions.sequence(
+					Actions.delay(0.2f),
+					Actions.moveBy(0, -(Flag.this.getHeight() - slideOffset), 2f));
+		}
+	};
 	
 	/** @brief Constructor method
      *  @details Method which initializes an instance of Flag
@@ -55,16 +66,36 @@ public class Flag extends Actor {
 	public void act(float delta) {
 		stateTime += delta;
 		super.act(delta);
+		scripts.update();
 	}
 	
 	/** @brief Mario captures flag
      *  @details Triggered when Mario interacts with the Flag pole
 	 */
 	public void takeDown() {
-		this.addAction(Actions.sequence(
-				Actions.delay(0.2f),
-				Actions.moveBy(0, -(this.getHeight() - slideOffset), 2f))
-			);
+		scripts.start(TAKE_DOWN);
+	}
+
+	/** @brief Writes the flag into a snapshot
+	 *  @param snapshot WorldSnapshot object
+	 */
+	void write(WorldSnapshot snapshot) {
+		scripts.write(snapshot);
+		snapshot.writeFloat(this.getX());
+		snapshot.writeFloat(this.getY());
+		snapshot.writeFloat(stateTime);
+		snapshot.writeBoolean(down);
+	}
+
+	/** @brief Puts the flag back in the state of a snapshot
+	 *  @param snapshot WorldSnapshot object
+	 *  @param delta Length of one tick
+	 */
+	void read(WorldSnapshot snapshot, float delta) {
+		scripts.read(snapshot, delta);
+		this.setPosition(snapshot.readFloat(), snapshot.readFloat());
+		stateTime = snapshot.readFloat();
+		down = snapshot.readBoolean();
 	}
 
 	/** @brief Draws the flag
@@ -79,10 +110,10 @@ public class Flag extends Actor {
 	}
 	
 	/** @brief Rectangle object in which the Flag exists in
-     *  @return Returns libGDX rectangle object with this objects coordinates
+     *  @return Returns libGDX rectangle object with this objects coordinates, reused by the next call
 	 */
 	public Rectangle rect() {
-		return new Rectangle(this.getX(), this.getY(), this.getWidth(), this.getHeight());
+		return bounds.set(this.getX(), this.getY(), this.getWidth(), this.getHeight());
 	}
 
 	/** @brief Gets end X coordinate
@@ -10,16 +10,28 @@ import com.badlogic.gdx.graphics.g2d.Animation;
 import com.badlogic.gdx.graphics.g2d.Batch;
 import com.badlogic.gdx.graphics.g2d.TextureRegion;
 import com.badlogic.gdx.math.Rectangle;
+import com.badlogic.gdx.math.Vector2;
+import com.badlogic.gdx.scenes.scene2d.Action;
 import com.badlogic.gdx.scenes.scene2d.actions.Actions;
-import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.Pool;
 
 /**
  * @brief Goomba represents the Goomba enemies from the original Mario game
  */
-public class Goomba extends Creature {
+public class Goomba extends Creature implements Pool.Poolable {
+	private static final int TRAMPLED = 0; /**< Script of the death by trampling */
+
 	protected float max_velocity = 1f; /**< Maximum velocity of Goomba */
 	protected GoombaAnimation gfx = new GoombaAnimation(); /**< Animations of Goomba */
 	protected Rectangle rect = new Rectangle(); /**< Rectangle object surrounding the Goomba */
+	private final ActionTrack scripts = new ActionTrack(this) {
+		@Override
+		protected Action create(int script) {
+			return Actions.sequence(Actions.moveBy(0, -(2 * 1/16f) ),
+					Actions.delay(0.5f),
+					MoveableActions.DieAction(Goomba.this));
+		}
+	};
 
 	/** @brief Constructor method
      *  @details Method which initializes an instance of Goomba
@@ -30,13 +42,31 @@ public class Goomba extends Creature {
 	 */
 	public Goomba(World world, float positionX, float positionY) {
 		super(world, positionX, positionY, 3f);
-		float width = gfx.getDimensions(state).x;;
-		float height = gfx.getDimensions(state).y;
-		this.setSize(width, height);
+		Vector2 size = gfx.getDimensions(state);
+		this.setSize(size.x, size.y);
 		direction = Direction.LEFT;
 		moving = false;
 	}	
 	
+	/** @brief Puts the Goomba back in the state it was created in
+	 *  @details Called when the Goomba is given back to a pool, so it can be spawned again.
+	 */
+	@Override
+	public void reset() {
+		clearActions();
+		scripts.clear();
+		state = State.Standing;
+		stateTime = 0;
+		velocity.set(0, 0);
+		direction = Direction.LEFT;
+		facesRight = true;
+		grounded = false;
+		dead = false;
+		moving = false;
+		Vector2 size = gfx.getDimensions(state);
+		this.setSize(size.x, size.y);
+	}
+
 	/** @brief When Goomba dies by getting trampled
      *  @details A Goomba will die when getting trampled (Mario steps on Goomba's head). This
      *  results in the Goomba dying and being removed from the world
@@ -44,9 +74,7 @@ public class Goomba extends Creature {
 	private void dieByTrample() {
 		state = State.Dying;
 		velocity.set(0, 0);
-		this.addAction(Actions.sequence(Actions.moveBy(0, -(2 * 1/16f) ),
-				Actions.delay(0.5f),
-				MoveableActions.DieAction(this)));
+		scripts.start(TRAMPLED);
 	}
 
 	/** @brief Goomba dies by getting trampled
@@ -55,6 +83,14 @@ public class Goomba extends Creature {
 		dieByTrample();
 	}
 	
+	/** @brief Goomba goes back to sleep when its chunk falls asleep
+	 *  @details It is woken again the next time it comes in view.
+	 */
+	@Override
+	public void chunkAsleep() {
+		moving = false;
+	}
+
 	/** @brief Goomba dies by falling off the map
 	 */
 	protected void dieByFalling() {
@@ -72,8 +108,8 @@ public class Goomba extends Creature {
 	public void draw(Batch batch, float parentAlpha) {
 		TextureRegion frame = gfx.getAnimation(state).getKeyFrame(stateTime);
 		if(state == State.Dying) {
-			this.setWidth(gfx.getDimensions(State.Dying).x);
-			this.setHeight(gfx.getDimensions(State.Dying).y);
+			Vector2 size = gfx.getDimensions(State.Dying);
+			this.setSize(size.x, size.y);
 			batch.draw(frame, getX(), getY(), 
 					getX()+this.getWidth()/2, getY() + this.getHeight()/2,
 	                this.getWidth(), this.getHeight(), getScaleX(), getScaleY(), getRotation());
@@ -92,35 +128,38 @@ public class Goomba extends Creature {
 		}
 	}
 	
-	/** @brief Determines behaviour when Goomba collides with another creature
-     *  @details Checks if this Goomba is colliding with any other Goomba in the world
-	 */
-	protected void collisionWithCreature() {
-		Array<Goomba> goombas = world.getEnemies();
-		Rectangle rect = rectangle();
-		rect.set(this.getX(), this.getY(), this.getWidth(), this.getHeight());
-		for(Goomba goomba : goombas) {
-			Rectangle eRect = goomba.rectangle();
-			if(goomba != this && eRect.overlaps(rect) && goomba.state != State.Dying) {
-				collisionXAction();
-			}
-		}
-	}
-
 	/** @brief Determines how the Goomba acts after each discrete time step
      *  @param delta Float representing the change in time
 	 */
 	@Override
 	public void act(float delta) {
 		super.act(delta);
+		scripts.update();
 		if(state != State.Dying) {
 			move(direction);
 			rect.set(this.getX(), this.getY(), this.getWidth(), this.getHeight());
 			applyPhysics(rect);
-			collisionWithCreature();
 		}
 	}
 
+	/** @brief Writes the Goomba into a snapshot
+	 *  @param snapshot WorldSnapshot object
+	 */
+	@Override
+	void write(WorldSnapshot snapshot) {
+		scripts.write(snapshot);
+		super.write(snapshot);
+	}
+
+	/** @brief Puts the Goomba back in the state of a snapshot
+	 *  @param snapshot WorldSnapshot object
+	 */
+	@Override
+	void read(WorldSnapshot snapshot) {
+		scripts.read(snapshot, world.getClock().getDelta());
+		super.read(snapshot);
+	}
+
 	/** @brief Determines behaviour of when Goomba collides with an object in the X direction
 	 */
 	@Override
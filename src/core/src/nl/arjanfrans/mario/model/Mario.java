@@ -18,19 +18,33 @@ import com.badlogic.gdx.graphics.g2d.Batch;
 import com.badlogic.gdx.graphics.g2d.TextureRegion;
 import com.badlogic.gdx.math.Interpolation;
 import com.badlogic.gdx.math.Rectangle;
+import com.badlogic.gdx.math.Vector2;
+import com.badlogic.gdx.scenes.scene2d.Action;
 import com.badlogic.gdx.scenes.scene2d.actions.Actions;
-import com.badlogic.gdx.utils.Array;
 
 /**
  * @brief Represents the playable character in the game
  */
 public class Mario extends Creature {
+	private static final int DYING = 0; /**< Script of the death by an enemy */
+	private static final int FALLING = 1; /**< Script of the death by falling */
+	private static final int HURT = 2; /**< Script of the blinking after a hit */
+	private static final int FLAG = 3; /**< Script of the slide down the flag pole */
+
 	protected MarioAnimation gfx = new MarioAnimation(); /**< Mario's animations */
 	protected Rectangle rect = new Rectangle(); /**< Rectanlge surrounding Mario */
 	private float jump_boost = 40f, width, height; /**< Mario's jump height */
 	private boolean immume; /**< If Mario can take damage or not */
 	private boolean controlsEnabled = true; /**< If the user can control Mario or not */
 	private int points = 0;
+	private Flag flag; /**< The flag Mario captured, null before that */
+	private float endX, endY; /**< Where Mario walks to after the flag */
+	private final ActionTrack scripts = new ActionTrack(this) {
+		@Override
+		protected Action create(int script) {
+			return createScript(script);
+		}
+	};
 
 	/** @brief Constructor method
      *  @details Method which initializes an instance of Mario
@@ -51,13 +65,14 @@ public class Mario extends Creature {
 	 *  @brief Updates Mario's size on GUI based on the dimensions of the state and level
 	 */
 	protected void updateSize() {
-		this.setSize(gfx.getDimensions(state, level).x, gfx.getDimensions(state, level).y);
+		Vector2 size = gfx.getDimensions(state, level);
+		this.setSize(size.x, size.y);
 	}
 
 	/** @brief Behaviour when Mario is hit by an enemy
      *  @details When Mario is hit by an enemy he will take damage, or be eliminated from the stage
 	 */
-	private void hitByEnemy() {
+	void hitByEnemy() {
 		if(!immume) level--;
 
 		boolean dead = level < 1 && !immume;
@@ -67,30 +82,56 @@ public class Mario extends Creature {
 			state = State.Dying;
 			velocity.set(0, 0);
 			// Mario's death animation
-			this.setWidth(gfx.getDimensions(state, level).x);
-			this.setHeight(gfx.getDimensions(state, level).y);
-			this.addAction(Actions.sequence(Actions.moveBy(0, 1, 0.2f, Interpolation.linear),
-					Actions.delay(0.6f),
-					Actions.moveBy(0, -10, 0.6f, Interpolation.linear),
-					Actions.delay(1.6f),
-					MoveableActions.DieAction(this)));
+			updateSize();
+			scripts.start(DYING);
 
 			Audio.stopSong();
 			Audio.playSong("lifelost", false); // Play death music
 			this.resetMarioPoints();
-		} else {
+		} else if(!immume) {
 			// Mario takes damage hit
-			if(!immume) Audio.powerDown.play();
+			Audio.play(Audio.powerDown);
 			immume = true; // Mario cannot take another damage hit for a second
-			// Mario damage animation
-			this.addAction(Actions.sequence(Actions.parallel(Actions.alpha(0f, 2f, Interpolation.linear),
+			// Mario damage animation, started once instead of on every tick the goomba overlaps
+			scripts.start(HURT);
+		}
+	}
+
+	/** @brief Creates the actions of one of Mario's scripts
+	 *  @param script DYING, FALLING, HURT or FLAG
+	 *  @return Action object
+	 */
+	private Action createScript(int script) {
+		switch(script) {
+		case DYING:
+			return Actions.sequence(Actions.moveBy(0, 1, 0.2f, Interpolation.linear),
+					Actions.delay(0.6f),
+					Actions.moveBy(0, -10, 0.6f, Interpolation.linear),
+					Actions.delay(1.6f),
+					MoveableActions.DieAction(this));
+		case FALLING:
+			return Actions.sequence(Actions.delay(3f),
+					MoveableActions.DieAction(this));
+		case HURT:
+			return Actions.sequence(Actions.parallel(Actions.alpha(0f, 2f, Interpolation.linear),
 					Actions.fadeIn(0.4f, Interpolation.linear),
 					Actions.fadeOut(0.4f, Interpolation.linear),
 					Actions.fadeIn(0.4f, Interpolation.linear),
 					Actions.fadeOut(0.4f, Interpolation.linear),
 					Actions.fadeIn(0.4f, Interpolation.linear)),
 					Actions.alpha(1f),
-					MarioActions.stopImmumeAction(this)));
+					MarioActions.stopImmumeAction(this));
+		default:
+			// TODO Flip mario sprite in sliding pose when at bottom
+			return Actions.sequence(
+					Actions.delay(0.2f),
+					Actions.parallel(
+							Actions.moveTo(this.getX(), flag.rect().y, 0.5f, Interpolation.linear),
+							MarioActions.flagTakeDownAction(flag)),
+					MarioActions.setStateAction(this, State.Walking),
+					MarioActions.walkToAction(this, endX, endY),
+					MarioActions.setStateAction(this, State.Pose),
+					MarioActions.finishLevelAction());
 		}
 	}
 
@@ -101,25 +142,16 @@ public class Mario extends Creature {
      *  @param endY y coordinate where Mario will walk to after sliding down the pole
 	 */
 	public void captureFlag(Flag flag, float endX, float endY) {
-		Rectangle flagRect = flag.rect();
 		state = State.FlagSlide;
+		this.flag = flag;
+		this.endX = endX;
+		this.endY = endY;
 
 		this.marioGetsPoints(5000);
-
-		// TODO Flip mario sprite in sliding pose when at bottom
-		this.addAction(Actions.sequence(
-				Actions.delay(0.2f),
-				Actions.parallel(
-						Actions.moveTo(this.getX(), flagRect.y, 0.5f, Interpolation.linear),
-						MarioActions.flagTakeDownAction(flag)),
-				MarioActions.setStateAction(this, State.Walking),
-				MarioActions.walkToAction(this, endX, endY),
-				MarioActions.setStateAction(this, State.Pose),
-				MarioActions.finishLevelAction())
-		);
+		scripts.start(FLAG);
 
 		Audio.stopSong();
-		Audio.flag.play();
+		Audio.play(Audio.flag);
 	}
 
 	/** @brief Eliminates Mario when he is below the bounds of the stage
@@ -128,8 +160,7 @@ public class Mario extends Creature {
 		if(this.getY() < -3f) {
 			state = State.Dying;
 			velocity.set(0, 0);
-			this.addAction(Actions.sequence(Actions.delay(3f),
-					MoveableActions.DieAction(this)));
+			scripts.start(FALLING);
 			Audio.stopSong();
 			Audio.playSong("lifelost", false);
 		}
@@ -141,6 +172,7 @@ public class Mario extends Creature {
 	@Override
 	public void act(float delta) {
 		super.act(delta);
+		scripts.update();
 		// If Mario is in a controllable state
 		if (state != State.Dying && state != State.FlagSlide && controlsEnabled) {
 			// Up
@@ -160,14 +192,52 @@ public class Mario extends Creature {
 			height = gfx.getFrameHeight(level, height);
 			rect.set(this.getX(), this.getY(), width, height);
 
-			// Check for collision
-			collisionWithEnemy();
-			collisionWithMushroom();
-
+			// Contacts with enemies and mushrooms are found by the world once everyone has moved
 			if(state != State.Dying) applyPhysics(rect);
 		}
 	}
 
+	/** @brief Writes Mario into a snapshot
+	 *  @param snapshot WorldSnapshot object
+	 */
+	@Override
+	void write(WorldSnapshot snapshot) {
+		snapshot.writeBoolean(flag != null);
+		snapshot.writeFloat(endX);
+		snapshot.writeFloat(endY);
+		scripts.write(snapshot);
+		super.write(snapshot);
+		snapshot.writeBoolean(immume);
+		snapshot.writeBoolean(controlsEnabled);
+		snapshot.writeInt(points);
+		snapshot.writeFloat(width);
+		snapshot.writeFloat(height);
+		snapshot.writeFloat(rect.x);
+		snapshot.writeFloat(rect.y);
+		snapshot.writeFloat(rect.width);
+		snapshot.writeFloat(rect.height);
+	}
+
+	/** @brief Puts Mario back in the state of a snapshot
+	 *  @details The scripts are started again before the saved fields are set, so the fields
+	 *  they change during the restart are overwritten.
+	 *  @param snapshot WorldSnapshot object
+	 */
+	@Override
+	void read(WorldSnapshot snapshot) {
+		flag = snapshot.readBoolean() ? world.getFlag() : null;
+		endX = snapshot.readFloat();
+		endY = snapshot.readFloat();
+		scripts.read(snapshot, world.getClock().getDelta());
+		super.read(snapshot);
+		immume = snapshot.readBoolean();
+		controlsEnabled = snapshot.readBoolean();
+		points = snapshot.readInt();
+		width = snapshot.readFloat();
+		height = snapshot.readFloat();
+		rect.set(snapshot.readFloat(), snapshot.readFloat(), snapshot.readFloat(), snapshot.readFloat());
+	}
+
 	/** @brief Draws Mario on the GUI
      *  @details Assists libGDX in drawing Mario in a specific batch
      *  @param batch The texture region where Mario is to be drawn
@@ -223,7 +293,7 @@ public class Mario extends Creature {
 		velocity.y += jump_velocity; // Apply velocity in Y direction
 		state = MovingActor.State.Jumping; // Update state
 		grounded = false; // Not grounded
-		Audio.jump.play(); // Play jumping sound
+		Audio.play(Audio.jump); // Play jumping sound
 	}
 
 	/** @brief Triggered when Mario collides with an object in the X direction
@@ -234,77 +304,36 @@ public class Mario extends Creature {
 		velocity.x = 0;
 	}
 
-	/** @brief Determines if Mario is colliding with any enemy
-	 *  @details Checks all Goomba's in the stage for collision with Mario. If Mario is colliding
-	 *  then Mario will take damage or be eliminated. If Mario is trampling a Goomba then the Goomba
-	 *  will be eliminated
+	/** @brief Returns whether enemies and mushrooms can touch Mario
+	 *  @return true while the player controls Mario
 	 */
-	protected void collisionWithEnemy() {
-		Array<Goomba> goombas = world.getEnemies();
-		// Is this creating a copy of Mario's rectangle?
-		// Why can't we just use a get function to grab Mario's rectangle
-		Rectangle marioRect = rectangle();
-		marioRect.set(this.getX(), this.getY(), this.getWidth(), this.getHeight());
-
-		for(Goomba goomba : goombas) {
-			Rectangle gRect = goomba.rectangle();
-
-			if(gRect.overlaps(marioRect) && goomba.state != State.Dying) {
-				boolean marioTrampledGoomba = velocity.y < 0 && this.getY() > goomba.getY();
-
-				if (marioTrampledGoomba) {
-					this.marioGetsPoints(100);
-					goomba.deadByTrample(); // Goomba dies
-					Audio.stomp.play(); // Play stomp sound
-					velocity.y += jump_boost; // Mario gains jump boost
-					grounded = false;
-
-				} else {
-					hitByEnemy(); // Mario takes damage
-				}
-			}
-		}
+	boolean canBeTouched() {
+		return state != State.Dying && state != State.FlagSlide && controlsEnabled;
 	}
 
-	/** @brief Applies gravity and physics to Mario
-	 *  @details Applies gravity if Mario is falling. Determines if Mario is colliding with an
-	 *  actor or object within the stage
-     *  @param rect A rectangle object that is being checked for collision against Mario
+	/** @brief Decides if Mario tramples a goomba he touches
+	 *  @param goombaY y coordinate of the goomba
+	 *  @return Whether the goomba is trampled, otherwise Mario is hit
 	 */
-	@Override
-	protected void applyPhysics(Rectangle rect) {
-		float deltaTime = Gdx.graphics.getDeltaTime();
-		if (deltaTime == 0) return;
-
-		stateTime += deltaTime;
-		velocity.add(0, World.GRAVITY * deltaTime); // apply gravity if we are falling
-
-		// Round velocity to 0 if small enough
-		if (Math.abs(velocity.x) < 1) {
-			velocity.x = 0;
-			if (grounded && controlsEnabled) state = State.Standing;
-		}
-
-		// Scale by deltaTime
-		velocity.scl(deltaTime);
-
-		// Collision in the X direction
-		if(collisionX(rect)) collisionXAction();
-		rect.x = this.getX();
-
-		// Collision in Y direction
-		collisionY(rect);
-
-		// Move
-		this.setPosition(this.getX() + velocity.x, this.getY() +velocity.y);
-		// Unscale velocity
-		velocity.scl(1 / deltaTime);
+	boolean tramples(float goombaY) {
+		return velocity.y < 0 && this.getY() > goombaY;
+	}
 
-		// Apply damping to velocity
-		velocity.x *= damping;
+	/** @brief Behaviour when Mario tramples a goomba
+	 *  @details Mario gets points and a jump boost
+	 */
+	void stomp() {
+		this.marioGetsPoints(100);
+		Audio.play(Audio.stomp); // Play stomp sound
+		velocity.y += jump_boost; // Mario gains jump boost
+		grounded = false;
+	}
 
-		// Check if falling out of map
-		dieByFalling();
+	/** @brief Mario only stands still on his own while the player controls him
+	 */
+	@Override
+	protected void standStill() {
+		if (controlsEnabled) state = State.Standing;
 	}
 
 	/** @brief Causes Mario to transform into Big Mario (power-up)
@@ -314,28 +343,18 @@ public class Mario extends Creature {
 	 */
 	private void big_mario(Mushroom mushroom) {
 		level = 2; // Give extra health point
-		World.objectsToRemove.add(mushroom); // Remove mushroom
-		Audio.powerUp.play(); // Play power up sound
+		world.removeActor(mushroom); // Remove mushroom at the end of the tick
+		Audio.play(Audio.powerUp); // Play power up sound
 	}
 
-	/** @brief Determines if Mario is consuming a mushroom
-	 *  @details Checks all mushrooms in the stage and deteremines if Mario is consuming (colliding)
-	 *  with any of them
+	/** @brief Behaviour when Mario touches a mushroom
+	 *  @details Small Mario eats the mushroom and becomes Big Mario, Big Mario leaves it
+	 *  @param mushroom The mushroom Mario touches
 	 */
-	protected void collisionWithMushroom() {
-		Array<Mushroom> mushrooms = world.getMushrooms();
-		Rectangle marioRect = rectangle();
-		marioRect.set(this.getX(), this.getY(), this.getWidth(), this.getHeight());
-
-		// Check for collision with a mushroom by their rectangles
-		for(Mushroom mushroom : mushrooms) {
-			Rectangle mRect = mushroom.rectangle();
-			if(mushroom.isVisible() && mRect.overlaps(marioRect) && mushroom.state != State.Dying) {
-				if(level == 1) {
-					big_mario(mushroom);
-					this.marioGetsPoints(1000);
-				};
-			}
+	void powerUp(Mushroom mushroom) {
+		if(level == 1) {
+			big_mario(mushroom);
+			this.marioGetsPoints(1000);
 		}
 	}
 
@@ -1,12 +1,15 @@
 package nl.arjanfrans.mario.model;
 
-import com.badlogic.gdx.Gdx;
+import nl.arjanfrans.mario.model.brick.BrickTable;
+import nl.arjanfrans.mario.model.collision.CollisionGrid;
+import nl.arjanfrans.mario.model.collision.CollisionMesh;
+import nl.arjanfrans.mario.model.collision.TileShape;
+
 import com.badlogic.gdx.math.Rectangle;
 import com.badlogic.gdx.math.Vector2;
 import com.badlogic.gdx.scenes.scene2d.Actor;
 import com.badlogic.gdx.scenes.scene2d.Touchable;
-import com.badlogic.gdx.utils.Array;
-import com.badlogic.gdx.utils.Pool;
+import com.badlogic.gdx.utils.IntArray;
 
 /**
  * @brief Represents a moving actor in the game.
@@ -29,6 +32,12 @@ public abstract class MovingActor extends Actor {
 		RIGHT;
 	}
 
+	public static final int MAX_SUBSTEPS = 16; /**< Most substeps a single tick is split into, the swept tests cover the rest */
+	public static final int DAMPING_RATE = 60; /**< Damping factors are per 1/DAMPING_RATE of a second, the frame they were tuned at */
+	public static final float SLOPE_STEP = 0.75f; /**< How far the top of a slope can be above the feet of an actor that walks onto it */
+	private static final State[] STATES = State.values();
+	private static final Direction[] DIRECTIONS = Direction.values();
+
 	protected float max_velocity;
 	protected float jump_velocity = 40f;
 	protected float damping = 0.87f;
@@ -43,16 +52,21 @@ public abstract class MovingActor extends Actor {
 	protected boolean facesRight = true;
 	protected Direction direction;
 	protected boolean grounded = false;
-
-	protected Pool<Rectangle> rectPool = new Pool<Rectangle>() {
-		@Override
-		protected Rectangle newObject() {
-			return new Rectangle();
-		}
-	};
-
+	private final int[] tileBounds = new int[4];
+	private final Rectangle tile = new Rectangle();
+	private final Rectangle bounds = new Rectangle();
+	private final Rectangle from = new Rectangle();
+	private final Rectangle swept = new Rectangle();
+	private final Rectangle brickCell = new Rectangle();
+	private final IntArray shapes = new IntArray();
+	private boolean onSlope = false; /**< Whether the actor stood on a slope after the last substep */
+	private boolean floorIsSlope = false;
+
+	/** @brief Get the rectangle the MovingActor currently covers
+	 *  @return a Rectangle that is owned by the actor and updated on every call
+	 */
 	protected Rectangle rectangle() {
-		return new Rectangle(this.getX(), this.getY(), this.getWidth(), this.getHeight());
+		return bounds.set(this.getX(), this.getY(), this.getWidth(), this.getHeight());
 	}
 
 	/** @brief Constructor method
@@ -74,12 +88,17 @@ public abstract class MovingActor extends Actor {
 
 	/** @brief This method applies the laws of motion to a rectangle
 	 *  @details In the game a MovingActor, can be physically represented by a rectangle, so when
-	 *  a MovingActor moves the laws of physics should apply.
+	 *  a MovingActor moves the laws of physics should apply. When the actor would move more than
+	 *  a cell in one tick, the move is split into substeps that each move at most a cell.
 	 *  @param rect - The rectangle that the MovingActor represents.
 	 */
 	protected void applyPhysics(Rectangle rect) {
-		float deltaTime = Gdx.graphics.getDeltaTime();
+		float deltaTime = world.getClock().getDelta();
 		if (deltaTime == 0) return;
+		if (world.getFixedPoint() != null) {
+			applyFixedPhysics(rect, world.getFixedPoint());
+			return;
+		}
 
 		stateTime += deltaTime;
 
@@ -87,135 +106,510 @@ public abstract class MovingActor extends Actor {
 
 		if (Math.abs(velocity.x) < 1) {
 			velocity.x = 0;
-			if (grounded) state = State.Standing;
+			if (grounded) standStill();
+		}
+
+		int steps = substeps(deltaTime);
+		float stepTime = deltaTime / steps;
+
+		// Scale velocity by the time of one substep
+		velocity.scl(stepTime);
+
+		for (int i = 0; i < steps; i++) {
+			rect.setPosition(this.getX(), this.getY());
+
+			if(collisionX(rect)) collisionXAction();
+
+			rect.x = this.getX();
+
+			collisionY(rect);
+
+			// Update x and y positions
+			this.setPosition(this.getX() + velocity.x, this.getY() + velocity.y);
+		}
+
+		// Un-scale by the time of one substep
+		velocity.scl(1 / stepTime);
+
+		// Apply damping so character eventually stops moving, equally fast at any tick length
+		velocity.x *= dampingPerTick(damping, deltaTime);
+
+		// Checks if the actor is dead from falling
+		dieByFalling();
+	}
+
+	/** @brief This method applies the laws of motion with subpixel integers.
+	 *  @details Same as the float physics, but the position, the velocity, gravity and damping
+	 *  are whole subpixels. The collision tests get the exact float of every integer.
+	 *  @param rect - The rectangle that the MovingActor represents.
+	 *  @param fixed - The subpixel grid of the world.
+	 */
+	private void applyFixedPhysics(Rectangle rect, FixedPoint fixed) {
+		stateTime += world.getClock().getDelta();
+
+		int vx = fixed.toSubpixelsPerTick(velocity.x);
+		int vy = fixed.toSubpixelsPerTick(velocity.y) + fixed.getGravity();
+
+		if (fixed.isSlow(vx)) {
+			vx = 0;
+			if (grounded) standStill();
 		}
 
-		// Scale velocity by delta time
-		velocity.scl(deltaTime);
+		int distance = Math.max(Math.abs(vx), Math.abs(vy));
+		int steps = distance <= FixedPoint.ONE ? 1 : Math.min(MAX_SUBSTEPS, (distance + FixedPoint.ONE - 1) / FixedPoint.ONE);
 
-		if(collisionX(rect)) collisionXAction();
+		for (int i = 0; i < steps; i++) {
+			// The substeps add up to exactly the whole move
+			int dx = vx * (i + 1) / steps - vx * i / steps;
+			int dy = vy * (i + 1) / steps - vy * i / steps;
+			this.setPosition(FixedPoint.toFloat(FixedPoint.toFixed(this.getX())), FixedPoint.toFloat(FixedPoint.toFixed(this.getY())));
+			velocity.set(FixedPoint.toFloat(dx), FixedPoint.toFloat(dy));
+			rect.setPosition(this.getX(), this.getY());
 
-		rect.x = this.getX();
+			if(collisionX(rect)) collisionXAction();
+			if (dx != 0 && velocity.x == 0) vx = 0;
 
-		collisionY(rect);
+			rect.x = this.getX();
 
-		// Update x and y positions
-		this.setPosition(this.getX() + velocity.x, this.getY() + velocity.y);
+			collisionY(rect);
+			if (dy != 0 && velocity.y == 0) vy = 0;
 
-		// Un-scale by delta time
-		velocity.scl(1 / deltaTime);
+			// Collisions can place the actor off the grid, the move itself is exact
+			this.setPosition(FixedPoint.toFloat(FixedPoint.toFixed(this.getX()) + (velocity.x == 0 ? 0 : dx)),
+					FixedPoint.toFloat(FixedPoint.toFixed(this.getY()) + (velocity.y == 0 ? 0 : dy)));
+		}
 
-		// Apply damping so character eventually stops moving
-		velocity.x *= damping;
+		velocity.set(fixed.toTilesPerSecond(fixed.damp(vx, damping)), fixed.toTilesPerSecond(vy));
 
 		// Checks if the actor is dead from falling
 		dieByFalling();
 	}
 
+	/** @brief This method scales a damping factor to the length of a tick.
+	 *  @param damping - The factor per 1/DAMPING_RATE of a second.
+	 *  @param deltaTime - The length of the tick.
+	 *  @return the factor for one tick.
+	 */
+	public static float dampingPerTick(float damping, float deltaTime) {
+		return (float) Math.pow(damping, deltaTime * DAMPING_RATE);
+	}
+
+	/** @brief This method decides in how many substeps a tick is simulated.
+	 *  @param deltaTime - The length of the tick.
+	 *  @return the amount of substeps, so that every substep moves at most one cell, up to MAX_SUBSTEPS.
+	 */
+	private int substeps(float deltaTime) {
+		float distance = Math.max(Math.abs(velocity.x), Math.abs(velocity.y)) * deltaTime;
+		if (distance <= 1) return 1;
+		return Math.min(MAX_SUBSTEPS, (int) Math.ceil(distance));
+	}
+
+	/** @brief This method is called when the actor is on the ground and stopped moving sideways.
+	 */
+	protected void standStill() {
+		state = State.Standing;
+	}
+
+	/** @brief This method is called when the chunk the actor is in falls asleep.
+	 *  @details The actor is not updated until the chunk wakes again. By default it continues
+	 *  where it stopped.
+	 */
+	public void chunkAsleep() {
+	}
+
 	/** @brief This method checks if the rectangle collides with anything in the x direction.
 	 *  @details In the game a MovingActor, can be physically represented by a rectangle, so when
 	 *  a MovingActor meets an immovable object in x direction, the method should return true.
+	 *  The whole distance is swept, so thin walls are not skipped when the actor moves fast.
+	 *  Tiles are tested a merged rectangle of the CollisionMesh at a time instead of cell by cell.
 	 *  @param rect - The rectangle that the MovingActor represents.
 	 *  @return a boolean
 	 */
 	protected boolean collisionX(Rectangle rect) {
-		// int[] bounds = checkTiles(true);
-		// Array<Rectangle> tiles = world.getTiles(bounds[0], bounds[1], bounds[2], bounds[3]);
-
-		Array<Rectangle> tiles = getTiles(true);
-		// What is this for?
+		int[] bounds = checkTiles(true);
+		CollisionMesh mesh = world.getCollisionGrid().getMesh();
+		from.set(rect);
+		// Move the rectangle to where the actor wants to be
 		rect.x += velocity.x;
+		swept.set(Math.min(from.x, rect.x), rect.y, rect.width + Math.abs(velocity.x), rect.height);
 
 		// Checks if actor is colliding with a tile
-		for (Rectangle tile : tiles) {
-			if (rect.overlaps(tile)) {
+		int first = Math.min(bounds[0], bounds[2]), last = Math.max(bounds[0], bounds[2]);
+		mesh.query(first, bounds[1], last, bounds[3], shapes);
+		for (int s = 0; s < shapes.size; s++) {
+			int id = shapes.get(s);
+			int x0 = Math.max(mesh.getX(id), first), x1 = Math.min(mesh.getX(id) + mesh.getWidth(id) - 1, last);
+			int y0 = Math.max(mesh.getY(id), bounds[1]), y1 = Math.min(mesh.getY(id) + mesh.getHeight(id) - 1, bounds[3]);
+
+			// Walking up a slope onto the tile next to its top
+			if (onSlope && mesh.getY(id) + mesh.getHeight(id) <= from.y + SLOPE_STEP) continue;
+
+			// The cells in the column of the leading edge after the move
+			if (bounds[2] >= x0 && bounds[2] <= x1 && blocksTile(tile.set(bounds[2], y0, 1, y1 - y0 + 1), rect, true, true)) {
 				return true;
 			}
-		}
 
-		// If actor is colliding with a static actor and is not destroyed
-		for(StaticActor a : world.getStaticActors()) {
-			if(rect.overlaps(a.rectangle()) && !a.isDestroyed()) {
+			// The cells in the columns that were passed, beyond the leading edge before the move
+			if (velocity.x > 0) {
+				x0 = Math.max(x0, (int) Math.ceil(from.x + from.width));
+				x1 = Math.min(x1, bounds[2] - 1);
+			}
+			else {
+				x0 = Math.max(x0, bounds[2] + 1);
+				x1 = Math.min(x1, (int) Math.floor(from.x) - 1);
+			}
+			if (x0 <= x1 && blocksTile(tile.set(x0, y0, x1 - x0 + 1, y1 - y0 + 1), rect, false, true)) {
 				return true;
 			}
 		}
 
-		return false;
+		// Half blocks are walls as well, slopes and one-way platforms are not
+		if (world.getCollisionGrid().hasPartialShapes() && shapeBlocksSide(first, last, bounds[1], bounds[3])) {
+			return true;
+		}
+
+		// If actor is colliding with a static actor and is not destroyed
+		return staticActorAt(rect, true) != null;
 	}
 
 	/** @brief This method checks for tiles in the x and y directions.
+	 *  @details Along the direction that is checked the bounds go from the cell of the leading
+	 *  edge before the move to the cell of the leading edge after the move, so the start can be
+	 *  larger than the end when moving left or down.
 	 *  @param checkX - A boolean value indicating in which direction we ar checking for tiles.
-	 *  @return an array of integers
+	 *  @return an array of integers: startX, startY, endX and endY. The array is reused by the next call.
 	 */
 	protected int[] checkTiles(boolean checkX) {
 		int startX, startY, endX, endY;
 
 		if(checkX) {
-			if (velocity.x > 0)
-				startX = endX = (int) (this.getX() + this.getWidth() + velocity.x);
-			else
-				startX = endX = (int) (this.getX() + velocity.x);
+			if (velocity.x > 0) {
+				startX = (int) (this.getX() + this.getWidth());
+				endX = (int) (this.getX() + this.getWidth() + velocity.x);
+			}
+			else {
+				startX = (int) (this.getX());
+				endX = (int) (this.getX() + velocity.x);
+			}
 
 			startY = (int) (this.getY());
 			endY = (int) (this.getY() + this.getHeight());
 		} else {
-			if (velocity.y > 0)
-				startY = endY = (int) (this.getY() + this.getHeight() + velocity.y);
-			else
-				startY = endY = (int) (this.getY() + velocity.y);
+			if (velocity.y > 0) {
+				startY = (int) (this.getY() + this.getHeight());
+				endY = (int) (this.getY() + this.getHeight() + velocity.y);
+			}
+			else {
+				startY = (int) (this.getY());
+				endY = (int) (this.getY() + velocity.y);
+			}
 
 			startX = (int) (this.getX());
 			endX = (int) (this.getX() + this.getWidth());
 		}
 
-		return new int[]{startX, startY, endX, endY};
+		tileBounds[0] = startX;
+		tileBounds[1] = startY;
+		tileBounds[2] = endX;
+		tileBounds[3] = endY;
+		return tileBounds;
 	}
 
 	/** @brief This method checks if the rectangle collides with anything in the y direction.
 	 *  @details In the game a MovingActor, can be physically represented by a rectangle, so when
-	 *  a MovingActor meets an immovable object in y direction, the method should return true.
+	 *  a MovingActor meets an immovable object in y direction, it is placed against the nearest one.
 	 *  @param rect - The rectangle that the MovingActor represents.
-	 *  @return a boolean
 	 */
 	protected void collisionY(Rectangle rect) {
-		// int[] bounds = checkTiles(false);
-		// world.getTiles(bounds[0], bounds[1], bounds[2], bounds[3]);
-		Array<Rectangle> tiles = getTiles(false);
+		int[] bounds = checkTiles(false);
+		CollisionMesh mesh = world.getCollisionGrid().getMesh();
+		from.set(rect);
 
 		rect.y += velocity.y;
+		swept.set(rect.x, Math.min(from.y, rect.y), rect.width, rect.height + Math.abs(velocity.y));
 
 		// Can not jump while falling
 		if(velocity.y < 0 ) grounded = false;
+		onSlope = false;
+
+		// Find the nearest row with a tile in the way, and the first tile of that row
+		int rows = Math.abs(bounds[3] - bounds[1]);
+		int dir = bounds[3] >= bounds[1] ? 1 : -1;
+		int nearestRow = rows + 1, nearestX = 0;
+		mesh.query(bounds[0], Math.min(bounds[1], bounds[3]), bounds[2], Math.max(bounds[1], bounds[3]), shapes);
+		for (int s = 0; s < shapes.size; s++) {
+			int id = shapes.get(s);
+			int x0 = Math.max(mesh.getX(id), bounds[0]), x1 = Math.min(mesh.getX(id) + mesh.getWidth(id) - 1, bounds[2]);
+			int y0 = mesh.getY(id), y1 = mesh.getY(id) + mesh.getHeight(id) - 1;
+			for (int i = 0; i <= Math.min(rows, nearestRow); i++) {
+				int y = bounds[1] + i * dir;
+				if (y < y0 || y > y1) continue;
+				// Test the cells of the row together first, the first one is only looked for in a row that blocks
+				if (!blocksTile(tile.set(x0, y, x1 - x0 + 1, 1), rect, i == rows, false)) continue;
+				int x = x0;
+				while (!blocksTile(tile.set(x, y, 1, 1), rect, i == rows, false)) x++;
+				if (i < nearestRow || x < nearestX) {
+					nearestRow = i;
+					nearestX = x;
+				}
+				break;
+			}
+		}
+		boolean hitTile = nearestRow <= rows;
+		boolean lastRow = nearestRow == rows;
+		if (hitTile) tile.set(nearestX, bounds[1] + nearestRow * dir, 1, 1);
+
+		// A static actor only counts when the actor reaches it before the tile
+		StaticActor a = staticActorAt(rect, false);
+		if(a != null && hitTile && distance(a.rectangle(), false) > distance(tile, false)) a = null;
+
+		// Shapes that do not fill their cell and are nearer than the tile
+		if(a == null && world.getCollisionGrid().hasPartialShapes()) {
+			if (velocity.y > 0) {
+				float ceiling = shapeCeiling(rect, bounds);
+				if (ceiling != Float.POSITIVE_INFINITY && (!hitTile || ceiling < tile.y)) {
+					this.setY(ceiling - this.getHeight());
+					velocity.y = 0;
+					return;
+				}
+			}
+			else {
+				float floor = shapeFloor(rect, bounds);
+				if (floor != Float.NEGATIVE_INFINITY && (!hitTile || floor > tile.y + tile.height)) {
+					this.setY(floor);
+					onSlope = floorIsSlope;
+					hitGround();
+					velocity.y = 0;
+					return;
+				}
+			}
+		}
+
+		// A brick that is still a tile becomes an actor when it is hit from below
+		if(a == null && hitTile && velocity.y > 0) a = activateBrick((int) tile.x, bounds[2], (int) tile.y, rect, lastRow);
+
+		if(a != null) {
+			if (velocity.y > 0) {
+				// The static actor is hit when the world resolves the contacts of this tick
+				world.getContacts().headBump(this, a);
+				this.setY(a.getOriginY() - this.getHeight());
+			} else {
+				this.setY(a.getY() + a.getHeight());
+				hitGround();
+			}
+			velocity.y = 0;
+		}
+		else if(hitTile) {
+			if (velocity.y > 0) this.setY(tile.y - this.getHeight());
+			else {
+				this.setY(tile.y + tile.height);
+				hitGround();
+			}
+			velocity.y = 0;
+		}
+	}
 
-		for (Rectangle tile : tiles) {
-			if (rect.overlaps(tile)) {
-				if (velocity.y > 0) this.setY(tile.y - this.getHeight());
+	/** @brief This method checks if a half block is in the way of a move in the x direction.
+	 *  @param first - The first column the move covers.
+	 *  @param last - The last column the move covers.
+	 *  @param bottom - The lowest row the actor covers.
+	 *  @param top - The highest row the actor covers.
+	 *  @return a boolean
+	 */
+	private boolean shapeBlocksSide(int first, int last, int bottom, int top) {
+		CollisionGrid grid = world.getCollisionGrid();
+		for (int x = first; x <= last; x++) {
+			for (int y = bottom; y <= top; y++) {
+				byte shape = grid.getShape(x, y);
+				if (shape == TileShape.FULL || !TileShape.blocksSides(shape)) continue;
+				float b = TileShape.bottom(shape);
+				tile.set(x, y + b, 1, TileShape.top(shape, 0) - b);
+				if (swept.overlaps(tile) && distance(tile, true) >= 0) return true;
+			}
+		}
+		return false;
+	}
+
+	/** @brief This method finds the highest top of a shape that the actor falls onto.
+	 *  @details Slopes are stood on with the centre of the actor, and are also stepped onto when
+	 *  their top is a little above the feet, so actors can walk up them.
+	 *  @param rect - The rectangle that the MovingActor represents, at the end of the move.
+	 *  @param bounds - The cells the move covers, as returned by checkTiles(false).
+	 *  @return the y coordinate to land on, or negative infinity
+	 */
+	private float shapeFloor(Rectangle rect, int[] bounds) {
+		CollisionGrid grid = world.getCollisionGrid();
+		float floor = Float.NEGATIVE_INFINITY;
+		float centre = rect.x + rect.width / 2;
+		for (int x = bounds[0]; x <= bounds[2]; x++) {
+			if (rect.x >= x + 1 || rect.x + rect.width <= x) continue;
+			for (int y = bounds[3]; y <= bounds[1]; y++) {
+				byte shape = grid.getShape(x, y);
+				if (shape == TileShape.FULL || !TileShape.blocksAbove(shape)) continue;
+				float surface;
+				if (TileShape.isSlope(shape)) {
+					if (centre < x || centre >= x + 1) continue;
+					surface = y + TileShape.top(shape, centre - x);
+					if (from.y < surface - SLOPE_STEP) continue;
+				}
 				else {
-					this.setY(tile.y + tile.height);
-					hitGround();
+					surface = y + TileShape.top(shape, 0);
+					if (from.y < surface) continue;
+				}
+				if (rect.y < surface && surface > floor) {
+					floor = surface;
+					floorIsSlope = TileShape.isSlope(shape);
 				}
+			}
+		}
+		return floor;
+	}
 
-				velocity.y = 0;
+	/** @brief This method finds the lowest bottom of a shape that the actor jumps into.
+	 *  @param rect - The rectangle that the MovingActor represents, at the end of the move.
+	 *  @param bounds - The cells the move covers, as returned by checkTiles(false).
+	 *  @return the y coordinate the top of the actor stops at, or positive infinity
+	 */
+	private float shapeCeiling(Rectangle rect, int[] bounds) {
+		CollisionGrid grid = world.getCollisionGrid();
+		float ceiling = Float.POSITIVE_INFINITY;
+		for (int x = bounds[0]; x <= bounds[2]; x++) {
+			if (rect.x >= x + 1 || rect.x + rect.width <= x) continue;
+			for (int y = bounds[1]; y <= bounds[3]; y++) {
+				byte shape = grid.getShape(x, y);
+				if (shape == TileShape.FULL || !TileShape.blocksBelow(shape)) continue;
+				float edge = y + TileShape.bottom(shape);
+				if (from.y + from.height <= edge && rect.y + rect.height > edge && edge < ceiling) ceiling = edge;
+			}
+		}
+		return ceiling;
+	}
 
-				// Break look once overlapped
-				break;
+	/** @brief This method turns the first brick tile in the row that stopped an upward move into an actor.
+	 *  @details Bricks win from other tiles in the same row, like they did when they were all actors.
+	 *  @param startX - The column of the tile that stopped the move.
+	 *  @param endX - The last column the actor covers.
+	 *  @param y - The row of the tile that stopped the move.
+	 *  @param rect - The rectangle that the MovingActor represents, at the end of the move.
+	 *  @param last - Whether the row is the one of the leading edge after the move.
+	 *  @return the Brick that was hit, or null when the row has no brick tile in the way
+	 */
+	private StaticActor activateBrick(int startX, int endX, int y, Rectangle rect, boolean last) {
+		BrickTable bricks = world.getBricks();
+		for (int x = startX; x <= endX; x++) {
+			if (bricks.isTile(x, y) && blocksTile(brickCell.set(x, y, 1, 1), rect, last, false)) {
+				return bricks.activate(x, y);
 			}
 		}
+		return null;
+	}
 
-		for (StaticActor a : world.getStaticActors()) {
-			if(rect.overlaps(a.rectangle()) && !a.isDestroyed()) {
-				if (velocity.y > 0) {
-					a.hit(level);
-					this.setY(a.getOriginY() - this.getHeight());
-				} else {
-					this.setY(a.getY() + a.getHeight());
-					hitGround();
+	/** @brief This method finds the nearest static actor, like a brick, that is in the way of a move.
+	 *  @details Static actors are looked up in the cells the swept area covers. The row below is
+	 *  included because a brick that is bumped moves up into the cell above its own. Must be
+	 *  called after collisionX() or collisionY() moved the rectangle.
+	 *  @param rect - The rectangle that the MovingActor represents, at the end of the move.
+	 *  @param checkX - A boolean value indicating in which direction the actor moved.
+	 *  @return the nearest StaticActor that is in the way and is not destroyed, or null
+	 */
+	protected StaticActor staticActorAt(Rectangle rect, boolean checkX) {
+		CollisionGrid grid = world.getCollisionGrid();
+		int startX = (int) Math.floor(swept.x);
+		int endX = (int) Math.floor(swept.x + swept.width);
+		int startY = (int) Math.floor(swept.y) - 1;
+		int endY = (int) Math.floor(swept.y + swept.height);
+		StaticActor nearest = null;
+		float nearestDistance = 0;
+		for (int x = startX; x <= endX; x++) {
+			for (int y = startY; y <= endY; y++) {
+				StaticActor a = grid.getOccupant(x, y);
+				if(a == null || a.isDestroyed()) continue;
+				Rectangle r = a.rectangle();
+				if(rect.overlaps(r) || (swept.overlaps(r) && distance(r, checkX) >= 0)) {
+					float d = distance(r, checkX);
+					if(nearest == null || d < nearestDistance) {
+						nearest = a;
+						nearestDistance = d;
+					}
 				}
-				velocity.y = 0;
-				break;
 			}
 		}
-		rectPool.free(rect);
+		return nearest;
+	}
+
+	/** @brief This method decides if a tile stops the move that was just made.
+	 *  @details A tile in the cell of the leading edge after the move stops it when the actor
+	 *  ends up overlapping the tile. A tile in a cell that was passed stops it when the tile lies
+	 *  beyond the leading edge the actor had before the move, so tiles the actor already
+	 *  touches from the side do not pull it along.
+	 *  @param tile - The rectangle of the tile.
+	 *  @param rect - The rectangle that the MovingActor represents, at the end of the move.
+	 *  @param last - Whether the tile is in the cell of the leading edge after the move.
+	 *  @param checkX - A boolean value indicating in which direction the actor moved.
+	 *  @return a boolean
+	 */
+	private boolean blocksTile(Rectangle tile, Rectangle rect, boolean last, boolean checkX) {
+		if(last) return rect.overlaps(tile);
+		return swept.overlaps(tile) && distance(tile, checkX) >= 0;
+	}
+
+	/** @brief This method measures how far the actor has to move before it touches a rectangle.
+	 *  @param r - The rectangle that is checked.
+	 *  @param checkX - A boolean value indicating in which direction the actor moved.
+	 *  @return the distance from the leading edge before the move, negative when the rectangle is behind it.
+	 */
+	private float distance(Rectangle r, boolean checkX) {
+		if(checkX) {
+			if (velocity.x > 0) return r.x - (from.x + from.width);
+			return from.x - (r.x + r.width);
+		}
+		if (velocity.y > 0) return r.y - (from.y + from.height);
+		return from.y - (r.y + r.height);
+	}
+
+	/** @brief Writes the state of the actor into a snapshot
+	 *  @param snapshot WorldSnapshot object
+	 */
+	void write(WorldSnapshot snapshot) {
+		snapshot.writeFloat(getX());
+		snapshot.writeFloat(getY());
+		snapshot.writeFloat(getWidth());
+		snapshot.writeFloat(getHeight());
+		snapshot.writeFloat(getColor().a);
+		snapshot.writeBoolean(isVisible());
+		snapshot.writeFloat(velocity.x);
+		snapshot.writeFloat(velocity.y);
+		snapshot.writeFloat(stateTime);
+		snapshot.writeInt(level);
+		snapshot.writeByte((byte) state.ordinal());
+		snapshot.writeByte(direction == null ? -1 : (byte) direction.ordinal());
+		snapshot.writeBoolean(dead);
+		snapshot.writeBoolean(moving);
+		snapshot.writeBoolean(facesRight);
+		snapshot.writeBoolean(grounded);
+		snapshot.writeBoolean(onSlope);
+		snapshot.writeBoolean(floorIsSlope);
+	}
+
+	/** @brief Puts the actor back in the state of a snapshot
+	 *  @param snapshot WorldSnapshot object
+	 */
+	void read(WorldSnapshot snapshot) {
+		setBounds(snapshot.readFloat(), snapshot.readFloat(), snapshot.readFloat(), snapshot.readFloat());
+		getColor().a = snapshot.readFloat();
+		setVisible(snapshot.readBoolean());
+		velocity.set(snapshot.readFloat(), snapshot.readFloat());
+		stateTime = snapshot.readFloat();
+		level = snapshot.readInt();
+		state = STATES[snapshot.readByte()];
+		byte d = snapshot.readByte();
+		direction = d < 0 ? null : DIRECTIONS[d];
+		dead = snapshot.readBoolean();
+		moving = snapshot.readBoolean();
+		facesRight = snapshot.readBoolean();
+		grounded = snapshot.readBoolean();
+		onSlope = snapshot.readBoolean();
+		floorIsSlope = snapshot.readBoolean();
 	}
 
 	/** @brief This method moves the MovingActor in specific directions.
@@ -241,14 +635,6 @@ public abstract class MovingActor extends Actor {
 		}
 	}
 
-	/** @brief This method gets the tiles in the x and y directions.
-	 *  @param isX - A boolean value indicating the direction in which the tile are being retrieved.
-	 *  @return an array of Rectangle objects
-	 */
-	protected Array<Rectangle> getTiles(boolean isX) {
-		int[] bounds = checkTiles(isX);
-		return world.getTiles(bounds[0], bounds[1], bounds[2], bounds[3]);
-	}
 	/** @brief This method sets the grounded boolean instance variable to true.
 	 */
 	protected void hitGround() {
@@ -6,12 +6,22 @@ package nl.arjanfrans.mario.model;
 import nl.arjanfrans.mario.actions.MoveableActions;
 
 import com.badlogic.gdx.math.Interpolation;
+import com.badlogic.gdx.scenes.scene2d.Action;
 import com.badlogic.gdx.scenes.scene2d.actions.Actions;
 
 /**
  * @brief Inherited class MovingActor
  */
 public abstract class Mushroom extends MovingActor {
+	private static final int APPEAR = 0; /**< Script of the rise out of a brick */
+
+	private final ActionTrack scripts = new ActionTrack(this) {
+		@Override
+		protected Action create(int script) {
+			return Actions.sequence(Actions.moveTo(Mushroom.this.getX(), Mushroom.this.getY() + Mushroom.this.getHeight(),
+					0.3f, Interpolation.linear), MoveableActions.startMovingAction(Mushroom.this));
+		}
+	};
 
 	/** @brief Constructor method
 	 *  @details Method which initializes an instance of StaticActor
@@ -28,8 +38,34 @@ public abstract class Mushroom extends MovingActor {
 	 */
 	public void appear() {
 		this.setVisible(true);
-		this.addAction(Actions.sequence(Actions.moveTo(this.getX(), this.getY() + this.getHeight(),
-				0.3f, Interpolation.linear), MoveableActions.startMovingAction(this)));
+		scripts.start(APPEAR);
+	}
+
+	/** @brief Counts the tick for the script of the mushroom
+	 *  @param delta Time in seconds since the last tick
+	 */
+	@Override
+	public void act(float delta) {
+		super.act(delta);
+		scripts.update();
+	}
+
+	/** @brief Writes the mushroom into a snapshot
+	 *  @param snapshot WorldSnapshot object
+	 */
+	@Override
+	void write(WorldSnapshot snapshot) {
+		scripts.write(snapshot);
+		super.write(snapshot);
+	}
+
+	/** @brief Puts the mushroom back in the state of a snapshot
+	 *  @param snapshot WorldSnapshot object
+	 */
+	@Override
+	void read(WorldSnapshot snapshot) {
+		scripts.read(snapshot, world.getClock().getDelta());
+		super.read(snapshot);
 	}
 
 	/** @brief Dispose mushroom
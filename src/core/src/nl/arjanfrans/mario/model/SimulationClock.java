@@ -0,0 +1,107 @@
+/** @file SimulationClock.java
+ */
+
+package nl.arjanfrans.mario.model;
+
+/**
+ * @brief Fixed timestep clock that drives the simulation of the world
+ * @details Real frame time is collected in an accumulator and handed out as ticks of a fixed
+ * length, so the physics behaves the same no matter how fast frames are rendered. When the game
+ * falls too far behind only a limited number of ticks is run, the rest of the backlog is dropped.
+ */
+public class SimulationClock {
+	public static final float DEFAULT_STEP = 1/120f; /**< Length of one tick in seconds */
+	public static final int DEFAULT_MAX_STEPS = 8; /**< Maximum amount of ticks run for a single frame */
+
+	private final float step;
+	private final int maxSteps;
+	private float accumulator = 0;
+	private float elapsed = 0;
+	private long ticks = 0;
+
+	/** @brief Constructor method
+	 *  @details Method which initializes a clock with the default tick length and catch-up cap
+	 */
+	public SimulationClock() {
+		this(DEFAULT_STEP, DEFAULT_MAX_STEPS);
+	}
+
+	/** @brief Constructor method
+	 *  @param step Length of one tick in seconds
+	 *  @param maxSteps Maximum amount of ticks that are run to catch up with a single frame
+	 */
+	public SimulationClock(float step, int maxSteps) {
+		if(step <= 0) throw new IllegalArgumentException("step must be positive.");
+		if(maxSteps < 1) throw new IllegalArgumentException("maxSteps must be at least 1.");
+		this.step = step;
+		this.maxSteps = maxSteps;
+	}
+
+	/** @brief Adds the time of a rendered frame to the clock
+	 *  @param frameTime Time in seconds since the last frame
+	 *  @return The amount of ticks the world has to run for this frame
+	 */
+	public int advance(float frameTime) {
+		if(frameTime > 0) accumulator += frameTime;
+		int steps = (int) (accumulator / step);
+		if(steps > maxSteps) {
+			// Too far behind, drop the backlog instead of spiralling
+			steps = maxSteps;
+			accumulator = 0;
+		}
+		else {
+			accumulator -= steps * step;
+		}
+		elapsed = steps * step;
+		return steps;
+	}
+
+	/** @brief Marks that one tick has been simulated
+	 */
+	public void tick() {
+		ticks++;
+	}
+
+	/** @brief Get the length of one tick
+	 *  @return Time in seconds every model class advances per tick
+	 */
+	public float getDelta() {
+		return step;
+	}
+
+	/** @brief Get the simulated time of the last frame
+	 *  @return Time in seconds handed out by the last call to advance()
+	 */
+	public float getElapsed() {
+		return elapsed;
+	}
+
+	/** @brief Get how far the clock is into the next tick
+	 *  @return A value between 0 and 1, usable to interpolate rendering
+	 */
+	public float getAlpha() {
+		return accumulator / step;
+	}
+
+	/** @brief Get the amount of simulated ticks
+	 *  @return ticks since the clock was created or reset
+	 */
+	public long getTicks() {
+		return ticks;
+	}
+
+	/** @brief Set the amount of simulated ticks, for a world that is restored from a snapshot
+	 *  @param ticks since the clock was created or reset
+	 */
+	public void setTicks(long ticks) {
+		this.ticks = ticks;
+	}
+
+	/** @brief Resets the clock
+	 */
+	public void reset() {
+		accumulator = 0;
+		elapsed = 0;
+		ticks = 0;
+	}
+}
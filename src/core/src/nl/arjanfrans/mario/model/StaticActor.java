@@ -6,7 +6,6 @@ package nl.arjanfrans.mario.model;
 import com.badlogic.gdx.math.Rectangle;
 import com.badlogic.gdx.scenes.scene2d.Actor;
 import com.badlogic.gdx.scenes.scene2d.Touchable;
-import com.badlogic.gdx.utils.Pool;
 
 /**
  * @brief Inherited class that represents static actor
@@ -14,6 +13,7 @@ import com.badlogic.gdx.utils.Pool;
 public abstract class StaticActor extends Actor {
 	protected World world;
 	protected boolean destroyed;
+	private final Rectangle bounds = new Rectangle();
 
 	// Constructor
 	/** @brief Constructor method
@@ -26,24 +26,12 @@ public abstract class StaticActor extends Actor {
 	}
 
 	/** @brief Get object Rectangle
-	 * @return r of Rectangle
+	 * @return bounds Rectangle owned by the actor, updated on every call
 	 */
 	public Rectangle rectangle() {
-		Rectangle r = rectPool.obtain();
-		r.set(this.getX(), this.getY(), this.getWidth(), this.getHeight());
-		rectPool.free(r);
-		return r;
+		return bounds.set(this.getX(), this.getY(), this.getWidth(), this.getHeight());
 	}
 
-	// Can maybe move this out of this file
-	protected Pool<Rectangle> rectPool = new Pool<Rectangle>()
-	{
-		@Override
-		protected Rectangle newObject() {
-			return new Rectangle();
-		}
-	};
-
 	/** @brief Get boolean
 	 *  @return destroyed boolean value true if destroyed
 	 */
@@ -3,51 +3,74 @@
 
 package nl.arjanfrans.mario.model;
 
-import java.util.Iterator;
-
 import com.badlogic.gdx.graphics.Color;
 import com.badlogic.gdx.graphics.g2d.BitmapFont;
 import com.badlogic.gdx.scenes.scene2d.ui.Table;
 import com.badlogic.gdx.scenes.scene2d.ui.TextButton;
 
 import nl.arjanfrans.mario.audio.Audio;
-import nl.arjanfrans.mario.debug.D;
+import nl.arjanfrans.mario.graphics.GoombaAnimation;
 import nl.arjanfrans.mario.graphics.Tiles;
+import nl.arjanfrans.mario.model.brick.BrickTable;
+import nl.arjanfrans.mario.model.chunk.ChunkMap;
+import nl.arjanfrans.mario.model.collision.CollisionGrid;
+import nl.arjanfrans.mario.model.collision.GridCaster;
+import nl.arjanfrans.mario.model.collision.SpatialHash;
+import nl.arjanfrans.mario.model.enemy.EnemySpawner;
+import nl.arjanfrans.mario.model.enemy.GoombaLayer;
+import nl.arjanfrans.mario.model.enemy.GoombaStore;
+import nl.arjanfrans.mario.model.level.Level;
+import nl.arjanfrans.mario.model.level.LevelStreamer;
+import nl.arjanfrans.mario.model.level.TileStoreLayer;
 import nl.arjanfrans.mario.view.WorldRenderer;
 
 import com.badlogic.gdx.Gdx;
 import com.badlogic.gdx.graphics.Texture;
-import com.badlogic.gdx.graphics.g2d.TextureRegion;
-import com.badlogic.gdx.maps.MapLayer;
-import com.badlogic.gdx.maps.MapObject;
-import com.badlogic.gdx.maps.MapObjects;
 import com.badlogic.gdx.maps.MapProperties;
 import com.badlogic.gdx.maps.tiled.TiledMap;
-import com.badlogic.gdx.maps.tiled.TiledMapTile;
-import com.badlogic.gdx.maps.tiled.TiledMapTileLayer;
 import com.badlogic.gdx.maps.tiled.TiledMapTile.BlendMode;
-import com.badlogic.gdx.maps.tiled.TiledMapTileLayer.Cell;
-import com.badlogic.gdx.maps.tiled.TmxMapLoader;
-import com.badlogic.gdx.maps.tiled.tiles.AnimatedTiledMapTile;
 import com.badlogic.gdx.math.Rectangle;
+import com.badlogic.gdx.math.Vector2;
 import com.badlogic.gdx.scenes.scene2d.Actor;
 import com.badlogic.gdx.scenes.scene2d.Stage;
 import com.badlogic.gdx.utils.Array;
-import com.badlogic.gdx.utils.ArrayMap;
 import com.badlogic.gdx.utils.Pool;
+import com.badlogic.gdx.utils.SnapshotArray;
 
 /**
  * @brief Represents world
  */
 public class World {
+	private static final byte GOOMBA = 0; /**< Kind of a Goomba actor in a snapshot */
+	private static final byte MUSHROOM = 1; /**< Kind of a Mushroom actor in a snapshot */
+	private static final byte BRICK = 2; /**< Kind of a Brick actor in a snapshot */
+
 	//private Coin coin;
 	//private int coin = 0;
 	private Mario player;
 	private TiledMap map;
+	private final Level level;
+	private LevelStreamer streamer;
+	private final float residentMargin; /**< Distance in tiles beside the view in which the level is loaded */
 	public static final float GRAVITY = -150;
 	public static final float scale = 1/16f;
-	private Array<Goomba> goombas;
-	private Array<Mushroom> mushrooms;
+	/** Size of the part of the world the camera shows, in tiles */
+	public static final float VIEW_WIDTH = 16, VIEW_HEIGHT = 12;
+	private final ActorHandles handles = new ActorHandles();
+	private final CommandBuffer commands = new CommandBuffer();
+	private final ContactPipeline contacts = new ContactPipeline(handles);
+	private final ActorRegistry<Goomba> goombas = new ActorRegistry<Goomba>(Goomba.class, handles);
+	private final ActorRegistry<Mushroom> mushrooms = new ActorRegistry<Mushroom>(Mushroom.class, handles);
+	private final ActorRegistry<StaticActor> staticActors = new ActorRegistry<StaticActor>(StaticActor.class, handles);
+	private EnemySpawner enemySpawner; /**< Spawns the Goomba actors, null when WorldConfig.enemyStore is set */
+	private GoombaStore goombaStore; /**< Goombas when WorldConfig.enemyStore is set, otherwise null */
+	private GoombaAnimation goombaGfx;
+	private CollisionGrid grid;
+	private GridCaster caster;
+	private ChunkMap chunks;
+	private BrickTable bricks;
+	private SpatialHash movers;
+	private Array<Rectangle> tileRects = new Array<Rectangle>();
 	private Pool<Rectangle> rectPool = new Pool<Rectangle>()
 	{
 		@Override
@@ -59,6 +82,19 @@ public class World {
 	private static Tiles tiles = new Tiles();
 	private Stage stage;
 	private WorldRenderer wr;
+	private SimulationClock clock;
+	private final FixedPoint fixedPoint; /**< Subpixel grid of the physics, null unless WorldConfig.fixedPoint is set */
+	private final WorldConfig config;
+	private Rectangle view = new Rectangle();
+	private final Array<Super> spareMushrooms = new Array<Super>(); /**< Mushrooms taken out by restore(), used again for the next one */
+	private final Pool<WorldSnapshot> snapshots = new Pool<WorldSnapshot>() {
+		@Override
+		protected WorldSnapshot newObject() {
+			return new WorldSnapshot();
+		}
+	};
+	private final WorldSnapshot baseline; /**< The level right after it was loaded, reset() restores it */
+	private int resets = 0; /**< Times the world was reset, Mario stays the same object */
 	// If true the world will reset
 	public static boolean reset_flag = false;
 	
@@ -69,87 +105,190 @@ public class World {
 	 */
 	private Flag flag;
 	
-	public static Array<Actor> objectsToRemove = new Array<Actor>();
 
 
 	Table hud1;
 	TextButton coinsLabel;
 	Table hud;
 	TextButton scoreLabel;
+	private int shownPoints = -1; /**< Points on the score label, the label is only rebuilt when they change */
+	private int shownCoins = -1; /**< Coins on the coins label */
 
 	/** @brief Constructor method
 	 *  @details Method which initializes an instance of World
 	 */
 	public World() {
-		reset();
+		this(new WorldConfig());
+	}
+
+	/** @brief Constructor method
+	 *  @details Method which initializes an instance of World with the given options
+	 *  @param config WorldConfig object, decides for example if the world is rendered
+	 */
+	public World(WorldConfig config) {
+		this(config, Level.load(config.level));
+	}
+
+	/** @brief Constructor method
+	 *  @details Initializes an instance of World with a level that is already loaded, for example
+	 *  by a LevelLoader
+	 *  @param config WorldConfig object, decides for example if the world is rendered
+	 *  @param level Level object of config.level
+	 */
+	public World(WorldConfig config, Level level) {
+		this.config = config;
+		this.level = level;
+		this.clock = new SimulationClock(config.step, SimulationClock.DEFAULT_MAX_STEPS);
+		this.fixedPoint = config.fixedPoint ? new FixedPoint(config.step) : null;
+		this.residentMargin = Math.max(config.residentMargin,
+				Math.max(config.despawnMargin, (ChunkMap.KEEP_MARGIN + 1) * config.chunkSize));
+		Audio.setEnabled(config.audio);
+		load();
+		baseline = snapshot();
 	}
 	
 	private boolean level_ended = false;
 
 	/** @brief Generates enemies
-	 *  @details Method that generates enemies from Goomba object array
-	 * @return goombas array
-	 */
-	private Array<Goomba> generateEnemies() {
-		Array<Goomba> goombas = new Array<Goomba>();
-		MapLayer layer = map.getLayers().get("objects");
-		MapObjects objects = layer.getObjects();
-		Iterator<MapObject> objectIt = objects.iterator();
-		while(objectIt.hasNext()) {
-			MapObject obj = objectIt.next();
-			String type = (String) obj.getProperties().get("type");
-			if(type != null) {
-				float x = (Float) obj.getProperties().get("x");
-				float y = (Float) obj.getProperties().get("y");
-				if(type.equals("goomba")) {
-					Goomba goomba = new Goomba(this, x * (1/16f), y* (1/16f));
-					goombas.add(goomba);
-					stage.addActor(goomba);
-				}
+	 *  @details Method that reads the Goomba enemies of the level. Goomba actors are only
+	 *  spawned when the camera comes near, goombas in a store are all added at once.
+	 */
+	private void generateEnemies() {
+		for(int i = 0; i < level.getGoombaCount(); i++) {
+			float x = level.getGoombaX(i);
+			float y = level.getGoombaY(i);
+			if(goombaStore != null) {
+				goombaStore.add(x * (1/16f), y * (1/16f));
+			}
+			else {
+				enemySpawner.add(x * (1/16f), y * (1/16f));
 			}
 		}
-		return goombas;
+	}
+
+	/** @brief Creates the goomba store
+	 *  @details All goombas share one animation, which also gives their size. The store is
+	 *  drawn by a single GoombaLayer actor.
+	 */
+	private void createGoombaStore() {
+		goombaGfx = new GoombaAnimation();
+		Vector2 size = goombaGfx.getDimensions(MovingActor.State.Walking);
+		goombaStore = new GoombaStore(this, size.x, size.y, config.enemyThreads);
+		stage.addActor(new GoombaLayer(goombaStore, goombaGfx));
+	}
+
+	/** @brief Creates the enemy spawner
+	 */
+	private void createEnemySpawner() {
+		enemySpawner = new EnemySpawner(this, config.spawnMargin, config.despawnMargin);
+	}
+
+	/** @brief Adds actor
+	 *  @details The actor gets a handle right away. It is put in the chunk at its position and
+	 *  in the registry of its type at the end of the tick.
+	 *  @param a object Actor
+	 *  @return handle of the actor
+	 */
+	public int addActor(Actor a) {
+		int handle = handles.create(a);
+		commands.spawn(handle);
+		return handle;
 	}
 
 	/** @brief Removes actor
+	 *  @details The actor is taken out of its chunk and out of the registry of its type at the
+	 *  end of the tick. Removing an actor that is already gone does nothing.
 	 *  @param a object Actor
 	 */
 	public void removeActor(Actor a) {
-		stage.getActors().removeValue(a, true);
+		commands.remove(handles.handleOf(a));
+	}
+
+	/** @brief Applies the spawns and removals of the tick, in the order they were made
+	 */
+	private void applyCommands() {
+		for(int i = 0; i < commands.size(); i++) {
+			int handle = commands.getHandle(i);
+			Actor a = handles.get(handle);
+			if(a == null) continue;
+			if(commands.getCommand(i) == CommandBuffer.SPAWN) {
+				chunks.add(a);
+				if(a instanceof Goomba) goombas.add((Goomba) a, handle);
+				if(a instanceof Mushroom) mushrooms.add((Mushroom) a, handle);
+				if(a instanceof StaticActor) staticActors.add((StaticActor) a, handle);
+			}
+			else {
+				a.remove();
+				if(a instanceof Goomba) goombas.remove(handle);
+				if(a instanceof Mushroom) mushrooms.remove(handle);
+				if(a instanceof StaticActor) staticActors.remove(handle);
+				handles.release(handle);
+			}
+		}
+		commands.clear();
 	}
 
 	/** @brief Resets world
+	 *  @details Puts the level back in the state it was loaded in, by restoring the snapshot
+	 *  that was taken right after loading it. The stage, map, actors, renderer, fonts and
+	 *  textures are all kept, so a respawn loads and creates nothing. The clock keeps counting.
 	 */
 	private void reset() {
-		reset_flag = false;
-		map = new TmxMapLoader().load("data/level1.tmx");
+		resets++;
+		long ticks = clock.getTicks();
+		restore(baseline);
+		clock.setTicks(ticks);
+		// Mushrooms of the last life are not needed by the baseline
+		spareMushrooms.clear();
+		Audio.stopSong();
+		Audio.playSong(level.getSong(), true);
+		if(wr != null) wr.reset();
+	}
 
-		animateTiles((TiledMapTileLayer) map.getLayers().get("walls_background"));
-		initTileset((TiledMapTileLayer) map.getLayers().get("walls_background"));
-		animateTiles((TiledMapTileLayer) map.getLayers().get("walls"));
-		initTileset((TiledMapTileLayer) map.getLayers().get("walls"));
-		
+	/** @brief Creates the map, the stage, the actors and the renderer of the level
+	 */
+	private void load() {
+		reset_flag = false;
+		streamer = new LevelStreamer(level);
+		map = level.createMap();
 		
-		//Read the object named 'mario' from the tmx map. Read the starting position.
-		MapObject mario = map.getLayers().get("objects").getObjects().get("mario");
-		int marioX = (int) ((Float) mario.getProperties().get("x") * World.scale);
-		int marioY = (int) ((Float) mario.getProperties().get("y") * World.scale);
+		//Read the starting position of Mario
+		int marioX = (int) (level.getMarioX() * World.scale);
+		int marioY = (int) (level.getMarioY() * World.scale);
 		player = new Mario(this, marioX, marioY);
 		//coin = new Coin();
 		Coin.c = 0;
 		
 		stage = new Stage();
-		goombas = generateEnemies();
-		mushrooms = new Array<Mushroom>();
-		generateBricks((TiledMapTileLayer) map.getLayers().get("walls"));
+		goombas.clear();
+		mushrooms.clear();
+		staticActors.clear();
+		commands.clear();
+		contacts.clear();
+		handles.clear();
+		if(config.enemyStore) createGoombaStore();
+		else createEnemySpawner();
+		int walls = level.getLayer("walls");
+		grid = new CollisionGrid(streamer, walls);
+		caster = new GridCaster(grid);
+		chunks = new ChunkMap(stage, grid.getWidth(), config.chunkSize);
+		generateEnemies();
+		bricks = new BrickTable(this, (TileStoreLayer) map.getLayers().get("walls"), streamer, walls);
+		movers = new SpatialHash(grid.getWidth(), grid.getHeight(), 2);
 		
-		generateFlag((MapLayer) map.getLayers().get("objects"));
+		generateFlag();
 		
 		stage.addActor(player);
-		String song = (String) map.getLayers().get("background").getObjects().get("background_image").getProperties().get("audio");
 		Audio.stopSong();
-		Audio.playSong(song, true);
+		Audio.playSong(level.getSong(), true);
 
+		if(config.render) createHud();
+		level.disposeImages();
+	}
+
+	/** @brief Creates the labels for coins and score, and the renderer of the world
+	 */
+	private void createHud() {
 		hud1 = new Table();
 		//hud.setFillParent(true);
 		hud = new Table();
@@ -161,6 +300,7 @@ public class World {
 		style.font = new BitmapFont();
 		style.font.setScale((float) 0.13);
 
+		shownPoints = shownCoins = -1;
 		coinsLabel = new TextButton("", style);
 		//coinsLabel.setText("0");
 		updateCoinsLabel();
@@ -179,28 +319,13 @@ public class World {
 	}
 
 	/** @brief Updates world
+	 *  @details Runs as many fixed ticks as the time of the last frame allows, then renders.
+	 *  A world that is not rendered is advanced with step() instead.
 	 */
 	public void update() {
-		//Check if the level has ended
-		endLevel();
-		
-		Rectangle screen = rectPool.obtain();
-		screen.set(wr.getCamera().position.x - wr.getCamera().viewportWidth/2, 
-				wr.getCamera().position.y-wr.getCamera().viewportHeight/2,
-				wr.getCamera().viewportWidth, wr.getCamera().viewportHeight);
-		for(Goomba e : goombas) {
-			if(screen.overlaps(e.rectangle())) {
-				e.setMoving(true);
-			}
-			if(e.isDead()) {
-				goombas.removeValue(e, true);
-				stage.getActors().removeValue(e, true);
-			}
-		}
-		
-		for(Actor a : objectsToRemove) {
-			stage.getActors().removeValue(a, true);
-			objectsToRemove.removeValue(a, true);
+		int steps = clock.advance(Gdx.graphics.getDeltaTime());
+		for(int i = 0; i < steps; i++) {
+			step();
 		}
 
 		hud1.setPosition(wr.getCamera().position.x - wr.getCamera().viewportWidth/2+8, 12);
@@ -209,141 +334,230 @@ public class World {
 		hud.setPosition(wr.getCamera().position.x - wr.getCamera().viewportWidth/2+3, 12);
 		updateScoreLabel();
 
-		rectPool.free(screen);
-		stage.act(Gdx.graphics.getDeltaTime());
-		if(player.isDead()) reset();
-
 		wr.render();
 	}
-	
-	/**
-	 * Setup the flag at the end of the level
-	 * @param layer Tmx map layer with the object named 'flag';
-	 */
-	private void generateFlag(MapLayer layer) {
-		MapObject obj = layer.getObjects().get("flag");
-		float x = (Float) obj.getProperties().get("x") * World.scale;
-		float y = (Float) obj.getProperties().get("y") * World.scale;
-		float width = Float.valueOf((String) obj.getProperties().get("width"));
-		float height = Float.valueOf((String) obj.getProperties().get("height"));
-		
-		// The object in the map named 'flag_end' determines the position Mario walks to after the flag
-		MapObject flag_end = layer.getObjects().get("flag_end");
-		float flag_end_x = (Float) flag_end.getProperties().get("x") * World.scale;	
-		float flag_end_y = (Float) flag_end.getProperties().get("y") * World.scale;	
+
+	/** @brief Advances the world by exactly one tick of the simulation clock
+	 */
+	public void step() {
+		//Check if the level has ended
+		endLevel();
 		
-		flag = new Flag(x, y, width, height, flag_end_x, flag_end_y);
-		stage.addActor(flag);
+		// The camera follows Mario on the x-axis only
+		view.set(player.getX() - VIEW_WIDTH/2, 0, VIEW_WIDTH, VIEW_HEIGHT);
+		// Goombas at the edge of the resident part look at the cells beside them
+		streamer.update(view.x - residentMargin - 2, view.x + view.width + residentMargin + 2);
+		if(enemySpawner != null) enemySpawner.update(view);
+		chunks.update(view);
+		if(goombaStore != null) goombaStore.update(view, view.x - residentMargin, view.x + view.width + residentMargin);
+		// Goombas in sleeping chunks can not be in view
+		for(int c = 0; c < chunks.activeSize(); c++) {
+			SnapshotArray<Actor> actors = chunks.getActive(c).getChildren();
+			for(int i = actors.size - 1; i >= 0; i--) {
+				if(!(actors.get(i) instanceof Goomba)) continue;
+				Goomba e = (Goomba) actors.get(i);
+				if(view.overlaps(e.rectangle())) {
+					e.setMoving(true);
+				}
+			}
+		}
+		bricks.update();
+
+		updateSpatialHash();
+
+		stage.act(clock.getDelta());
+		contacts.collect(movers, player, goombaStore);
+		contacts.resolve(goombaStore);
+		applyCommands();
+		clock.tick();
+		if(player.isDead()) reset();
 	}
 	
-	/**
-	 * Turn all bricks into actors.
-	 * @param layer TiledMapTileLayer object
-	 */
-	private void generateBricks(TiledMapTileLayer layer) {
-		for (int x = 1; x < layer.getWidth(); x++) {
-			for (int y = 1; y < layer.getHeight(); y++) {
-				Cell cell = layer.getCell(x, y);
-				if(cell != null) {
-					TiledMapTile oldTile = cell.getTile();
-					if(oldTile.getProperties().containsKey("actor")) {
-						String type = (String) oldTile.getProperties().get("actor");
-						StaticActor actor = null;
-						if(type.equals("Brick") || type.equals("Bonus")) {
-							//TODO add other colored bricks
-							String color = (String) oldTile.getProperties().get("color");
-							boolean destructable = false;
-							if(oldTile.getProperties().containsKey("destructable")) {
-								
-								String destr = (String) oldTile.getProperties().get("destructable");
-								destructable = destr.equals("true") ? true : false;
-							}
-							
-							actor = new Brick(this, x, y, color, type.equals("Bonus"), destructable);
-							itemsInBrick((Brick) actor, x, y);
-
-
-
-							//brick = new Brick(this, x, y, color, type.equals("Bonus"), destructable);
-							//System.out.println(this.brick.getCoin());
-							//label = Integer.toString(this.brick.getCoin());
-
-
-
-						}
-						layer.setCell(x, y, null);
-						stage.addActor(actor);
-					}
+	/** @brief Takes a snapshot of the world
+	 *  @details Call between ticks. The snapshot comes from a pool, give it back with free()
+	 *  when it is no longer needed.
+	 *  @return WorldSnapshot object
+	 */
+	public WorldSnapshot snapshot() {
+		WorldSnapshot snapshot = snapshots.obtain();
+		snapshot(snapshot);
+		return snapshot;
+	}
+
+	/** @brief Writes the state of the world into a snapshot
+	 *  @details Covers Mario, the goombas, the bricks and the items in them, the mushrooms, the
+	 *  flag, the coins, the actions that are running, which chunks are awake and the handles of
+	 *  all actors, so stepping on from a restored snapshot gives the same ticks as stepping on
+	 *  from here. Sounds and the state of the renderer are not part of it.
+	 *  @param snapshot WorldSnapshot object that is emptied and filled
+	 */
+	public void snapshot(WorldSnapshot snapshot) {
+		snapshot.reset();
+		snapshot.writeInt(grid.getWidth());
+		snapshot.writeInt(grid.getHeight());
+		snapshot.writeInt((int) (clock.getTicks() >>> 32));
+		snapshot.writeInt((int) clock.getTicks());
+		snapshot.writeInt(Coin.c);
+		snapshot.writeBoolean(level_ended);
+		snapshot.writeBoolean(reset_flag);
+		snapshot.writeBoolean(playing_finish_song);
+
+		handles.write(snapshot);
+		chunks.write(snapshot);
+		if(enemySpawner != null) enemySpawner.write(snapshot);
+		bricks.write(snapshot);
+		player.write(snapshot);
+		flag.write(snapshot);
+
+		// The actors in the order of their chunks, the order in which they act
+		for(int c = 0; c < chunks.size(); c++) {
+			SnapshotArray<Actor> actors = chunks.get(c).getChildren();
+			snapshot.writeInt(actors.size);
+			for(int i = 0; i < actors.size; i++) {
+				Actor a = actors.get(i);
+				snapshot.writeInt(handles.handleOf(a));
+				if(a instanceof Goomba) {
+					snapshot.writeByte(GOOMBA);
+					snapshot.writeInt(enemySpawner.spawnOf((Goomba) a));
+					((Goomba) a).write(snapshot);
+				}
+				else if(a instanceof Super) {
+					snapshot.writeByte(MUSHROOM);
+					((Super) a).write(snapshot);
+				}
+				else if(a instanceof Brick) {
+					snapshot.writeByte(BRICK);
+					snapshot.writeInt(bricks.indexOfActive((Brick) a));
+				}
+				else {
+					throw new IllegalStateException("Can not take a snapshot of " + a);
 				}
 			}
 		}
+		goombas.write(snapshot);
+		mushrooms.write(snapshot);
+		staticActors.write(snapshot);
+		if(goombaStore != null) goombaStore.write(snapshot);
 	}
-	
-	/**
-	 * Check if there are items in a brick, if there are they are added to the brick.
-	 * @param brick Brick object
-	 * @param x coordinate
-	 * @param y coordinate
-	 */
-	private void itemsInBrick(Brick brick, int x, int y) {
-		MapLayer layer = map.getLayers().get("hidden_items");
-		MapObjects objects = layer.getObjects();
-		for(MapObject obj : objects) {
-			
-			int obj_x = (int) ((Float) obj.getProperties().get("x") * (1/16f));
-			int obj_y = (int) ((Float) obj.getProperties().get("y") * (1/16f));
-			if(obj_x == x && obj_y == y) {
-				String type = (String) obj.getProperties().get("type");
-				Actor item = null;
-				if(type.equals("super_mushroom")) {
-					item = new Super(this, x, y, 4f);
-					mushrooms.add((Mushroom) item);
+
+	/** @brief Puts the world back in the state of a snapshot
+	 *  @details Call between ticks. The snapshot can be of an earlier or a later tick, and is
+	 *  not changed, so it can be restored again. The actors that are in the world now are taken
+	 *  out right away and actors are taken from the pools of the world for the ones in the
+	 *  snapshot. Only a brick that was being bumped is created anew.
+	 *  @param snapshot WorldSnapshot object of the same level
+	 */
+	public void restore(WorldSnapshot snapshot) {
+		snapshot.rewind();
+		if(snapshot.readInt() != grid.getWidth() || snapshot.readInt() != grid.getHeight()) {
+			throw new IllegalArgumentException("Snapshot is of another level");
+		}
+		clock.setTicks((long) snapshot.readInt() << 32 | (snapshot.readInt() & 0xffffffffL));
+		Coin.c = snapshot.readInt();
+		level_ended = snapshot.readBoolean();
+		reset_flag = snapshot.readBoolean();
+		playing_finish_song = snapshot.readBoolean();
+
+		for(int i = 0; i < mushrooms.size(); i++) {
+			if(mushrooms.get(i) instanceof Super) spareMushrooms.add((Super) mushrooms.get(i));
+		}
+		commands.clear();
+		contacts.clear();
+
+		handles.read(snapshot);
+		chunks.read(snapshot);
+		if(enemySpawner != null) enemySpawner.read(snapshot);
+		bricks.read(snapshot);
+		player.read(snapshot);
+		flag.read(snapshot, clock.getDelta());
+
+		for(int c = 0; c < chunks.size(); c++) {
+			int count = snapshot.readInt();
+			for(int i = 0; i < count; i++) {
+				int handle = snapshot.readInt();
+				byte kind = snapshot.readByte();
+				Actor a;
+				if(kind == GOOMBA) {
+					Goomba goomba = enemySpawner.getLive(snapshot.readInt());
+					goomba.read(snapshot);
+					a = goomba;
+				}
+				else if(kind == MUSHROOM) {
+					Super mushroom = spareMushrooms.size > 0 ? spareMushrooms.pop() : new Super(this, 0, 0, 4f);
+					mushroom.read(snapshot);
+					a = mushroom;
 				}
-				stage.addActor(item);				
-				brick.addItem(item);
+				else {
+					a = bricks.getActive(snapshot.readInt());
+				}
+				handles.place(a, handle);
+				chunks.get(c).addActor(a);
 			}
 		}
+		goombas.read(snapshot);
+		mushrooms.read(snapshot);
+		staticActors.read(snapshot);
+		if(goombaStore != null) goombaStore.read(snapshot);
+		// Goombas that died during the tick of the snapshot remove themselves again
+		commands.clear();
 	}
-	
-	/**
-	 * @return All StaticActor classes. Bricks for example.
+
+	/** @brief Gives a snapshot back to the pool of the world
+	 *  @param snapshot WorldSnapshot object from snapshot()
+	 */
+	public void free(WorldSnapshot snapshot) {
+		snapshots.free(snapshot);
+	}
+
+	/** @brief Puts Mario and the moving actors of the awake chunks in the spatial hash at their current position
 	 */
-	public Array<StaticActor> getStaticActors() {
-		Array<StaticActor> staticActors = new Array<StaticActor>();
-		for(Actor a : stage.getActors()) {
-			if(a instanceof StaticActor) {
-				staticActors.add((StaticActor) a);
+	private void updateSpatialHash() {
+		movers.clear();
+		movers.insert(player, clock.getDelta());
+		for(int c = 0; c < chunks.activeSize(); c++) {
+			SnapshotArray<Actor> actors = chunks.getActive(c).getChildren();
+			for(int i = 0; i < actors.size; i++) {
+				if(actors.get(i) instanceof MovingActor) movers.insert((MovingActor) actors.get(i), clock.getDelta());
 			}
 		}
-		return staticActors;
 	}
 	
 	/**
-	 * Make the tiles containing 'animation' key animated.
-	 * @param layer TiledMapTileLayer object
-	 */
-	private void animateTiles(TiledMapTileLayer layer) {
-		for (int x = 1; x < layer.getWidth(); x++) {
-			for (int y = 1; y < layer.getHeight(); y++) {
-				Cell cell = layer.getCell(x, y);
-				if(cell != null) {
-					TiledMapTile oldTile = cell.getTile();
-					if(oldTile.getProperties().containsKey("animation")) {
-						String animation = (String) oldTile.getProperties().get("animation");
-						float speed = 0.15f;
-						if(oldTile.getProperties().containsKey("speed")) {
-							speed = Float.parseFloat((String) oldTile.getProperties().get("speed"));
-						}
-						AnimatedTiledMapTile newTile = new AnimatedTiledMapTile(speed, 
-								Tiles.getAnimatedTile(animation));
-						newTile.getProperties().putAll(oldTile.getProperties());
-						cell.setTile(newTile);
-					}
-				}
-			}
-		}
+	 * Setup the flag at the end of the level
+	 */
+	private void generateFlag() {
+		float x = level.getFlagX() * World.scale;
+		float y = level.getFlagY() * World.scale;
+		
+		// The object in the map named 'flag_end' determines the position Mario walks to after the flag
+		float flag_end_x = level.getFlagEndX() * World.scale;	
+		float flag_end_y = level.getFlagEndY() * World.scale;	
+		
+		flag = new Flag(x, y, level.getFlagWidth(), level.getFlagHeight(), flag_end_x, flag_end_y);
+		stage.addActor(flag);
+	}
+	
+	/** @brief Get the flag at the end of the level
+	 *  @return flag Flag object
+	 */
+	public Flag getFlag() {
+		return flag;
+	}
+
+	/** @brief Get the bricks of the level
+	 *  @return bricks BrickTable object, bricks are only actors while they are bumped
+	 */
+	public BrickTable getBricks() {
+		return bricks;
 	}
 
+	/**
+	 * @return All StaticActor classes. Bricks that are being bumped for example. The registry can only be read.
+	 */
+	public ActorRegistry<StaticActor> getStaticActors() {
+		return staticActors;
+	}
+	
 	/** @brief End level of world
 	 */
 	private void endLevel() {
@@ -354,17 +568,40 @@ public class World {
 		}
 		else if(reset_flag) {
 			if(!Audio.currentSong.equals("finish")) Audio.stopSong();
-			if(!playing_finish_song && !Audio.getSong().isPlaying()) {
+			if(!playing_finish_song && !Audio.isSongPlaying()) {
 				Audio.playSong("finish", false);
 				playing_finish_song = true;
 			}
 			// If song stops playing, reset the level
-			if(!Audio.getSong().isPlaying()) this.reset();
+			if(!Audio.isSongPlaying()) this.reset();
 		}
 	}
 
+	/** @brief Get how often the world was reset
+	 *  @details A reset restores the level into the same objects, Mario included, so this is
+	 *  the way to notice one.
+	 *  @return resets since the world was created
+	 */
+	public int getResets() {
+		return resets;
+	}
+
+	/** @brief Get the clock that drives the simulation
+	 *  @return clock SimulationClock object
+	 */
+	public SimulationClock getClock() {
+		return clock;
+	}
+
+	/** @brief Get the part of the world that is on screen
+	 *  @return view Rectangle in world coordinates, updated every tick
+	 */
+	public Rectangle getView() {
+		return view;
+	}
+
 	/** @brief Get render of world
-	 * @return wr WorldRenderer object
+	 * @return wr WorldRenderer object, null if the world is not rendered
 	 */
 	public WorldRenderer getRenderer() {
 		return wr;
@@ -378,96 +615,131 @@ public class World {
 	}
 
 	/** @brief Get map of world
-	 *  @return map TiledMap object
+	 *  @return map TiledMap object with the tile layers of the level
 	 */
 	public TiledMap getMap() {
 		return map;
 	}
 
+	/** @brief Get the level the world was loaded from
+	 *  @return level Level object
+	 */
+	public Level getLevel() {
+		return level;
+	}
+
+	/** @brief Get the loader of the chunks of the level
+	 *  @return streamer LevelStreamer object, it keeps the chunks near the camera loaded
+	 */
+	public LevelStreamer getStreamer() {
+		return streamer;
+	}
+
 	/** @brief Get enemies in world
-	 *  @return enemies Array
-	 */
-	public Array<Goomba> getEnemies() {
-		Array<Actor> actors = stage.getActors();
-		Array<Goomba> enemies = new Array<Goomba>();
-		for(Actor a : actors) {
-			if(a instanceof Goomba) {
-				enemies.add((Goomba) a);
-			}
-		}
-		return enemies;
+	 *  @return enemies ActorRegistry, kept up to date as enemies spawn, despawn and die
+	 */
+	public ActorRegistry<Goomba> getEnemies() {
+		return goombas;
 	}
 
 	/** @brief Get mushrooms in world
-	 *  @return mushrooms Array
-	 */
-	public Array<Mushroom> getMushrooms() {
-		Array<Actor> actors = stage.getActors();
-		Array<Mushroom> mushrooms = new Array<Mushroom>();
-		for(Actor a : actors) {
-			if(a instanceof Mushroom) {
-				mushrooms.add((Mushroom) a);
-			}
-		}
+	 *  @return mushrooms ActorRegistry, kept up to date as mushrooms spawn and are eaten
+	 */
+	public ActorRegistry<Mushroom> getMushrooms() {
 		return mushrooms;
 	}
 	
-	/**
-	 * Tiles that have a 'texture' property will be using an optimized tileset. This is to avoid screen tearing.
-	 * @param layer TiledMapTileLayer object
-	 */
-	private void initTileset(TiledMapTileLayer layer) {
-		ArrayMap<String, TextureRegion> textureArr = new ArrayMap<String, TextureRegion>();
-		for(int x = 0; x < layer.getWidth(); x++) {
-			for(int y = 0; y < layer.getHeight(); y++) {
-				Cell cell = layer.getCell(x, y);
-				if(cell != null) {
-					TiledMapTile oldTile = cell.getTile();
-					
-					if(oldTile.getProperties().containsKey("texture")) {
-						//D.o("Initializing textures");
-						String texture = (String) oldTile.getProperties().get("texture");
-						if(textureArr.containsKey(texture)) {
-							oldTile.getTextureRegion().setRegion(textureArr.get(texture));
-						}
-						else {
-							TextureRegion t = Tiles.getTile(texture);
-							textureArr.put(texture, t);
-							oldTile.getTextureRegion().setRegion(t);
-						}						
-					}
-				}
-			}
-		}
-	}
-
-
 	/** @brief Get tiles of world
+	 *  @details The returned array and its rectangles are reused by the next call. Collision
+	 *  checks of actors use getCollisionGrid() instead, probes like rays use getCaster().
 	 *  @return tiles Array
 	 */
 	public Array<Rectangle> getTiles(int startX, int startY, int endX, int endY)
 	{
-		Array<Rectangle> tiles = new Array<Rectangle>();
-		TiledMapTileLayer layer = (TiledMapTileLayer) map.getLayers().get("walls");
-		rectPool.freeAll(tiles);
-		tiles.clear();
+		rectPool.freeAll(tileRects);
+		tileRects.clear();
 		for (int y = startY; y <= endY; y++)
 		{
 			for (int x = startX; x <= endX; x++)
 			{
-				Cell cell = layer.getCell(x, y);
-				if (cell != null)
+				if (grid.isSolid(x, y))
 				{
 					Rectangle rect = rectPool.obtain();
 					rect.set(x, y, 1, 1);
-					tiles.add(rect);
+					tileRects.add(rect);
 				}
 			}
 		}
-		return tiles;
+		return tileRects;
+	}
+
+	/** @brief Get the handles of the actors in the world
+	 *  @return handles ActorHandles object
+	 */
+	public ActorHandles getHandles() {
+		return handles;
+	}
+
+	/** @brief Get the chunks the level is split into
+	 *  @return chunks ChunkMap object, only the actors in its awake chunks are updated
+	 */
+	public ChunkMap getChunks() {
+		return chunks;
+	}
+
+	/** @brief Get the moving actors by area
+	 *  @details Holds Mario and the goombas and mushrooms of the awake chunks, rebuilt at the start of every tick
+	 *  @return movers SpatialHash object
+	 */
+	public SpatialHash getSpatialHash() {
+		return movers;
+	}
+
+	/** @brief Get the contacts between actors of the current tick
+	 *  @return contacts ContactPipeline object, resolved once all actors have moved
+	 */
+	public ContactPipeline getContacts() {
+		return contacts;
+	}
+
+	/** @brief Get the spawner of the Goomba actors
+	 *  @return enemySpawner EnemySpawner object, or null when the goombas are kept in a store
+	 */
+	public EnemySpawner getEnemySpawner() {
+		return enemySpawner;
+	}
+
+	/** @brief Get the goombas that are kept in a store
+	 *  @return goombaStore GoombaStore object, or null when the goombas are actors
+	 */
+	public GoombaStore getGoombaStore() {
+		return goombaStore;
+	}
+
+	/** @brief Get the solid tiles of the world
+	 *  @return grid CollisionGrid object
+	 */
+	public CollisionGrid getCollisionGrid() {
+		return grid;
+	}
+
+	/** @brief Get the subpixel grid of the physics
+	 *  @return fixedPoint FixedPoint object, null when the actors do their physics in float
+	 */
+	public FixedPoint getFixedPoint() {
+		return fixedPoint;
+	}
+
+	/** @brief Get the ray and box casts of the level
+	 *  @return caster GridCaster object, casts through the tiles and the static actors without allocating
+	 */
+	public GridCaster getCaster() {
+		return caster;
 	}
 
 	private void updateScoreLabel() {
+		if(shownPoints == this.player.getPoints()) return;
+		shownPoints = this.player.getPoints();
 		String label = Integer.toString(this.player.getPoints());
 		scoreLabel.setText(label);
 //		System.out.println(label);
@@ -475,6 +747,8 @@ public class World {
 
 
 	private void updateCoinsLabel() {
+		if(shownCoins == Coin.c) return;
+		shownCoins = Coin.c;
 		String label = Integer.toString(Coin.c);
 		coinsLabel.setText("X"+label);
 //		System.out.println(label);
@@ -484,16 +758,17 @@ public class World {
 	/** @brief Dispose world
 	 */
 	public void dispose() {
+		streamer.dispose();
 		map.dispose();
 		tiles.dispose();
 		player.dispose();
-		for(Goomba g : getEnemies()) {
-			g.dispose();
-		}
+		if(enemySpawner != null) enemySpawner.dispose();
 		for(Mushroom m : getMushrooms()) {
 			m.dispose();
 		}
-		wr.dispose();
+		if(goombaGfx != null) goombaGfx.dispose();
+		if(goombaStore != null) goombaStore.dispose();
+		if(wr != null) wr.dispose();
 		Audio.dispose();
 		
 	}
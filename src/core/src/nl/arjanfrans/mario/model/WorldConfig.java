@@ -0,0 +1,44 @@
+/** @file WorldConfig.java
+ */
+
+package nl.arjanfrans.mario.model;
+
+/**
+ * @brief Options that decide how a World is set up
+ * @details The defaults describe the normal game. A World that runs without a window, for
+ * example on a build machine, turns rendering and audio off.
+ */
+public class WorldConfig {
+	/** Whether the world creates a renderer, fonts and the HUD. Without it the world can only be stepped. */
+	public boolean render = true;
+	/** Whether the world plays music and sound effects. */
+	public boolean audio = true;
+	/** Length of one tick of the simulation in seconds. Fast actors are substepped, so coarse ticks stay correct. */
+	public float step = SimulationClock.DEFAULT_STEP;
+	/** Whether moving actors and the goombas of a store do their physics in subpixel integers, so replays give the same state on any JVM. Needs a step of 1/n seconds. */
+	public boolean fixedPoint = false;
+	/** Whether goombas are kept in a GoombaStore instead of one Goomba actor each, for levels with very many enemies. */
+	public boolean enemyStore = false;
+	/** Threads that move the goombas of the store in parallel. The result is the same for any amount. */
+	public int enemyThreads = 1;
+	/** Distance in tiles beside the camera at which goombas are spawned. */
+	public float spawnMargin = 8;
+	/** Distance in tiles beside the camera at which goombas are despawned, larger than spawnMargin. */
+	public float despawnMargin = 24;
+	/** Width in tiles of the chunks the level is split into. Only the chunks near the camera, or with awake actors in them, are updated. */
+	public float chunkSize = World.VIEW_WIDTH;
+	/** Distance in tiles beside the camera in which the level is kept loaded, at least despawnMargin and the chunks that are kept awake. Goombas of a store outside it hold still. */
+	public float residentMargin = 64;
+	/** The tmx map of the level. The .lvl file compiled from it is loaded instead, when it is there and up to date. */
+	public String level = "data/level1.tmx";
+
+	/** @brief Creates the options for a world that runs without a window
+	 *  @return WorldConfig with rendering and audio turned off
+	 */
+	public static WorldConfig headless() {
+		WorldConfig config = new WorldConfig();
+		config.render = false;
+		config.audio = false;
+		return config;
+	}
+}
@@ -0,0 +1,178 @@
+/** @file WorldSnapshot.java
+ */
+
+package nl.arjanfrans.mario.model;
+
+import com.badlogic.gdx.utils.Pool;
+
+/**
+ * @brief The state of a World between two ticks, as plain numbers
+ * @details World.snapshot() fills it and World.restore() puts the world back in that state.
+ * Every part of the world writes its own fields, in a fixed order, into three streams of ints,
+ * floats and bytes, and reads them back in the same order. A snapshot does not point to any
+ * actor, so it can be restored after the actors were removed, pooled or even after the level
+ * was reset. Its arrays only grow, so a snapshot that is filled again, or that comes from the
+ * pool of the world, does not allocate.
+ */
+public class WorldSnapshot implements Pool.Poolable {
+	private int[] ints = new int[256];
+	private float[] floats = new float[256];
+	private byte[] bytes = new byte[256];
+	private int intSize, floatSize, byteSize;
+	private int intRead, floatRead, byteRead;
+
+	/** @brief Forgets the state, the arrays are kept for the next snapshot
+	 */
+	@Override
+	public void reset() {
+		intSize = floatSize = byteSize = 0;
+		rewind();
+	}
+
+	/** @brief Starts reading from the beginning again
+	 */
+	void rewind() {
+		intRead = floatRead = byteRead = 0;
+	}
+
+	/** @brief Get the size of the state
+	 *  @return amount of bytes that were written
+	 */
+	public int size() {
+		return intSize * 4 + floatSize * 4 + byteSize;
+	}
+
+	/** @brief Appends an int
+	 *  @param value int
+	 */
+	public void writeInt(int value) {
+		if(intSize == ints.length) ints = grow(ints, intSize * 2);
+		ints[intSize++] = value;
+	}
+
+	/** @brief Appends a float
+	 *  @param value float
+	 */
+	public void writeFloat(float value) {
+		if(floatSize == floats.length) floats = grow(floats, floatSize * 2);
+		floats[floatSize++] = value;
+	}
+
+	/** @brief Appends a byte
+	 *  @param value byte
+	 */
+	public void writeByte(byte value) {
+		if(byteSize == bytes.length) bytes = grow(bytes, byteSize * 2);
+		bytes[byteSize++] = value;
+	}
+
+	/** @brief Appends a boolean, as a byte
+	 *  @param value boolean
+	 */
+	public void writeBoolean(boolean value) {
+		writeByte(value ? (byte) 1 : (byte) 0);
+	}
+
+	/** @brief Appends the start of an int array
+	 *  @param values int array
+	 *  @param count amount of values that are written
+	 */
+	public void writeInts(int[] values, int count) {
+		if(intSize + count > ints.length) ints = grow(ints, Math.max(ints.length * 2, intSize + count));
+		System.arraycopy(values, 0, ints, intSize, count);
+		intSize += count;
+	}
+
+	/** @brief Appends the start of a float array
+	 *  @param values float array
+	 *  @param count amount of values that are written
+	 */
+	public void writeFloats(float[] values, int count) {
+		if(floatSize + count > floats.length) floats = grow(floats, Math.max(floats.length * 2, floatSize + count));
+		System.arraycopy(values, 0, floats, floatSize, count);
+		floatSize += count;
+	}
+
+	/** @brief Appends the start of a byte array
+	 *  @param values byte array
+	 *  @param count amount of values that are written
+	 */
+	public void writeBytes(byte[] values, int count) {
+		if(byteSize + count > bytes.length) bytes = grow(bytes, Math.max(bytes.length * 2, byteSize + count));
+		System.arraycopy(values, 0, bytes, byteSize, count);
+		byteSize += count;
+	}
+
+	/** @brief Reads the next int
+	 *  @return int
+	 */
+	public int readInt() {
+		return ints[intRead++];
+	}
+
+	/** @brief Reads the next float
+	 *  @return float
+	 */
+	public float readFloat() {
+		return floats[floatRead++];
+	}
+
+	/** @brief Reads the next byte
+	 *  @return byte
+	 */
+	public byte readByte() {
+		return bytes[byteRead++];
+	}
+
+	/** @brief Reads the next boolean
+	 *  @return boolean
+	 */
+	public boolean readBoolean() {
+		return bytes[byteRead++] != 0;
+	}
+
+	/** @brief Reads ints into the start of an array
+	 *  @param values int array, at least count long
+	 *  @param count amount of values that are read
+	 */
+	public void readInts(int[] values, int count) {
+		System.arraycopy(ints, intRead, values, 0, count);
+		intRead += count;
+	}
+
+	/** @brief Reads floats into the start of an array
+	 *  @param values float array, at least count long
+	 *  @param count amount of values that are read
+	 */
+	public void readFloats(float[] values, int count) {
+		System.arraycopy(floats, floatRead, values, 0, count);
+		floatRead += count;
+	}
+
+	/** @brief Reads bytes into the start of an array
+	 *  @param values byte array, at least count long
+	 *  @param count amount of values that are read
+	 */
+	public void readBytes(byte[] values, int count) {
+		System.arraycopy(bytes, byteRead, values, 0, count);
+		byteRead += count;
+	}
+
+	private static int[] grow(int[] array, int capacity) {
+		int[] newArray = new int[capacity];
+		System.arraycopy(array, 0, newArray, 0, array.length);
+		return newArray;
+	}
+
+	private static float[] grow(float[] array, int capacity) {
+		float[] newArray = new float[capacity];
+		System.arraycopy(array, 0, newArray, 0, array.length);
+		return newArray;
+	}
+
+	private static byte[] grow(byte[] array, int capacity) {
+		byte[] newArray = new byte[capacity];
+		System.arraycopy(array, 0, newArray, 0, array.length);
+		return newArray;
+	}
+}
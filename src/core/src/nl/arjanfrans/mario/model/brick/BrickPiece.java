@@ -1,9 +1,9 @@
 package nl.arjanfrans.mario.model.brick;
 
 import nl.arjanfrans.mario.graphics.Tiles;
+import nl.arjanfrans.mario.model.SimulationClock;
 import nl.arjanfrans.mario.model.World;
 
-import com.badlogic.gdx.Gdx;
 import com.badlogic.gdx.graphics.g2d.Batch;
 import com.badlogic.gdx.graphics.g2d.Sprite;
 import com.badlogic.gdx.graphics.g2d.SpriteBatch;
@@ -23,14 +23,17 @@ public class BrickPiece extends Sprite {
 	private float length = 0.4f;
 	private int direction;
 	private int rotation = 0;
+	private SimulationClock clock;
 	
 	/** @brief Constructor method for BrickPiece
 	 * @param x - x coordinate of the brick piece
 	 * @param y - y coordinate of the brick piece
 	 * @param direction - The direction/position the brick piece
+	 * @param clock - The clock of the world, used to advance the falling pieces
 	 * @return an instance of BrickPiece
 	 */
-	public BrickPiece(float x, float y, int direction) {
+	public BrickPiece(float x, float y, int direction, SimulationClock clock) {
+		this.clock = clock;
 		this.position = new Vector2(x, y);
 		original_position = new Vector2(x, y);
 		this.direction = direction;
@@ -78,10 +81,10 @@ public class BrickPiece extends Sprite {
 			}
 			angle += speed;
 			position.x += original_position.x;
-			position.y += original_position.y + 1/16 * Gdx.graphics.getDeltaTime();
+			position.y += original_position.y + 1/16 * clock.getElapsed();
 		}
 		else {
-			position.y -= speed * Gdx.graphics.getDeltaTime();
+			position.y -= speed * clock.getElapsed();
 		}
 		this.rotate(rotation);
 			
@@ -1,5 +1,7 @@
 package nl.arjanfrans.mario.model.brick;
 
+import nl.arjanfrans.mario.model.SimulationClock;
+
 import com.badlogic.gdx.graphics.g2d.Batch;
 import com.badlogic.gdx.graphics.g2d.Sprite;
 import com.badlogic.gdx.graphics.g2d.SpriteBatch;
@@ -16,13 +18,14 @@ public class BrickShatter extends Sprite {
 	/** @brief Constructor method for BrickShatter
 	 * @param x - base x coordinate of the brick pieces
 	 * @param y - base y coordinate of the brick pieces
+	 * @param clock - The clock of the world the brick exists in
 	 * @return an instance of BrickShatter
 	 */
-	public BrickShatter(float x, float y) {
-		piece1 = new BrickPiece(x, y + 0.5f, 0);
-		piece2 = new BrickPiece(x + 0.5f, y + 0.5f, 1);
-		piece3 = new BrickPiece(x, y, 2);
-		piece4 = new BrickPiece(x+0.5f, y, 3);
+	public BrickShatter(float x, float y, SimulationClock clock) {
+		piece1 = new BrickPiece(x, y + 0.5f, 0, clock);
+		piece2 = new BrickPiece(x + 0.5f, y + 0.5f, 1, clock);
+		piece3 = new BrickPiece(x, y, 2, clock);
+		piece4 = new BrickPiece(x+0.5f, y, 3, clock);
 		this.setSize(16, 16);
 	}
 	/** @brief This is the method meant to draw a BrickShatter
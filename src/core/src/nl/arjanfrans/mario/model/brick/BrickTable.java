@@ -0,0 +1,369 @@
+/** @file BrickTable.java
+ */
+
+package nl.arjanfrans.mario.model.brick;
+
+import nl.arjanfrans.mario.graphics.Tiles;
+import nl.arjanfrans.mario.model.Brick;
+import nl.arjanfrans.mario.model.Super;
+import nl.arjanfrans.mario.model.World;
+import nl.arjanfrans.mario.model.WorldSnapshot;
+import nl.arjanfrans.mario.model.collision.CollisionGrid;
+import nl.arjanfrans.mario.model.level.ChunkListener;
+import nl.arjanfrans.mario.model.level.Level;
+import nl.arjanfrans.mario.model.level.LevelChunk;
+import nl.arjanfrans.mario.model.level.LevelStreamer;
+import nl.arjanfrans.mario.model.level.TileStore;
+import nl.arjanfrans.mario.model.level.TileStoreLayer;
+
+import com.badlogic.gdx.maps.tiled.tiles.StaticTiledMapTile;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.IntArray;
+import com.badlogic.gdx.utils.IntIntMap;
+
+/**
+ * @brief The bricks of a level, kept as tiles until they are hit
+ * @details Brick and bonus cells stay in the tile layer and are solid in the collision grid.
+ * Their color, bonus and destructable properties, how often they were hit and the item hidden
+ * in them are kept in this table. When an actor jumps against one from below it is turned into
+ * a Brick actor, together with its item. Once the bump animation is over the actor is turned
+ * back into a tile, showing the empty brick when it was used up. A brick that breaks stays out
+ * of the layer and the grid. The layer shows this with the state of the cells in the TileStore.
+ * The grid only holds the chunks of the level near the camera, so the table puts its bricks back
+ * into a chunk whenever it is loaded again.
+ */
+public class BrickTable implements ChunkListener {
+	private static final byte BONUS = 1;
+	private static final byte DESTRUCTABLE = 2;
+	private static final byte BROKEN = 4;
+
+	private static final byte NO_ITEM = 0;
+	private static final byte SUPER_MUSHROOM = 1;
+
+	private final World world;
+	private final TileStoreLayer layer;
+	private final IntIntMap brickAt = new IntIntMap();
+	private final Array<String> colors = new Array<String>();
+
+	private int[] cell = new int[16];
+	private byte[] flags = new byte[16];
+	private byte[] color = new byte[16];
+	private byte[] hits = new byte[16];
+	private byte[] item = new byte[16];
+	private byte[] shown = new byte[16]; /**< What the cell of each brick showed before a restore, see look() */
+	private int size = 0;
+
+	private final Array<Brick> active = new Array<Brick>();
+	private final IntArray activeIndex = new IntArray();
+
+	/** @brief Constructor method
+	 *  @details Reads the cells of the layer whose tile has the 'actor' property 'Brick' or
+	 *  'Bonus' from the level, and the items of the 'hidden_items' layer that are inside them.
+	 *  The table adds itself to the listeners of the streamer, after the layer and the grid.
+	 *  @param world World object the bricks are turned into actors in
+	 *  @param layer Tile layer with the bricks, the cells stay in it and used up bricks show the empty brick
+	 *  @param streamer LevelStreamer of the level with the tiles and hidden items
+	 *  @param walls index of the same layer in the level
+	 */
+	public BrickTable(World world, TileStoreLayer layer, LevelStreamer streamer, int walls) {
+		this.world = world;
+		this.layer = layer;
+		layer.setUsedTile(new StaticTiledMapTile(Tiles.getTile("brick_empty")));
+
+		Level level = streamer.getLevel();
+		for(int b = 0; b < level.getBrickCount(); b++) {
+			if(level.getBrickLayer(b) != walls) continue;
+			int tile = level.getBrickTile(b);
+			byte f = level.getBrick(tile) == Level.BONUS ? BONUS : 0;
+			if(level.isDestructable(tile)) f |= DESTRUCTABLE;
+			add(level.getBrickX(b), level.getBrickY(b), f, level.getColor(tile));
+		}
+
+		for(int h = 0; h < level.getItemCount(); h++) {
+			int x = (int) (level.getItemX(h) * World.scale);
+			int y = (int) (level.getItemY(h) * World.scale);
+			int i = brickAt.get(key(x, y), -1);
+			if(i != -1 && "super_mushroom".equals(level.getItemType(h))) {
+				item[i] = SUPER_MUSHROOM;
+			}
+		}
+		streamer.addListener(this);
+	}
+
+	/** @brief Check if a cell holds a brick that is still a tile
+	 *  @param x coordinate of the cell
+	 *  @param y coordinate of the cell
+	 *  @return true if activate() would turn the cell into a Brick actor
+	 */
+	public boolean isTile(int x, int y) {
+		if(x < 0 || y < 0 || x >= layer.getWidth() || y >= layer.getHeight()) return false;
+		int i = brickAt.get(key(x, y), -1);
+		return i != -1 && (flags[i] & BROKEN) == 0 && (layer.getState(x, y) & TileStore.HIDDEN) == 0;
+	}
+
+	/** @brief Turns the brick in a cell into an actor
+	 *  @details The cell is taken out of the layer and the grid, the Brick actor and the item
+	 *  hidden in it are added to the world.
+	 *  @param x coordinate of the cell
+	 *  @param y coordinate of the cell
+	 *  @return Brick object, or null when the cell does not hold a brick tile
+	 */
+	public Brick activate(int x, int y) {
+		if(!isTile(x, y)) return null;
+		int i = brickAt.get(key(x, y), -1);
+
+		Brick brick = new Brick(world, x, y, colors.get(color[i]), (flags[i] & BONUS) != 0,
+				(flags[i] & DESTRUCTABLE) != 0);
+		brick.setHitcount(hits[i]);
+		if(item[i] == SUPER_MUSHROOM) {
+			Super mushroom = new Super(world, x, y, 4f);
+			world.addActor(mushroom);
+			brick.addItem(mushroom);
+		}
+
+		layer.setState(x, y, TileStore.HIDDEN);
+		CollisionGrid grid = world.getCollisionGrid();
+		grid.setSolid(x, y, false);
+		grid.setOccupant(x, y, brick);
+		world.addActor(brick);
+		active.add(brick);
+		activeIndex.add(i);
+		return brick;
+	}
+
+	/** @brief Turns the bricks whose bump animation is over back into tiles
+	 *  @details Broken bricks are forgotten, they take themselves out of the world.
+	 */
+	public void update() {
+		for(int a = active.size - 1; a >= 0; a--) {
+			Brick brick = active.get(a);
+			int i = activeIndex.get(a);
+			if(brick.isDestroyed()) {
+				flags[i] |= BROKEN;
+			}
+			else if(brick.getActions().size == 0) {
+				deactivate(brick, i);
+			}
+			else {
+				continue;
+			}
+			active.removeIndex(a);
+			activeIndex.removeIndex(a);
+		}
+	}
+
+	private void deactivate(Brick brick, int i) {
+		int x = cell[i] % layer.getWidth(), y = cell[i] / layer.getWidth();
+		hits[i] = (byte) Math.min(brick.getHitcount(), Byte.MAX_VALUE);
+		if(brick.getItems().size == 0) item[i] = NO_ITEM;
+
+		world.removeActor(brick);
+		world.getCollisionGrid().setOccupant(x, y, null);
+		show(i);
+	}
+
+	/** @brief Writes the hits and items of every brick, and the bricks that are actors, into a snapshot
+	 *  @param snapshot WorldSnapshot object
+	 */
+	public void write(WorldSnapshot snapshot) {
+		snapshot.writeInt(size);
+		snapshot.writeBytes(flags, size);
+		snapshot.writeBytes(hits, size);
+		snapshot.writeBytes(item, size);
+		snapshot.writeInt(active.size);
+		for(int a = 0; a < active.size; a++) {
+			snapshot.writeInt(activeIndex.get(a));
+			active.get(a).write(snapshot);
+		}
+	}
+
+	/** @brief Puts the bricks back in the state of a snapshot
+	 *  @details The Brick actors that are active now must already be out of the world. The
+	 *  bricks that were actors in the snapshot are created again, getActive() returns them so
+	 *  the world can put them back.
+	 *  @param snapshot WorldSnapshot object
+	 */
+	public void read(WorldSnapshot snapshot) {
+		if(snapshot.readInt() != size) throw new IllegalArgumentException("Snapshot is of another level");
+		CollisionGrid grid = world.getCollisionGrid();
+		for(int i = 0; i < size; i++) shown[i] = look(i);
+		for(int a = 0; a < active.size; a++) {
+			int i = activeIndex.get(a);
+			grid.setOccupant(getX(i), getY(i), null);
+			shown[i] = -1;
+		}
+		active.clear();
+		activeIndex.clear();
+
+		snapshot.readBytes(flags, size);
+		snapshot.readBytes(hits, size);
+		snapshot.readBytes(item, size);
+		// Only the cells of bricks that changed are set
+		for(int i = 0; i < size; i++) {
+			if(look(i) != shown[i]) show(i);
+		}
+
+		int count = snapshot.readInt();
+		for(int a = 0; a < count; a++) {
+			int i = snapshot.readInt();
+			int x = getX(i), y = getY(i);
+			Brick brick = new Brick(world, x, y, colors.get(color[i]), (flags[i] & BONUS) != 0,
+					(flags[i] & DESTRUCTABLE) != 0);
+			brick.read(snapshot);
+			layer.setState(x, y, TileStore.HIDDEN);
+			grid.setSolid(x, y, false);
+			grid.setOccupant(x, y, brick.isDestroyed() ? null : brick);
+			active.add(brick);
+			activeIndex.add(i);
+		}
+	}
+
+	/** @brief Puts the bricks of a chunk in the grid
+	 *  @details Called after the grid has built the chunk from the tiles of the level. Broken
+	 *  bricks and bricks that are actors are taken out again.
+	 *  @param chunk LevelChunk object
+	 */
+	@Override
+	public void chunkLoaded(LevelChunk chunk) {
+		CollisionGrid grid = world.getCollisionGrid();
+		int right = chunk.getX() + Level.CHUNK_WIDTH;
+		for(int i = indexAt(chunk.getX()); i < size && getX(i) < right; i++) {
+			int x = getX(i), y = getY(i);
+			int a = activeIndex.indexOf(i);
+			if(a != -1) {
+				grid.setSolid(x, y, false);
+				grid.setOccupant(x, y, active.get(a).isDestroyed() ? null : active.get(a));
+			}
+			else if((flags[i] & BROKEN) != 0) {
+				grid.setSolid(x, y, false);
+			}
+		}
+	}
+
+	/** @brief Nothing to do, the layer keeps the state of the cells and the grid drops the chunk
+	 *  @param chunk index of the chunk
+	 */
+	@Override
+	public void chunkEvicted(int chunk) {
+	}
+
+	/** Puts the cell of a brick that is not active in the layer and the grid, as look() says */
+	private void show(int i) {
+		int x = getX(i), y = getY(i);
+		byte look = look(i);
+		layer.setState(x, y, look == 0 ? TileStore.HIDDEN : look == 2 ? TileStore.USED : 0);
+		world.getCollisionGrid().setSolid(x, y, look != 0);
+	}
+
+	/** Whether the cell of a brick that is not active is empty (0), shows the brick (1) or the empty brick (2) */
+	private byte look(int i) {
+		if((flags[i] & BROKEN) != 0) return 0;
+		// Same condition as Brick.draw() uses for the empty texture
+		return item[i] == NO_ITEM && hits[i] > 0 ? (byte) 2 : (byte) 1;
+	}
+
+	/** Binary search on x, the bricks are ordered by x */
+	private int indexAt(int x) {
+		int low = 0, high = size;
+		while(low < high) {
+			int mid = (low + high) >>> 1;
+			if(getX(mid) >= x) high = mid;
+			else low = mid + 1;
+		}
+		return low;
+	}
+
+	/** @brief Get a brick that is an actor right now
+	 *  @param a between 0 and activeSize()
+	 *  @return Brick object
+	 */
+	public Brick getActive(int a) {
+		return active.get(a);
+	}
+
+	/** @brief Find a brick among the bricks that are actors
+	 *  @param brick Brick object
+	 *  @return its index for getActive(), or -1 when it is not active
+	 */
+	public int indexOfActive(Brick brick) {
+		return active.indexOf(brick, true);
+	}
+
+	/** @brief Get the amount of bricks in the level
+	 *  @return size
+	 */
+	public int size() {
+		return size;
+	}
+
+	/** @brief Get the amount of bricks that are actors right now
+	 *  @return amount of active bricks
+	 */
+	public int activeSize() {
+		return active.size;
+	}
+
+	/** @brief Get the x coordinate of a brick
+	 *  @param i index of the brick
+	 *  @return x coordinate of its cell
+	 */
+	public int getX(int i) {
+		return cell[i] % layer.getWidth();
+	}
+
+	/** @brief Get the y coordinate of a brick
+	 *  @param i index of the brick
+	 *  @return y coordinate of its cell
+	 */
+	public int getY(int i) {
+		return cell[i] / layer.getWidth();
+	}
+
+	/** @brief Check if an item is still hidden in a brick
+	 *  @param i index of the brick
+	 *  @return true if the brick releases an item when it is hit
+	 */
+	public boolean hasItem(int i) {
+		return item[i] != NO_ITEM;
+	}
+
+	private void add(int x, int y, byte f, String colorName) {
+		if(size == cell.length) grow(size * 2);
+		int colorIndex = colors.indexOf(colorName, false);
+		if(colorIndex == -1) {
+			colorIndex = colors.size;
+			colors.add(colorName);
+		}
+		cell[size] = key(x, y);
+		flags[size] = f;
+		color[size] = (byte) colorIndex;
+		hits[size] = 0;
+		item[size] = NO_ITEM;
+		brickAt.put(cell[size], size);
+		size++;
+	}
+
+	private int key(int x, int y) {
+		return y * layer.getWidth() + x;
+	}
+
+	private void grow(int capacity) {
+		int[] newCell = new int[capacity];
+		byte[] newFlags = new byte[capacity];
+		byte[] newColor = new byte[capacity];
+		byte[] newHits = new byte[capacity];
+		byte[] newItem = new byte[capacity];
+		byte[] newShown = new byte[capacity];
+		System.arraycopy(cell, 0, newCell, 0, size);
+		System.arraycopy(flags, 0, newFlags, 0, size);
+		System.arraycopy(color, 0, newColor, 0, size);
+		System.arraycopy(hits, 0, newHits, 0, size);
+		System.arraycopy(item, 0, newItem, 0, size);
+		cell = newCell;
+		flags = newFlags;
+		color = newColor;
+		hits = newHits;
+		item = newItem;
+		shown = newShown;
+	}
+}
@@ -0,0 +1,73 @@
+/** @file Chunk.java
+ */
+
+package nl.arjanfrans.mario.model.chunk;
+
+import nl.arjanfrans.mario.model.MovingActor;
+
+import com.badlogic.gdx.scenes.scene2d.Actor;
+import com.badlogic.gdx.scenes.scene2d.Group;
+import com.badlogic.gdx.scenes.scene2d.Touchable;
+import com.badlogic.gdx.utils.SnapshotArray;
+
+/**
+ * @brief Group of the actors in one vertical strip of the level
+ * @details A sleeping chunk is taken off the stage by its ChunkMap, so its actors cost nothing
+ * until the chunk wakes again. The group sits at the origin and does not transform its children,
+ * the actors keep using world coordinates.
+ */
+public class Chunk extends Group {
+	private final int index;
+	private boolean awake = false;
+
+	/** @brief Constructor method
+	 *  @param index Position of the chunk in its ChunkMap, counted from the left
+	 */
+	public Chunk(int index) {
+		this.index = index;
+		this.setTransform(false);
+		this.setTouchable(Touchable.disabled);
+		this.setVisible(false);
+	}
+
+	/** @brief Updates the actors of the chunk, if it is awake
+	 *  @param delta Time in seconds since the last tick
+	 */
+	@Override
+	public void act(float delta) {
+		if(awake) super.act(delta);
+	}
+
+	/** @brief Starts updating and drawing the actors of the chunk
+	 */
+	public void wake() {
+		awake = true;
+		setVisible(true);
+	}
+
+	/** @brief Stops updating and drawing the actors of the chunk
+	 *  @details Every moving actor is told, so actors that were woken by the camera go back to sleep.
+	 */
+	public void sleep() {
+		awake = false;
+		setVisible(false);
+		SnapshotArray<Actor> actors = getChildren();
+		for(int i = 0; i < actors.size; i++) {
+			if(actors.get(i) instanceof MovingActor) ((MovingActor) actors.get(i)).chunkAsleep();
+		}
+	}
+
+	/** @brief Check if the chunk is updated
+	 *  @return awake boolean
+	 */
+	public boolean isAwake() {
+		return awake;
+	}
+
+	/** @brief Get the position of the chunk in its ChunkMap
+	 *  @return index
+	 */
+	public int getIndex() {
+		return index;
+	}
+}
@@ -0,0 +1,203 @@
+/** @file ChunkMap.java
+ */
+
+package nl.arjanfrans.mario.model.chunk;
+
+import nl.arjanfrans.mario.model.MovingActor;
+import nl.arjanfrans.mario.model.WorldSnapshot;
+
+import com.badlogic.gdx.math.Rectangle;
+import com.badlogic.gdx.scenes.scene2d.Actor;
+import com.badlogic.gdx.scenes.scene2d.Group;
+import com.badlogic.gdx.scenes.scene2d.Stage;
+import com.badlogic.gdx.scenes.scene2d.Touchable;
+import com.badlogic.gdx.utils.IntArray;
+import com.badlogic.gdx.utils.SnapshotArray;
+
+/**
+ * @brief Splits the level into chunks and decides which of them are awake
+ * @details Every tick the chunks around the camera are woken, together with the chunks that hold
+ * an awake actor, a moving actor that has not walked too far away from the camera. All other
+ * chunks sleep. Moving actors are put in the chunk under their left edge again when they cross
+ * into another one. Only the awake chunks are on the stage, in one group, so the stage does not
+ * visit the sleeping ones when it acts and draws. The work per tick only depends on the awake
+ * chunks, not on the length of the level.
+ */
+public class ChunkMap {
+	/** Chunks beside the camera that are kept awake, so actors start before they come in view */
+	public static final int VIEW_MARGIN = 1;
+	/** Chunks beside the camera in which awake actors still keep their chunk awake */
+	public static final int KEEP_MARGIN = 2;
+
+	private final Chunk[] chunks;
+	private final Group awake = new Group(); /**< The awake chunks, ordered from left to right */
+	private final float chunkSize;
+	private final int[] stamps;
+	private int stamp = 0;
+	private IntArray active = new IntArray();
+	private IntArray next = new IntArray();
+
+	/** @brief Constructor method
+	 *  @details The group of the awake chunks is added to the stage. They are kept in it from
+	 *  left to right, so actors are drawn in the order of their chunks.
+	 *  @param stage Stage the chunks are put on
+	 *  @param width Width of the level in tiles
+	 *  @param chunkSize Width of one chunk in tiles
+	 */
+	public ChunkMap(Stage stage, int width, float chunkSize) {
+		this.chunkSize = chunkSize;
+		this.chunks = new Chunk[Math.max(1, (int) Math.ceil(width / chunkSize))];
+		this.stamps = new int[chunks.length];
+		for(int i = 0; i < chunks.length; i++) {
+			chunks[i] = new Chunk(i);
+		}
+		awake.setTransform(false);
+		awake.setTouchable(Touchable.disabled);
+		stage.addActor(awake);
+	}
+
+	/** @brief Adds an actor to the chunk at its position
+	 *  @param actor Actor object
+	 */
+	public void add(Actor actor) {
+		chunks[chunkAt(actor.getX())].addActor(actor);
+	}
+
+	/** @brief Decides which chunks are awake during the next tick
+	 *  @param view Part of the world the camera shows
+	 */
+	public void update(Rectangle view) {
+		nextStamp();
+		next.clear();
+		int first = chunkAt(view.x), last = chunkAt(view.x + view.width);
+		for(int i = first - VIEW_MARGIN; i <= last + VIEW_MARGIN; i++) {
+			mark(i);
+		}
+
+		for(int c = 0; c < active.size; c++) {
+			SnapshotArray<Actor> actors = chunks[active.get(c)].getChildren();
+			// Backwards, actors that changed chunk are taken out of this one
+			for(int i = actors.size - 1; i >= 0; i--) {
+				if(!(actors.get(i) instanceof MovingActor)) continue;
+				MovingActor actor = (MovingActor) actors.get(i);
+				if(!actor.isMoving()) continue;
+
+				int home = chunkAt(actor.getX());
+				if(home != active.get(c)) chunks[home].addActor(actor);
+				if(home >= first - KEEP_MARGIN && home <= last + KEEP_MARGIN) {
+					// Also wake the chunks the actor is about to walk into
+					mark(chunkAt(actor.getX() - 1));
+					mark(home);
+					mark(chunkAt(actor.getX() + actor.getWidth() + 1));
+				}
+				else if(stamps[home] != stamp && !chunks[home].isAwake()) {
+					// Walked into a chunk that stays asleep
+					actor.chunkAsleep();
+				}
+			}
+		}
+
+		for(int c = 0; c < active.size; c++) {
+			if(stamps[active.get(c)] != stamp) sleep(chunks[active.get(c)]);
+		}
+		next.sort();
+		for(int c = 0; c < next.size; c++) {
+			if(!chunks[next.get(c)].isAwake()) wake(chunks[next.get(c)]);
+		}
+		IntArray swap = active;
+		active = next;
+		next = swap;
+	}
+
+	/** @brief Writes which chunks are awake into a snapshot
+	 *  @param snapshot WorldSnapshot object
+	 */
+	public void write(WorldSnapshot snapshot) {
+		snapshot.writeInt(chunks.length);
+		snapshot.writeInt(active.size);
+		snapshot.writeInts(active.items, active.size);
+	}
+
+	/** @brief Empties every chunk and wakes the chunks that were awake in a snapshot
+	 *  @details The actors are taken out of the world right away, instead of at the end of a
+	 *  tick. The world puts the actors of the snapshot back in their chunks.
+	 *  @param snapshot WorldSnapshot object
+	 */
+	public void read(WorldSnapshot snapshot) {
+		if(snapshot.readInt() != chunks.length) throw new IllegalArgumentException("Snapshot is of another level");
+		for(int c = 0; c < chunks.length; c++) {
+			if(chunks[c].hasChildren()) chunks[c].clearChildren();
+		}
+		for(int c = 0; c < active.size; c++) sleep(chunks[active.get(c)]);
+		active.clear();
+		int count = snapshot.readInt();
+		active.ensureCapacity(count);
+		snapshot.readInts(active.items, count);
+		active.size = count;
+		for(int c = 0; c < active.size; c++) wake(chunks[active.get(c)]);
+	}
+
+	/** @brief Get a chunk
+	 *  @param index between 0 and size(), counted from the left
+	 *  @return Chunk object
+	 */
+	public Chunk get(int index) {
+		return chunks[index];
+	}
+
+	/** @brief Get the amount of awake chunks
+	 *  @return size
+	 */
+	public int activeSize() {
+		return active.size;
+	}
+
+	/** @brief Get an awake chunk
+	 *  @param index between 0 and activeSize(), chunks are ordered from left to right
+	 *  @return Chunk object
+	 */
+	public Chunk getActive(int index) {
+		return chunks[active.get(index)];
+	}
+
+	/** @brief Get the amount of chunks
+	 *  @return size
+	 */
+	public int size() {
+		return chunks.length;
+	}
+
+	/** @brief Wakes a chunk and puts it on the stage, behind the awake chunks to its left */
+	private void wake(Chunk chunk) {
+		chunk.wake();
+		SnapshotArray<Actor> children = awake.getChildren();
+		int at = 0;
+		while(at < children.size && ((Chunk) children.get(at)).getIndex() < chunk.getIndex()) at++;
+		awake.addActorAt(at, chunk);
+	}
+
+	/** @brief Puts a chunk to sleep and takes it off the stage */
+	private void sleep(Chunk chunk) {
+		chunk.sleep();
+		awake.removeActor(chunk);
+	}
+
+	private void mark(int chunk) {
+		if(chunk < 0 || chunk >= chunks.length || stamps[chunk] == stamp) return;
+		stamps[chunk] = stamp;
+		next.add(chunk);
+	}
+
+	private int chunkAt(float x) {
+		int chunk = (int) Math.floor(x / chunkSize);
+		return chunk < 0 ? 0 : chunk >= chunks.length ? chunks.length - 1 : chunk;
+	}
+
+	private void nextStamp() {
+		stamp++;
+		if(stamp == Integer.MAX_VALUE) {
+			for(int i = 0; i < stamps.length; i++) stamps[i] = 0;
+			stamp = 1;
+		}
+	}
+}
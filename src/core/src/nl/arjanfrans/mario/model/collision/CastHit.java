@@ -0,0 +1,40 @@
+/** @file CastHit.java
+ */
+
+package nl.arjanfrans.mario.model.collision;
+
+import nl.arjanfrans.mario.model.StaticActor;
+
+/**
+ * @brief What a ray or box cast by a GridCaster hit first
+ * @details The caster fills an object that the caller owns, so a cast does not allocate. The
+ * fields are only meaningful when hit is true.
+ */
+public class CastHit {
+	/** Whether the cast hit anything within its maximum distance */
+	public boolean hit;
+	/** Distance travelled along the direction of the cast before the hit, 0 when it started inside */
+	public float distance;
+	/** Column of the cell that was hit */
+	public int cellX;
+	/** Row of the cell that was hit */
+	public int cellY;
+	/** Normal of the face that was hit, -1, 0 or 1, both 0 when the cast started inside */
+	public int normalX;
+	/** Normal of the face that was hit */
+	public int normalY;
+	/** Static actor that was hit, null when it was a tile */
+	public StaticActor actor;
+
+	/** @brief Forgets the last hit
+	 *  @return this CastHit, with hit false
+	 */
+	public CastHit clear() {
+		hit = false;
+		distance = 0;
+		cellX = cellY = 0;
+		normalX = normalY = 0;
+		actor = null;
+		return this;
+	}
+}
@@ -0,0 +1,238 @@
+/** @file CollisionGrid.java
+ */
+
+package nl.arjanfrans.mario.model.collision;
+
+import nl.arjanfrans.mario.model.StaticActor;
+import nl.arjanfrans.mario.model.level.ChunkListener;
+import nl.arjanfrans.mario.model.level.Level;
+import nl.arjanfrans.mario.model.level.LevelChunk;
+import nl.arjanfrans.mario.model.level.LevelStreamer;
+
+/**
+ * @brief Solidity of every cell of the level, stored as one bit per cell
+ * @details The grid is built from a tile layer as a LevelStreamer loads the chunks of the level,
+ * and a chunk is dropped again when it is evicted. Looking up a cell of a chunk that is not
+ * loaded loads it, changing one is ignored, the bricks put their state back when the chunk is
+ * loaded. Collision checks ask the grid directly instead of looking up cells of the layer, so
+ * they do not allocate anything.
+ * Static actors such as bricks are registered in the cell they occupy, so they can be found
+ * by cell instead of by scanning every actor of the stage. The solid cells are also kept merged
+ * into rectangles by a CollisionMesh. Tiles that do not fill their cell, like slopes and one-way
+ * platforms, are not solid: their TileShape is kept in one byte per cell instead.
+ */
+public class CollisionGrid implements ChunkListener {
+	private static final int MASK = Level.CHUNK_WIDTH - 1;
+
+	private final int width;
+	private final int height;
+	private final LevelStreamer streamer;
+	private final int layer;
+	private final Chunk[] chunks;
+	private int partialCells = 0;
+	private final CollisionMesh mesh;
+
+	/** @brief Constructor method
+	 *  @details Creates an empty grid, all cells are free
+	 *  @param width Width of the level in tiles
+	 *  @param height Height of the level in tiles
+	 */
+	public CollisionGrid(int width, int height) {
+		this(width, height, null, -1);
+		for(int c = 0; c < chunks.length; c++) chunks[c] = new Chunk(height);
+	}
+
+	/** @brief Constructor method
+	 *  @details Creates a grid of a tile layer of a level, it adds itself to the listeners of the
+	 *  streamer. The shape of every tile comes from its 'collision' property, a tile without it
+	 *  is solid.
+	 *  @param streamer LevelStreamer of the level
+	 *  @param layer index of the tile layer
+	 */
+	public CollisionGrid(LevelStreamer streamer, int layer) {
+		this(streamer.getLevel().getWidth(), streamer.getLevel().getHeight(), streamer, layer);
+		streamer.addListener(this);
+	}
+
+	private CollisionGrid(int width, int height, LevelStreamer streamer, int layer) {
+		this.width = width;
+		this.height = height;
+		this.streamer = streamer;
+		this.layer = layer;
+		this.chunks = new Chunk[(width + MASK) >> Level.CHUNK_SHIFT];
+		this.mesh = new CollisionMesh(this);
+	}
+
+	/** @brief Check if a cell blocks movement
+	 *  @param x coordinate of the cell
+	 *  @param y coordinate of the cell
+	 *  @return true if the cell is solid, cells outside of the level are never solid
+	 */
+	public boolean isSolid(int x, int y) {
+		if(x < 0 || y < 0 || x >= width || y >= height) return false;
+		// A long holds a row of a chunk, the shift only uses the lowest six bits of x
+		return (chunk(x).bits[y] & (1L << x)) != 0;
+	}
+
+	/** @brief Change the solidity of a cell, for example when a brick breaks
+	 *  @param x coordinate of the cell
+	 *  @param y coordinate of the cell
+	 *  @param solid true if the cell blocks movement
+	 */
+	public void setSolid(int x, int y, boolean solid) {
+		setShape(x, y, solid ? TileShape.FULL : TileShape.EMPTY);
+	}
+
+	/** @brief Get the shape of a cell
+	 *  @param x coordinate of the cell
+	 *  @param y coordinate of the cell
+	 *  @return TileShape of the cell, EMPTY outside of the level
+	 */
+	public byte getShape(int x, int y) {
+		if(x < 0 || y < 0 || x >= width || y >= height) return TileShape.EMPTY;
+		return chunk(x).shapes[y * Level.CHUNK_WIDTH + (x & MASK)];
+	}
+
+	/** @brief Change the shape of a cell, only FULL cells are solid
+	 *  @param x coordinate of the cell
+	 *  @param y coordinate of the cell
+	 *  @param shape TileShape of the cell
+	 */
+	public void setShape(int x, int y, byte shape) {
+		if(x < 0 || y < 0 || x >= width || y >= height) return;
+		Chunk chunk = chunks[x >> Level.CHUNK_SHIFT];
+		if(chunk == null) return;
+		int i = y * Level.CHUNK_WIDTH + (x & MASK);
+		if(isPartial(chunk.shapes[i])) {
+			chunk.partialCells--;
+			partialCells--;
+		}
+		if(isPartial(shape)) {
+			chunk.partialCells++;
+			partialCells++;
+		}
+		chunk.shapes[i] = shape;
+
+		long old = chunk.bits[y];
+		if(shape == TileShape.FULL) chunk.bits[y] |= 1L << x;
+		else chunk.bits[y] &= ~(1L << x);
+		if(chunk.bits[y] != old) mesh.invalidate(x);
+	}
+
+	/** @brief Check if any cell of the loaded chunks has a shape that does not fill it
+	 *  @return false when every cell is empty or solid, the shapes can then be skipped
+	 */
+	public boolean hasPartialShapes() {
+		return partialCells > 0;
+	}
+
+	private static boolean isPartial(byte shape) {
+		return shape != TileShape.EMPTY && shape != TileShape.FULL;
+	}
+
+	/** @brief Get the static actor in a cell
+	 *  @param x coordinate of the cell
+	 *  @param y coordinate of the cell
+	 *  @return the StaticActor registered in the cell, or null
+	 */
+	public StaticActor getOccupant(int x, int y) {
+		if(x < 0 || y < 0 || x >= width || y >= height) return null;
+		StaticActor[] occupants = chunk(x).occupants;
+		return occupants != null ? occupants[y * Level.CHUNK_WIDTH + (x & MASK)] : null;
+	}
+
+	/** @brief Register a static actor in a cell
+	 *  @param x coordinate of the cell
+	 *  @param y coordinate of the cell
+	 *  @param actor StaticActor object, or null to clear the cell, for example when a brick breaks
+	 */
+	public void setOccupant(int x, int y, StaticActor actor) {
+		if(x < 0 || y < 0 || x >= width || y >= height) return;
+		Chunk chunk = chunks[x >> Level.CHUNK_SHIFT];
+		if(chunk == null) return;
+		if(chunk.occupants == null) {
+			if(actor == null) return;
+			chunk.occupants = new StaticActor[Level.CHUNK_WIDTH * height];
+		}
+		chunk.occupants[y * Level.CHUNK_WIDTH + (x & MASK)] = actor;
+	}
+
+	/** @brief Builds the cells of a chunk from the tiles of the layer
+	 *  @param data LevelChunk object
+	 */
+	@Override
+	public void chunkLoaded(LevelChunk data) {
+		Level level = streamer.getLevel();
+		chunks[data.getIndex()] = new Chunk(height);
+		int right = Math.min(data.getX() + Level.CHUNK_WIDTH, width);
+		for(int y = 0; y < height; y++) {
+			for(int x = data.getX(); x < right; x++) {
+				int tile = data.getTile(layer, x, y);
+				if(tile < 0) continue;
+				setShape(x, y, level.getShape(tile));
+			}
+		}
+	}
+
+	/** @brief Drops the cells of a chunk, and the rectangles of the mesh in it
+	 *  @param chunk index of the chunk
+	 */
+	@Override
+	public void chunkEvicted(int chunk) {
+		partialCells -= chunks[chunk].partialCells;
+		chunks[chunk] = null;
+		mesh.release(chunk << Level.CHUNK_SHIFT, Math.min((chunk + 1) << Level.CHUNK_SHIFT, width) - 1);
+	}
+
+	/** @brief Check if the chunk of a column is loaded
+	 *  @param x coordinate of a cell
+	 *  @return true if the cells of its chunk are in memory
+	 */
+	public boolean isLoaded(int x) {
+		return chunks[x >> Level.CHUNK_SHIFT] != null;
+	}
+
+	/** The chunk of a column, it is loaded when it is not resident */
+	private Chunk chunk(int x) {
+		Chunk chunk = chunks[x >> Level.CHUNK_SHIFT];
+		if(chunk != null) return chunk;
+		streamer.require(x >> Level.CHUNK_SHIFT);
+		return chunks[x >> Level.CHUNK_SHIFT];
+	}
+
+	/** @brief Get the solid cells merged into rectangles
+	 *  @return mesh CollisionMesh object, it follows the changes of the grid
+	 */
+	public CollisionMesh getMesh() {
+		return mesh;
+	}
+
+	/** @brief Get width of the grid
+	 *  @return width in tiles
+	 */
+	public int getWidth() {
+		return width;
+	}
+
+	/** @brief Get height of the grid
+	 *  @return height in tiles
+	 */
+	public int getHeight() {
+		return height;
+	}
+
+	/**
+	 * @brief The cells of one chunk of the grid
+	 */
+	private static class Chunk {
+		final long[] bits; /**< One long per row */
+		final byte[] shapes;
+		StaticActor[] occupants; /**< Created when the first actor is registered */
+		int partialCells = 0;
+
+		Chunk(int height) {
+			bits = new long[height];
+			shapes = new byte[Level.CHUNK_WIDTH * height];
+		}
+	}
+}
@@ -0,0 +1,229 @@
+/** @file CollisionMesh.java
+ */
+
+package nl.arjanfrans.mario.model.collision;
+
+import com.badlogic.gdx.utils.IntArray;
+
+/**
+ * @brief The solid cells of a CollisionGrid merged into rectangles
+ * @details The level is split into strips of CHUNK_WIDTH columns. The solid cells of each strip
+ * are merged greedily: every free cell starts a rectangle that grows to the right as far as the
+ * row allows, and then upwards as long as the whole width is solid. A long stretch of ground or a
+ * pipe becomes one rectangle instead of dozens of cells. Every column of a strip lists the
+ * rectangles that cover it, ordered from the bottom up, so a query only looks at the columns it
+ * covers. When the grid changes, for example when a brick is bumped or breaks, only the strip of
+ * that cell is merged again, the next time it is queried. The rectangles of a strip are dropped
+ * when the grid evicts its chunk, and merged again once it is queried after that.
+ */
+public class CollisionMesh {
+	/** Amount of columns that are merged together, rectangles never cross a strip */
+	public static final int CHUNK_WIDTH = 16;
+	private static final int ID_BITS = 16;
+	private static final int ID_MASK = (1 << ID_BITS) - 1;
+
+	private final CollisionGrid grid;
+	private final int chunks;
+	private final boolean[] dirty;
+	private final int[] counts;
+	private final int[][] rects;
+	private final int[][] columnStart;
+	private final int[][] columnRects;
+	private final boolean[] merged;
+
+	/** @brief Constructor method
+	 *  @details Every strip is merged the first time it is queried, call build() to merge them
+	 *  all at once.
+	 *  @param grid CollisionGrid object the rectangles are made of
+	 */
+	public CollisionMesh(CollisionGrid grid) {
+		this.grid = grid;
+		this.chunks = Math.max(1, (grid.getWidth() + CHUNK_WIDTH - 1) / CHUNK_WIDTH);
+		if(CHUNK_WIDTH * grid.getHeight() > ID_MASK) throw new IllegalArgumentException("Level is too high");
+		this.dirty = new boolean[chunks];
+		this.counts = new int[chunks];
+		this.rects = new int[chunks][];
+		this.columnStart = new int[chunks][];
+		this.columnRects = new int[chunks][];
+		this.merged = new boolean[CHUNK_WIDTH * grid.getHeight()];
+		for(int c = 0; c < chunks; c++) dirty[c] = true;
+	}
+
+	/** @brief Merges the cells of all strips whose chunk of the grid is loaded
+	 */
+	public void build() {
+		for(int c = 0; c < chunks; c++) {
+			if(dirty[c] && grid.isLoaded(c * CHUNK_WIDTH)) merge(c);
+		}
+	}
+
+	/** @brief Marks the strip of a cell to be merged again
+	 *  @param x coordinate of the cell that changed
+	 */
+	void invalidate(int x) {
+		if(x >= 0 && x < grid.getWidth()) dirty[x / CHUNK_WIDTH] = true;
+	}
+
+	/** @brief Drops the rectangles of the strips in an evicted chunk of the grid
+	 *  @param x0 first column of the chunk
+	 *  @param x1 last column of the chunk
+	 */
+	void release(int x0, int x1) {
+		for(int c = x0 / CHUNK_WIDTH; c <= x1 / CHUNK_WIDTH; c++) {
+			dirty[c] = true;
+			counts[c] = 0;
+			rects[c] = null;
+			columnStart[c] = null;
+			columnRects[c] = null;
+		}
+	}
+
+	/** @brief Finds the rectangles that cover any of an area of cells
+	 *  @param x0 first column
+	 *  @param y0 first row
+	 *  @param x1 last column
+	 *  @param y1 last row
+	 *  @param out IntArray that is cleared and filled with the ids of the rectangles, each once
+	 *  @return out
+	 */
+	public IntArray query(int x0, int y0, int x1, int y1, IntArray out) {
+		out.clear();
+		x0 = Math.max(x0, 0);
+		x1 = Math.min(x1, grid.getWidth() - 1);
+		for(int x = x0; x <= x1; x++) {
+			int c = x / CHUNK_WIDTH, column = x - c * CHUNK_WIDTH;
+			if(dirty[c]) merge(c);
+			int[] r = rects[c], list = columnRects[c];
+			for(int e = columnStart[c][column]; e < columnStart[c][column + 1]; e++) {
+				int k = list[e] * 4;
+				if(r[k + 1] > y1) break;
+				if(r[k + 1] + r[k + 3] <= y0) continue;
+				// Reported in the first column of the area it covers
+				if(x == Math.max(r[k], x0)) out.add(c << ID_BITS | list[e]);
+			}
+		}
+		return out;
+	}
+
+	/** @brief Get the amount of rectangles in the chunks of the grid that are loaded, merging the strips that changed
+	 *  @return size
+	 */
+	public int size() {
+		build();
+		int size = 0;
+		for(int c = 0; c < chunks; c++) {
+			size += counts[c];
+		}
+		return size;
+	}
+
+	/** @brief Get the first column of a rectangle
+	 *  @param id of the rectangle, as returned by query()
+	 *  @return x coordinate of the cell in its lower left corner
+	 */
+	public int getX(int id) {
+		return rects[id >>> ID_BITS][(id & ID_MASK) * 4];
+	}
+
+	/** @brief Get the first row of a rectangle
+	 *  @param id of the rectangle
+	 *  @return y coordinate of the cell in its lower left corner
+	 */
+	public int getY(int id) {
+		return rects[id >>> ID_BITS][(id & ID_MASK) * 4 + 1];
+	}
+
+	/** @brief Get the width of a rectangle
+	 *  @param id of the rectangle
+	 *  @return width in cells
+	 */
+	public int getWidth(int id) {
+		return rects[id >>> ID_BITS][(id & ID_MASK) * 4 + 2];
+	}
+
+	/** @brief Get the height of a rectangle
+	 *  @param id of the rectangle
+	 *  @return height in cells
+	 */
+	public int getHeight(int id) {
+		return rects[id >>> ID_BITS][(id & ID_MASK) * 4 + 3];
+	}
+
+	private void merge(int c) {
+		int left = c * CHUNK_WIDTH;
+		int right = Math.min(left + CHUNK_WIDTH, grid.getWidth());
+		int height = grid.getHeight();
+		for(int i = 0; i < merged.length; i++) merged[i] = false;
+		if(rects[c] == null) {
+			rects[c] = new int[64];
+			columnStart[c] = new int[CHUNK_WIDTH + 1];
+			columnRects[c] = new int[64];
+		}
+
+		int count = 0;
+		for(int y = 0; y < height; y++) {
+			for(int x = left; x < right; x++) {
+				if(!free(x, y, left)) continue;
+				int w = 1;
+				while(x + w < right && free(x + w, y, left)) w++;
+				int h = 1;
+				grow:
+				while(y + h < height) {
+					for(int i = 0; i < w; i++) {
+						if(!free(x + i, y + h, left)) break grow;
+					}
+					h++;
+				}
+				for(int j = 0; j < h; j++) {
+					for(int i = 0; i < w; i++) merged[(y + j) * CHUNK_WIDTH + x + i - left] = true;
+				}
+
+				if(count * 4 == rects[c].length) rects[c] = grow(rects[c], rects[c].length * 2);
+				int k = count * 4;
+				rects[c][k] = x;
+				rects[c][k + 1] = y;
+				rects[c][k + 2] = w;
+				rects[c][k + 3] = h;
+				count++;
+				x += w - 1;
+			}
+		}
+		counts[c] = count;
+		index(c, left);
+		dirty[c] = false;
+	}
+
+	/** Lists the rectangles per column, they were made from the bottom up */
+	private void index(int c, int left) {
+		int[] start = columnStart[c], r = rects[c];
+		for(int i = 0; i <= CHUNK_WIDTH; i++) start[i] = 0;
+		int entries = 0;
+		for(int k = 0; k < counts[c] * 4; k += 4) {
+			for(int x = r[k]; x < r[k] + r[k + 2]; x++) start[x - left + 1]++;
+			entries += r[k + 2];
+		}
+		for(int i = 0; i < CHUNK_WIDTH; i++) start[i + 1] += start[i];
+		if(entries > columnRects[c].length) columnRects[c] = grow(columnRects[c], entries * 2);
+
+		int[] list = columnRects[c];
+		for(int i = 0; i < counts[c]; i++) {
+			int k = i * 4;
+			for(int x = r[k]; x < r[k] + r[k + 2]; x++) {
+				// start[] is moved past every entry that is written, and shifted back below
+				list[start[x - left]++] = i;
+			}
+		}
+		for(int i = CHUNK_WIDTH; i > 0; i--) start[i] = start[i - 1];
+		start[0] = 0;
+	}
+
+	private boolean free(int x, int y, int left) {
+		return grid.isSolid(x, y) && !merged[y * CHUNK_WIDTH + x - left];
+	}
+
+	private static int[] grow(int[] array, int size) {
+		int[] newArray = new int[size];
+		System.arraycopy(array, 0, newArray, 0, array.length);
+		return newArray;
+	}
+}
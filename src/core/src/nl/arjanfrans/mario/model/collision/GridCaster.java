@@ -0,0 +1,306 @@
+/** @file GridCaster.java
+ */
+
+package nl.arjanfrans.mario.model.collision;
+
+import nl.arjanfrans.mario.model.StaticActor;
+
+import com.badlogic.gdx.math.Rectangle;
+import com.badlogic.gdx.utils.IntArray;
+
+/**
+ * @brief Casts rays and boxes through the level and finds what they hit first
+ * @details A ray walks the cells of the CollisionGrid in the order it crosses them (DDA), so it
+ * stops at the first solid cell without looking at the cells behind it. A box is swept against
+ * the merged rectangles of the CollisionMesh. Both also hit the part of a cell that a TileShape
+ * fills, the way MovingActor collides with it: a slope is tested as its columns of SAMPLES and a
+ * one-way platform is only hit from above. And both hit static actors, like a brick that is
+ * being bumped, and report the cell, the distance and the normal of the face that was hit. The
+ * results go into objects or arrays the caller owns, a cast does not allocate, so AI and tools
+ * can probe the level thousands of times per tick.
+ */
+public class GridCaster {
+	/** Floats per ray in a batch: x, y, directionX, directionY, maxDistance */
+	public static final int RAY_STRIDE = 5;
+	/** Floats per box in a batch: x, y, width, height, directionX, directionY, maxDistance */
+	public static final int BOX_STRIDE = 7;
+	/** Floats per result of a batch: distance, normalX, normalY, cellX, cellY. The distance is -1 when nothing was hit. */
+	public static final int HIT_STRIDE = 5;
+
+	private final CollisionGrid grid;
+	private final IntArray shapes = new IntArray();
+	private final CastHit batchHit = new CastHit();
+	private float slabDistance;
+	private int slabNormalX, slabNormalY;
+
+	/** @brief Constructor method
+	 *  @param grid CollisionGrid object of the level
+	 */
+	public GridCaster(CollisionGrid grid) {
+		this.grid = grid;
+	}
+
+	/** @brief Casts a ray and finds the first solid cell, shape or static actor it hits
+	 *  @param x coordinate the ray starts at
+	 *  @param y coordinate the ray starts at
+	 *  @param directionX x part of the direction, does not have to be normalized
+	 *  @param directionY y part of the direction
+	 *  @param maxDistance Distance in tiles after which the ray stops
+	 *  @param out CastHit object that is filled in
+	 *  @return true if something was hit
+	 */
+	public boolean raycast(float x, float y, float directionX, float directionY, float maxDistance, CastHit out) {
+		out.clear();
+		float length = (float) Math.sqrt(directionX * directionX + directionY * directionY);
+		float dx = length == 0 ? 0 : directionX / length;
+		float dy = length == 0 ? 0 : directionY / length;
+
+		int cellX = (int) Math.floor(x), cellY = (int) Math.floor(y);
+		int stepX = dx > 0 ? 1 : dx < 0 ? -1 : 0;
+		int stepY = dy > 0 ? 1 : dy < 0 ? -1 : 0;
+		float deltaX = stepX != 0 ? Math.abs(1 / dx) : Float.POSITIVE_INFINITY;
+		float deltaY = stepY != 0 ? Math.abs(1 / dy) : Float.POSITIVE_INFINITY;
+		// Distance along the ray to the next column and the next row
+		float nextX = stepX > 0 ? (cellX + 1 - x) / dx : stepX < 0 ? (x - cellX) / -dx : Float.POSITIVE_INFINITY;
+		float nextY = stepY > 0 ? (cellY + 1 - y) / dy : stepY < 0 ? (y - cellY) / -dy : Float.POSITIVE_INFINITY;
+
+		float t = 0;
+		int normalX = 0, normalY = 0;
+		while(t <= maxDistance) {
+			// A shape or a static actor that was found earlier is in front of this cell
+			if(out.hit && out.distance <= t) return true;
+			if(grid.isSolid(cellX, cellY)) {
+				set(out, t, cellX, cellY, normalX, normalY, null);
+				return true;
+			}
+			if(grid.hasPartialShapes()) castShape(x, y, 0, 0, dx, dy, maxDistance, cellX, cellY, out);
+			// A bumped brick moves up out of its own cell
+			castActor(x, y, 0, 0, dx, dy, maxDistance, cellX, cellY, out);
+			castActor(x, y, 0, 0, dx, dy, maxDistance, cellX, cellY - 1, out);
+
+			// A ray without a direction only tests the cell it starts in
+			if(stepX == 0 && stepY == 0) break;
+			if(leaving(cellX, cellY, stepX, stepY)) break;
+			if(nextX < nextY) {
+				t = nextX;
+				nextX += deltaX;
+				cellX += stepX;
+				normalX = -stepX;
+				normalY = 0;
+			}
+			else {
+				t = nextY;
+				nextY += deltaY;
+				cellY += stepY;
+				normalX = 0;
+				normalY = -stepY;
+			}
+		}
+		return out.hit;
+	}
+
+	/** @brief Sweeps a box and finds the first solid cell, shape or static actor it hits
+	 *  @details The box only hits what it moves into, a box that slides along the ground does
+	 *  not hit it.
+	 *  @param box Rectangle the box starts at
+	 *  @param directionX x part of the direction, does not have to be normalized
+	 *  @param directionY y part of the direction
+	 *  @param maxDistance Distance in tiles after which the box stops
+	 *  @param out CastHit object that is filled in
+	 *  @return true if something was hit
+	 */
+	public boolean boxcast(Rectangle box, float directionX, float directionY, float maxDistance, CastHit out) {
+		return boxcast(box.x, box.y, box.width, box.height, directionX, directionY, maxDistance, out);
+	}
+
+	/** @brief Sweeps a box and finds the first solid cell, shape or static actor it hits
+	 *  @param x coordinate of the lower left corner of the box
+	 *  @param y coordinate of the lower left corner of the box
+	 *  @param width Width of the box
+	 *  @param height Height of the box
+	 *  @param directionX x part of the direction, does not have to be normalized
+	 *  @param directionY y part of the direction
+	 *  @param maxDistance Distance in tiles after which the box stops
+	 *  @param out CastHit object that is filled in
+	 *  @return true if something was hit
+	 */
+	public boolean boxcast(float x, float y, float width, float height, float directionX, float directionY,
+			float maxDistance, CastHit out) {
+		out.clear();
+		float length = (float) Math.sqrt(directionX * directionX + directionY * directionY);
+		float dx = length == 0 ? 0 : directionX / length;
+		float dy = length == 0 ? 0 : directionY / length;
+		float endX = x + dx * maxDistance, endY = y + dy * maxDistance;
+		int x0 = (int) Math.floor(Math.min(x, endX)), x1 = (int) Math.floor(Math.max(x, endX) + width);
+		int y0 = (int) Math.floor(Math.min(y, endY)), y1 = (int) Math.floor(Math.max(y, endY) + height);
+
+		CollisionMesh mesh = grid.getMesh();
+		mesh.query(x0, y0, x1, y1, shapes);
+		for(int s = 0; s < shapes.size; s++) {
+			int id = shapes.get(s);
+			int rx = mesh.getX(id), ry = mesh.getY(id), rw = mesh.getWidth(id), rh = mesh.getHeight(id);
+			// The box hits the rectangle when its corner hits the rectangle grown by the box
+			if(!slab(x, y, dx, dy, rx - width, ry - height, rw + width, rh + height, maxDistance)) continue;
+			if(out.hit && slabDistance >= out.distance) continue;
+
+			// The cell of the face that was hit, nearest to the centre of the box
+			float centerX = x + dx * slabDistance + width / 2, centerY = y + dy * slabDistance + height / 2;
+			int cellX = slabNormalX < 0 ? rx : slabNormalX > 0 ? rx + rw - 1 : clamp((int) Math.floor(centerX), rx, rx + rw - 1);
+			int cellY = slabNormalY < 0 ? ry : slabNormalY > 0 ? ry + rh - 1 : clamp((int) Math.floor(centerY), ry, ry + rh - 1);
+			set(out, slabDistance, cellX, cellY, slabNormalX, slabNormalY, null);
+		}
+
+		if(grid.hasPartialShapes()) {
+			for(int cellX = x0; cellX <= x1; cellX++) {
+				for(int cellY = y0; cellY <= y1; cellY++) {
+					castShape(x, y, width, height, dx, dy, maxDistance, cellX, cellY, out);
+				}
+			}
+		}
+
+		for(int cellX = x0; cellX <= x1; cellX++) {
+			for(int cellY = y0 - 1; cellY <= y1; cellY++) {
+				castActor(x, y, width, height, dx, dy, maxDistance, cellX, cellY, out);
+			}
+		}
+		return out.hit;
+	}
+
+	/** @brief Casts many rays at once
+	 *  @param rays RAY_STRIDE floats per ray
+	 *  @param count Amount of rays
+	 *  @param hits HIT_STRIDE floats per ray are written here
+	 *  @return the amount of rays that hit something
+	 */
+	public int raycast(float[] rays, int count, float[] hits) {
+		int found = 0;
+		for(int i = 0; i < count; i++) {
+			int r = i * RAY_STRIDE;
+			if(raycast(rays[r], rays[r + 1], rays[r + 2], rays[r + 3], rays[r + 4], batchHit)) found++;
+			write(batchHit, hits, i * HIT_STRIDE);
+		}
+		return found;
+	}
+
+	/** @brief Sweeps many boxes at once
+	 *  @param boxes BOX_STRIDE floats per box
+	 *  @param count Amount of boxes
+	 *  @param hits HIT_STRIDE floats per box are written here
+	 *  @return the amount of boxes that hit something
+	 */
+	public int boxcast(float[] boxes, int count, float[] hits) {
+		int found = 0;
+		for(int i = 0; i < count; i++) {
+			int b = i * BOX_STRIDE;
+			if(boxcast(boxes[b], boxes[b + 1], boxes[b + 2], boxes[b + 3], boxes[b + 4], boxes[b + 5], boxes[b + 6],
+					batchHit)) found++;
+			write(batchHit, hits, i * HIT_STRIDE);
+		}
+		return found;
+	}
+
+	/** Sweeps the corner of a box against the static actor of a cell, the nearest hit is kept */
+	private void castActor(float x, float y, float width, float height, float dx, float dy, float maxDistance,
+			int cellX, int cellY, CastHit out) {
+		StaticActor actor = grid.getOccupant(cellX, cellY);
+		if(actor == null || actor.isDestroyed()) return;
+		Rectangle r = actor.rectangle();
+		if(!slab(x, y, dx, dy, r.x - width, r.y - height, r.width + width, r.height + height, maxDistance)) return;
+		if(out.hit && slabDistance >= out.distance) return;
+		set(out, slabDistance, cellX, cellY, slabNormalX, slabNormalY, actor);
+	}
+
+	/** Sweeps the corner of a box against the part of a cell that its shape fills, the nearest hit is kept */
+	private void castShape(float x, float y, float width, float height, float dx, float dy, float maxDistance,
+			int cellX, int cellY, CastHit out) {
+		byte shape = grid.getShape(cellX, cellY);
+		if(shape == TileShape.EMPTY || shape == TileShape.FULL) return;
+		float bottom = cellY + TileShape.bottom(shape);
+		int columns = TileShape.isSlope(shape) ? TileShape.SAMPLES : 1;
+		float columnWidth = 1f / columns;
+		int first = 0, last = columns - 1;
+		// A ray straight up or down is in the one column top() picks, also on the line between two
+		boolean vertical = width == 0 && dx == 0;
+		if(vertical) {
+			if(x < cellX || x >= cellX + 1) return;
+			first = last = (int) ((x - cellX) * columns);
+		}
+		for(int c = first; c <= last; c++) {
+			float left = vertical ? x - columnWidth / 2 : cellX + c * columnWidth;
+			float top = cellY + TileShape.top(shape, c * columnWidth);
+			if(!slab(x, y, dx, dy, left - width, bottom - height, columnWidth + width, top - bottom + height, maxDistance)) continue;
+			// A one-way platform only stops what comes down onto it
+			if(slabNormalY <= 0 && !TileShape.blocksBelow(shape)) continue;
+			if(out.hit && slabDistance >= out.distance) continue;
+			set(out, slabDistance, cellX, cellY, slabNormalX, slabNormalY, null);
+		}
+	}
+
+	/** Intersects a ray with a rectangle, sets slabDistance and the slab normal when it hits */
+	private boolean slab(float x, float y, float dx, float dy, float minX, float minY, float width, float height,
+			float maxDistance) {
+		float enter = Float.NEGATIVE_INFINITY, exit = Float.POSITIVE_INFINITY;
+		int normalX = 0, normalY = 0;
+		if(dx == 0) {
+			if(x <= minX || x >= minX + width) return false;
+		}
+		else {
+			float near = ((dx > 0 ? minX : minX + width) - x) / dx;
+			float far = ((dx > 0 ? minX + width : minX) - x) / dx;
+			enter = near;
+			normalX = dx > 0 ? -1 : 1;
+			exit = far;
+		}
+		if(dy == 0) {
+			if(y <= minY || y >= minY + height) return false;
+		}
+		else {
+			float near = ((dy > 0 ? minY : minY + height) - y) / dy;
+			float far = ((dy > 0 ? minY + height : minY) - y) / dy;
+			if(near > enter) {
+				enter = near;
+				normalX = 0;
+				normalY = dy > 0 ? -1 : 1;
+			}
+			exit = Math.min(exit, far);
+		}
+		if(enter >= exit || exit <= 0 || enter > maxDistance) return false;
+		if(enter < 0) {
+			// Started inside
+			enter = 0;
+			normalX = normalY = 0;
+		}
+		slabDistance = enter;
+		slabNormalX = normalX;
+		slabNormalY = normalY;
+		return true;
+	}
+
+	/** Whether the ray is outside the grid and moves away from it */
+	private boolean leaving(int cellX, int cellY, int stepX, int stepY) {
+		return (cellX < 0 && stepX <= 0) || (cellX >= grid.getWidth() && stepX >= 0)
+				|| (cellY < 0 && stepY <= 0) || (cellY >= grid.getHeight() && stepY >= 0);
+	}
+
+	private static void set(CastHit out, float distance, int cellX, int cellY, int normalX, int normalY, StaticActor actor) {
+		out.hit = true;
+		out.distance = distance;
+		out.cellX = cellX;
+		out.cellY = cellY;
+		out.normalX = normalX;
+		out.normalY = normalY;
+		out.actor = actor;
+	}
+
+	private static void write(CastHit hit, float[] hits, int h) {
+		hits[h] = hit.hit ? hit.distance : -1;
+		hits[h + 1] = hit.normalX;
+		hits[h + 2] = hit.normalY;
+		hits[h + 3] = hit.cellX;
+		hits[h + 4] = hit.cellY;
+	}
+
+	private static int clamp(int value, int min, int max) {
+		return value < min ? min : value > max ? max : value;
+	}
+}
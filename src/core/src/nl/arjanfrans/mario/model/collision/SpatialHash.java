@@ -0,0 +1,208 @@
+/** @file SpatialHash.java
+ */
+
+package nl.arjanfrans.mario.model.collision;
+
+import nl.arjanfrans.mario.model.MovingActor;
+
+import com.badlogic.gdx.math.Rectangle;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.IntArray;
+
+/**
+ * @brief Uniform grid of buckets that finds moving actors near an area
+ * @details The world rebuilds the hash once per tick. Every actor is put in all cells its
+ * rectangle covers, grown by the distance it can travel during the tick, so queries made
+ * while actors move are still complete. Queries and pair searches only return candidates,
+ * the caller still has to test the exact rectangles. Results are sorted in insertion order,
+ * so the outcome does not depend on how the actors are spread over the cells. Columns of cells
+ * that are MAX_COLUMNS apart share their buckets, so the hash has the same size for any length
+ * of level. Only actors that are that far apart meet in a bucket, as candidates.
+ */
+public class SpatialHash {
+	private static final float MARGIN = 0.25f;
+	/** Columns of buckets, the columns of cells beyond it wrap around */
+	public static final int MAX_COLUMNS = 256;
+
+	private final float cellSize;
+	private final int columns; /**< Columns of cells of the level */
+	private final int bucketColumns;
+	private final int rows;
+	private final int[] heads;
+
+	private MovingActor[] actors = new MovingActor[64];
+	private int[] minCellX = new int[64];
+	private int[] minCellY = new int[64];
+	private int[] maxCellX = new int[64];
+	private int[] maxCellY = new int[64];
+	private int[] stamps = new int[64];
+	private int actorCount = 0;
+
+	private int[] next = new int[128];
+	private int[] entries = new int[128];
+	private int entryCount = 0;
+
+	private int stamp = 0;
+	private final IntArray found = new IntArray();
+
+	/** @brief Constructor method
+	 *  @param width Width of the level in tiles
+	 *  @param height Height of the level in tiles
+	 *  @param cellSize Size of one bucket in tiles
+	 */
+	public SpatialHash(int width, int height, float cellSize) {
+		this.cellSize = cellSize;
+		this.columns = Math.max(1, (int) Math.ceil(width / cellSize));
+		this.rows = Math.max(1, (int) Math.ceil(height / cellSize));
+		this.bucketColumns = Math.min(columns, MAX_COLUMNS);
+		this.heads = new int[bucketColumns * rows];
+		clear();
+	}
+
+	/** @brief Removes all actors
+	 */
+	public void clear() {
+		for(int i = 0; i < heads.length; i++) heads[i] = -1;
+		for(int i = 0; i < actorCount; i++) actors[i] = null;
+		actorCount = 0;
+		entryCount = 0;
+	}
+
+	/** @brief Adds an actor at its current position
+	 *  @param actor MovingActor object
+	 *  @param delta Length of the tick, used to grow the area by the distance the actor travels
+	 */
+	public void insert(MovingActor actor, float delta) {
+		float dx = Math.abs(actor.getVelocity().x * delta) + MARGIN;
+		float dy = Math.abs(actor.getVelocity().y * delta) + MARGIN;
+		int x0 = cellX(actor.getX() - dx);
+		int y0 = cellY(actor.getY() - dy);
+		int x1 = cellX(actor.getX() + actor.getWidth() + dx);
+		int y1 = cellY(actor.getY() + actor.getHeight() + dy);
+
+		if(actorCount == actors.length) growActors();
+		int index = actorCount++;
+		actors[index] = actor;
+		minCellX[index] = x0;
+		minCellY[index] = y0;
+		maxCellX[index] = x1;
+		maxCellY[index] = y1;
+		stamps[index] = 0;
+
+		for(int y = y0; y <= y1; y++) {
+			for(int x = x0; x <= x1; x++) {
+				if(entryCount == entries.length) growEntries();
+				int cell = bucket(x, y);
+				entries[entryCount] = index;
+				next[entryCount] = heads[cell];
+				heads[cell] = entryCount++;
+			}
+		}
+	}
+
+	/** @brief Finds the actors whose cells overlap an area
+	 *  @param area Rectangle in world coordinates
+	 *  @param out Array that is cleared and filled with the candidates, in insertion order
+	 *  @return out
+	 */
+	public Array<MovingActor> query(Rectangle area, Array<MovingActor> out) {
+		out.clear();
+		found.clear();
+		nextStamp();
+		int x0 = cellX(area.x), x1 = cellX(area.x + area.width);
+		int y0 = cellY(area.y), y1 = cellY(area.y + area.height);
+		for(int y = y0; y <= y1; y++) {
+			for(int x = x0; x <= x1; x++) {
+				for(int e = heads[bucket(x, y)]; e != -1; e = next[e]) {
+					int index = entries[e];
+					if(stamps[index] != stamp) {
+						stamps[index] = stamp;
+						found.add(index);
+					}
+				}
+			}
+		}
+		found.sort();
+		for(int i = 0; i < found.size; i++) {
+			out.add(actors[found.get(i)]);
+		}
+		return out;
+	}
+
+	/** @brief Finds all pairs of actors that share a cell
+	 *  @details Each pair is reported once, in the first cell both actors cover.
+	 *  @param out Array that is cleared and filled with the pairs: a, b, a, b, ...
+	 *  @return out
+	 */
+	public Array<MovingActor> pairs(Array<MovingActor> out) {
+		out.clear();
+		for(int a = 0; a < actorCount; a++) {
+			nextStamp();
+			for(int y = minCellY[a]; y <= maxCellY[a]; y++) {
+				for(int x = minCellX[a]; x <= maxCellX[a]; x++) {
+					for(int e = heads[bucket(x, y)]; e != -1; e = next[e]) {
+						int b = entries[e];
+						if(b <= a || stamps[b] == stamp) continue;
+						stamps[b] = stamp;
+						out.add(actors[a]);
+						out.add(actors[b]);
+					}
+				}
+			}
+		}
+		return out;
+	}
+
+	/** @brief Get the amount of actors in the hash
+	 *  @return size
+	 */
+	public int size() {
+		return actorCount;
+	}
+
+	private int bucket(int x, int y) {
+		return y * bucketColumns + x % bucketColumns;
+	}
+
+	private int cellX(float x) {
+		int cell = (int) Math.floor(x / cellSize);
+		return cell < 0 ? 0 : cell >= columns ? columns - 1 : cell;
+	}
+
+	private int cellY(float y) {
+		int cell = (int) Math.floor(y / cellSize);
+		return cell < 0 ? 0 : cell >= rows ? rows - 1 : cell;
+	}
+
+	private void nextStamp() {
+		stamp++;
+		if(stamp == Integer.MAX_VALUE) {
+			for(int i = 0; i < actorCount; i++) stamps[i] = 0;
+			stamp = 1;
+		}
+	}
+
+	private void growActors() {
+		int size = actors.length * 2;
+		MovingActor[] newActors = new MovingActor[size];
+		System.arraycopy(actors, 0, newActors, 0, actorCount);
+		actors = newActors;
+		minCellX = grow(minCellX, size);
+		minCellY = grow(minCellY, size);
+		maxCellX = grow(maxCellX, size);
+		maxCellY = grow(maxCellY, size);
+		stamps = grow(stamps, size);
+	}
+
+	private void growEntries() {
+		int size = entries.length * 2;
+		entries = grow(entries, size);
+		next = grow(next, size);
+	}
+
+	private static int[] grow(int[] array, int size) {
+		int[] newArray = new int[size];
+		System.arraycopy(array, 0, newArray, 0, array.length);
+		return newArray;
+	}
+}
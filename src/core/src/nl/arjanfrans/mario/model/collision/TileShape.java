@@ -0,0 +1,140 @@
+/** @file TileShape.java
+ */
+
+package nl.arjanfrans.mario.model.collision;
+
+/**
+ * @brief Collision shapes of tiles that do not fill their whole cell
+ * @details A tile picks its shape with the 'collision' property in the tileset. Every shape is a
+ * number that indexes small tables: the height of the top of the shape in each of SAMPLES
+ * columns of the cell, the height of its bottom, and flags for the sides it blocks from. The
+ * grid stores one byte per cell, so testing a shape is a lookup and no object is made per tile.
+ * Heights are in 1/SAMPLES of a tile.
+ */
+public final class TileShape {
+	/** No tile, or a tile without collision */
+	public static final byte EMPTY = 0;
+	/** The whole cell, the default for every tile */
+	public static final byte FULL = 1;
+	/** A platform that can only be landed on from above */
+	public static final byte ONE_WAY = 2;
+	/** The lower half of the cell */
+	public static final byte HALF_BOTTOM = 3;
+	/** The upper half of the cell */
+	public static final byte HALF_TOP = 4;
+	/** 45 degree slope rising to the right */
+	public static final byte SLOPE45_UP = 5;
+	/** 45 degree slope falling to the right */
+	public static final byte SLOPE45_DOWN = 6;
+	/** Lower half of a 22.5 degree slope rising to the right */
+	public static final byte SLOPE22_UP_LOW = 7;
+	/** Upper half of a 22.5 degree slope rising to the right */
+	public static final byte SLOPE22_UP_HIGH = 8;
+	/** Upper half of a 22.5 degree slope falling to the right */
+	public static final byte SLOPE22_DOWN_HIGH = 9;
+	/** Lower half of a 22.5 degree slope falling to the right */
+	public static final byte SLOPE22_DOWN_LOW = 10;
+
+	/** Columns per cell in the height tables */
+	public static final int SAMPLES = 16;
+
+	private static final String[] NAMES = { "none", "full", "oneway", "half_bottom", "half_top", "slope45_up",
+			"slope45_down", "slope22_up_low", "slope22_up_high", "slope22_down_high", "slope22_down_low" };
+
+	private static final int SIDES = 1; /**< Blocks actors that walk into it */
+	private static final int BELOW = 2; /**< Blocks actors that jump into it */
+	private static final int SLOPE = 4; /**< Actors walk up and down its top */
+	private static final int ABOVE_ONLY = 8; /**< Only blocks actors that fall onto it */
+
+	private static final byte[] FLAGS = new byte[NAMES.length];
+	private static final byte[] BOTTOM = new byte[NAMES.length];
+	private static final byte[][] TOP = new byte[NAMES.length][SAMPLES];
+
+	static {
+		define(FULL, SIDES | BELOW, 0, 0, 0);
+		define(ONE_WAY, ABOVE_ONLY, 0, SAMPLES, SAMPLES);
+		define(HALF_BOTTOM, SIDES | BELOW, 0, SAMPLES / 2, SAMPLES / 2);
+		define(HALF_TOP, SIDES | BELOW, SAMPLES / 2, SAMPLES, SAMPLES);
+		define(SLOPE45_UP, SLOPE | BELOW, 0, 1, SAMPLES);
+		define(SLOPE45_DOWN, SLOPE | BELOW, 0, SAMPLES, 1);
+		define(SLOPE22_UP_LOW, SLOPE | BELOW, 0, 1, SAMPLES / 2);
+		define(SLOPE22_UP_HIGH, SLOPE | BELOW, 0, SAMPLES / 2 + 1, SAMPLES);
+		define(SLOPE22_DOWN_HIGH, SLOPE | BELOW, 0, SAMPLES, SAMPLES / 2 + 1);
+		define(SLOPE22_DOWN_LOW, SLOPE | BELOW, 0, SAMPLES / 2, 1);
+		for(int s = 0; s < SAMPLES; s++) TOP[FULL][s] = SAMPLES;
+	}
+
+	private TileShape() {
+	}
+
+	/** Fills the top of a shape with a straight line from the first to the last column */
+	private static void define(byte shape, int flags, int bottom, int first, int last) {
+		FLAGS[shape] = (byte) flags;
+		BOTTOM[shape] = (byte) bottom;
+		for(int s = 0; s < SAMPLES; s++) {
+			TOP[shape][s] = (byte) Math.round(first + (last - first) * s / (float) (SAMPLES - 1));
+		}
+	}
+
+	/** @brief Finds the shape of a 'collision' tile property
+	 *  @param name Value of the property, null for a tile without it
+	 *  @return the shape, FULL when the name is null or unknown
+	 */
+	public static byte parse(String name) {
+		if(name == null) return FULL;
+		for(int i = 0; i < NAMES.length; i++) {
+			if(NAMES[i].equals(name)) return (byte) i;
+		}
+		return FULL;
+	}
+
+	/** @brief Get the height of the top of a shape
+	 *  @param shape of the cell
+	 *  @param x position inside the cell, between 0 and 1
+	 *  @return height between 0 and 1 above the bottom of the cell
+	 */
+	public static float top(byte shape, float x) {
+		int s = (int) (x * SAMPLES);
+		return TOP[shape][s < 0 ? 0 : s >= SAMPLES ? SAMPLES - 1 : s] / (float) SAMPLES;
+	}
+
+	/** @brief Get the height of the bottom of a shape
+	 *  @param shape of the cell
+	 *  @return height between 0 and 1 above the bottom of the cell
+	 */
+	public static float bottom(byte shape) {
+		return BOTTOM[shape] / (float) SAMPLES;
+	}
+
+	/** @brief Check if a shape stops actors that walk into its side
+	 *  @param shape of the cell
+	 *  @return true for full and half blocks
+	 */
+	public static boolean blocksSides(byte shape) {
+		return (FLAGS[shape] & SIDES) != 0;
+	}
+
+	/** @brief Check if a shape stops actors that jump into it from below
+	 *  @param shape of the cell
+	 *  @return false for one-way platforms
+	 */
+	public static boolean blocksBelow(byte shape) {
+		return (FLAGS[shape] & BELOW) != 0;
+	}
+
+	/** @brief Check if a shape stops actors that fall onto it
+	 *  @param shape of the cell
+	 *  @return true for every shape but EMPTY
+	 */
+	public static boolean blocksAbove(byte shape) {
+		return FLAGS[shape] != 0;
+	}
+
+	/** @brief Check if the top of a shape is a slope
+	 *  @param shape of the cell
+	 *  @return true for slopes, actors stand on the top below their centre
+	 */
+	public static boolean isSlope(byte shape) {
+		return (FLAGS[shape] & SLOPE) != 0;
+	}
+}
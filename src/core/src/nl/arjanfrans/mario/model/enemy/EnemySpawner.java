@@ -0,0 +1,269 @@
+/** @file EnemySpawner.java
+ */
+
+package nl.arjanfrans.mario.model.enemy;
+
+import nl.arjanfrans.mario.model.Goomba;
+import nl.arjanfrans.mario.model.World;
+import nl.arjanfrans.mario.model.WorldSnapshot;
+
+import com.badlogic.gdx.math.Rectangle;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.IntArray;
+import com.badlogic.gdx.utils.Pool;
+
+/**
+ * @brief Creates Goomba actors when the camera comes near their spawn point
+ * @details The spawn points of a level are read once and kept sorted by x. A goomba is taken
+ * from a pool and put in the world when its spawn point comes within the spawn margin of the
+ * camera. When it walks further than the despawn margin away from the camera it is taken out
+ * of the world and given back to the pool. Its spawn point can then spawn again, but only after
+ * it has left the spawn margin and the camera approaches it once more. A killed goomba does
+ * not come back. Spawning only depends on the camera, so a replay spawns the same goombas on
+ * the same ticks.
+ */
+public class EnemySpawner {
+	private static final byte WAITING = 0;
+	private static final byte ALIVE = 1;
+	private static final byte GONE = 2;
+
+	private final World world;
+	private final float spawnMargin;
+	private final float despawnMargin;
+
+	private float[] x = new float[16];
+	private float[] y = new float[16];
+	private byte[] state = new byte[16];
+	private Goomba[] live = new Goomba[16];
+	private int size = 0;
+	private final IntArray alive = new IntArray();
+	private final Array<Goomba> despawned = new Array<Goomba>();
+	private float lastFrom = Float.POSITIVE_INFINITY;
+	private float lastTo = Float.NEGATIVE_INFINITY;
+
+	private final Array<Goomba> created = new Array<Goomba>();
+	private final Pool<Goomba> pool = new Pool<Goomba>() {
+		@Override
+		protected Goomba newObject() {
+			Goomba goomba = new Goomba(world, 0, 0);
+			created.add(goomba);
+			return goomba;
+		}
+	};
+
+	/** @brief Constructor method
+	 *  @param world The world the goombas are spawned in
+	 *  @param spawnMargin Distance in tiles beside the camera at which goombas spawn
+	 *  @param despawnMargin Distance in tiles beside the camera at which goombas are despawned,
+	 *  larger than spawnMargin so a goomba is not spawned and despawned over and over
+	 */
+	public EnemySpawner(World world, float spawnMargin, float despawnMargin) {
+		this.world = world;
+		this.spawnMargin = spawnMargin;
+		this.despawnMargin = Math.max(spawnMargin, despawnMargin);
+	}
+
+	/** @brief Adds a spawn point
+	 *  @details Spawn points with the same x keep the order in which they were added.
+	 *  @param positionX x coordinate of the goomba
+	 *  @param positionY y coordinate of the goomba
+	 */
+	public void add(float positionX, float positionY) {
+		if(size == x.length) grow(size * 2);
+		int i = size++;
+		while(i > 0 && x[i - 1] > positionX) {
+			x[i] = x[i - 1];
+			y[i] = y[i - 1];
+			state[i] = state[i - 1];
+			live[i] = live[i - 1];
+			i--;
+		}
+		x[i] = positionX;
+		y[i] = positionY;
+		state[i] = WAITING;
+		live[i] = null;
+	}
+
+	/** @brief Removes all spawn points and gives the spawned goombas back to the pool
+	 *  @details The goombas are not taken out of the world, call this when the stage is replaced.
+	 */
+	public void clear() {
+		for(int i = 0; i < alive.size; i++) {
+			pool.free(live[alive.get(i)]);
+			live[alive.get(i)] = null;
+		}
+		alive.clear();
+		pool.freeAll(despawned);
+		despawned.clear();
+		size = 0;
+		lastFrom = Float.POSITIVE_INFINITY;
+		lastTo = Float.NEGATIVE_INFINITY;
+	}
+
+	/** @brief Despawns the goombas that are far away and spawns the ones the camera approaches
+	 *  @param view The area the camera shows
+	 */
+	public void update(Rectangle view) {
+		// Despawned during the last update, the world has taken them out since
+		pool.freeAll(despawned);
+		despawned.clear();
+
+		float left = view.x - despawnMargin;
+		float right = view.x + view.width + despawnMargin;
+		for(int i = alive.size - 1; i >= 0; i--) {
+			int spawn = alive.get(i);
+			Goomba goomba = live[spawn];
+			if(goomba.isDead()) {
+				// Already taken out of the world at the end of the tick it died in
+				state[spawn] = GONE;
+				pool.free(goomba);
+			}
+			else if(goomba.getX() + goomba.getWidth() < left || goomba.getX() > right) {
+				world.removeActor(goomba);
+				state[spawn] = WAITING;
+				despawned.add(goomba);
+			}
+			else {
+				continue;
+			}
+			live[spawn] = null;
+			alive.removeIndex(i);
+		}
+
+		float from = view.x - spawnMargin;
+		float to = view.x + view.width + spawnMargin;
+		for(int i = indexAfter(from); i < size && x[i] <= to; i++) {
+			// Only spawn points that were outside the margin during the last update
+			if(state[i] != WAITING || (x[i] > lastFrom && x[i] <= lastTo)) continue;
+			Goomba goomba = pool.obtain();
+			goomba.setPosition(x[i], y[i]);
+			live[i] = goomba;
+			state[i] = ALIVE;
+			alive.add(i);
+			world.addActor(goomba);
+		}
+		lastFrom = from;
+		lastTo = to;
+	}
+
+	/** @brief Writes the spawn points and which goombas are alive into a snapshot
+	 *  @details The goombas themselves are actors, the world writes them.
+	 *  @param snapshot WorldSnapshot object
+	 */
+	public void write(WorldSnapshot snapshot) {
+		snapshot.writeInt(size);
+		snapshot.writeBytes(state, size);
+		snapshot.writeFloat(lastFrom);
+		snapshot.writeFloat(lastTo);
+		snapshot.writeInt(alive.size);
+		for(int i = 0; i < alive.size; i++) {
+			snapshot.writeInt(alive.get(i));
+			snapshot.writeBoolean(live[alive.get(i)].isDead());
+		}
+	}
+
+	/** @brief Puts the spawn points back in the state of a snapshot
+	 *  @details The goombas must already be out of the world. A spawn point that has a goomba
+	 *  now and in the snapshot keeps it, the other goombas go back to the pool and goombas for
+	 *  the rest are taken from the pool. getLive() finds them, so the world can give them their
+	 *  state and put them back.
+	 *  @param snapshot WorldSnapshot object
+	 */
+	public void read(WorldSnapshot snapshot) {
+		if(snapshot.readInt() != size) throw new IllegalArgumentException("Snapshot is of another level");
+		pool.freeAll(despawned);
+		despawned.clear();
+
+		snapshot.readBytes(state, size);
+		lastFrom = snapshot.readFloat();
+		lastTo = snapshot.readFloat();
+		int previous = alive.size;
+		int count = snapshot.readInt();
+		for(int i = 0; i < count; i++) {
+			int spawn = snapshot.readInt();
+			boolean dead = snapshot.readBoolean();
+			// Spawn points that stay alive are listed twice until the old entries are dropped below
+			alive.add(spawn);
+			if(live[spawn] == null) {
+				live[spawn] = pool.obtain();
+				live[spawn].setPosition(x[spawn], y[spawn]);
+			}
+			// Died during the last tick, freed by the next update
+			if(dead) live[spawn].setDead(true);
+		}
+		for(int i = 0; i < previous; i++) {
+			int spawn = alive.get(i);
+			if(state[spawn] == ALIVE) continue;
+			pool.free(live[spawn]);
+			live[spawn] = null;
+		}
+		if(previous > 0) alive.removeRange(0, previous - 1);
+	}
+
+	/** @brief Get the goomba of a spawn point
+	 *  @param spawn index of the spawn point
+	 *  @return Goomba object, or null when the spawn point has no goomba in the world
+	 */
+	public Goomba getLive(int spawn) {
+		return live[spawn];
+	}
+
+	/** @brief Find the spawn point of a goomba
+	 *  @param goomba Goomba object
+	 *  @return index of its spawn point, or -1 when the spawner did not spawn it
+	 */
+	public int spawnOf(Goomba goomba) {
+		for(int i = 0; i < alive.size; i++) {
+			if(live[alive.get(i)] == goomba) return alive.get(i);
+		}
+		return -1;
+	}
+
+	/** @brief Get the amount of spawn points
+	 *  @return size
+	 */
+	public int size() {
+		return size;
+	}
+
+	/** @brief Get the amount of goombas that are in the world
+	 *  @return amount of spawned goombas
+	 */
+	public int aliveSize() {
+		return alive.size;
+	}
+
+	/** @brief Disposes every goomba the spawner has created
+	 */
+	public void dispose() {
+		for(int i = 0; i < created.size; i++) {
+			created.get(i).dispose();
+		}
+		created.clear();
+	}
+
+	private int indexAfter(float minX) {
+		int low = 0, high = size;
+		while(low < high) {
+			int mid = (low + high) >>> 1;
+			if(x[mid] > minX) high = mid;
+			else low = mid + 1;
+		}
+		return low;
+	}
+
+	private void grow(int capacity) {
+		float[] newX = new float[capacity];
+		float[] newY = new float[capacity];
+		byte[] newState = new byte[capacity];
+		Goomba[] newLive = new Goomba[capacity];
+		System.arraycopy(x, 0, newX, 0, size);
+		System.arraycopy(y, 0, newY, 0, size);
+		System.arraycopy(state, 0, newState, 0, size);
+		System.arraycopy(live, 0, newLive, 0, size);
+		x = newX;
+		y = newY;
+		state = newState;
+		live = newLive;
+	}
+}
@@ -0,0 +1,64 @@
+/** @file GoombaLayer.java
+ */
+
+package nl.arjanfrans.mario.model.enemy;
+
+import nl.arjanfrans.mario.graphics.GoombaAnimation;
+import nl.arjanfrans.mario.model.MovingActor.State;
+
+import com.badlogic.gdx.graphics.Camera;
+import com.badlogic.gdx.graphics.g2d.Batch;
+import com.badlogic.gdx.graphics.g2d.TextureRegion;
+import com.badlogic.gdx.math.Vector2;
+import com.badlogic.gdx.scenes.scene2d.Actor;
+import com.badlogic.gdx.scenes.scene2d.Touchable;
+
+/**
+ * @brief Single actor that draws all goombas of a GoombaStore
+ * @details The layer is put on the stage in place of the Goomba actors. It does nothing when the
+ * stage acts, the world updates the store itself. Only the goombas the camera can see are drawn,
+ * all with one shared animation.
+ */
+public class GoombaLayer extends Actor {
+	private final GoombaStore store;
+	private final GoombaAnimation gfx;
+
+	/** @brief Constructor method
+	 *  @param store The goombas to draw
+	 *  @param gfx Animations shared by all goombas
+	 */
+	public GoombaLayer(GoombaStore store, GoombaAnimation gfx) {
+		this.store = store;
+		this.gfx = gfx;
+		this.setTouchable(Touchable.disabled);
+	}
+
+	/** @brief Draws the visible goombas
+	 *  @param batch The texture region where the goombas are being drawn
+	 *  @param parentAlpha Not used
+	 */
+	@Override
+	public void draw(Batch batch, float parentAlpha) {
+		Camera camera = getStage().getCamera();
+		float left = camera.position.x - camera.viewportWidth / 2;
+		float right = camera.position.x + camera.viewportWidth / 2;
+
+		for(int i = store.indexAfter(left - store.getWidth()); i < store.size() && store.getX(i) < right; i++) {
+			float x = store.getX(i), y = store.getY(i);
+			if(store.getState(i) == GoombaStore.DYING) {
+				TextureRegion frame = gfx.getAnimation(State.Dying).getKeyFrame(store.getStateTime(i));
+				Vector2 size = gfx.getDimensions(State.Dying);
+				batch.draw(frame, x, y, size.x, size.y);
+			}
+			else {
+				TextureRegion frame = gfx.getAnimation(State.Walking).getKeyFrame(store.getStateTime(i));
+				if(store.isFacesRight(i)) {
+					batch.draw(frame, x, y, store.getWidth(), store.getHeight());
+				}
+				else {
+					batch.draw(frame, x + store.getWidth(), y, -store.getWidth(), store.getHeight());
+				}
+			}
+		}
+	}
+}
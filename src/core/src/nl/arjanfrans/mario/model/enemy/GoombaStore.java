@@ -0,0 +1,737 @@
+/** @file GoombaStore.java
+ */
+
+package nl.arjanfrans.mario.model.enemy;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+
+import nl.arjanfrans.mario.model.FixedPoint;
+import nl.arjanfrans.mario.model.MovingActor;
+import nl.arjanfrans.mario.model.StaticActor;
+import nl.arjanfrans.mario.model.World;
+import nl.arjanfrans.mario.model.WorldSnapshot;
+import nl.arjanfrans.mario.model.collision.CollisionGrid;
+import nl.arjanfrans.mario.model.collision.TileShape;
+
+import com.badlogic.gdx.math.Rectangle;
+
+/**
+ * @brief Keeps all goombas of a world in primitive arrays and updates them in one loop
+ * @details This is the data oriented alternative to one Goomba actor per enemy. Every goomba
+ * is an index into parallel arrays of position, velocity, state, direction and state time. The
+ * rules are the ones of Goomba: a sleeping goomba wakes when it enters the view, walks in its
+ * direction, turns at walls, half blocks and bricks, walks up and down slopes, lands on one-way
+ * platforms, and dies when it falls out of the level. Only turning at other goombas is
+ * simplified, see turnAtGoombas().
+ * After every update the goombas are sorted on x, so neighbours and the goombas near Mario are
+ * found with a binary search. Adding goombas in x order keeps that sort cheap.
+ *
+ * Moving a goomba only reads the world, the collision grid and the static actors, and only
+ * writes that goomba's own entries. With more than one thread the goombas are therefore split
+ * into strips of the map, consecutive in x order, that a ForkJoinPool moves at the same time.
+ * Only the goombas in the part of the level the world keeps loaded are moved, so the grid never
+ * has to load a chunk on one of the threads.
+ * Everything that involves two goombas, sorting, turning at each other and removing the dead
+ * ones, runs afterwards on the calling thread, as does Mario stomping them during the stage
+ * act. A parallel update gives bit-identical results to a serial one. When the world does its
+ * physics in fixed point, the goombas move on the same subpixel grid as the actors.
+ */
+public class GoombaStore {
+	public static final byte SLEEPING = 0; /**< Not woken yet, only falls */
+	public static final byte WALKING = 1; /**< Walks in its direction */
+	public static final byte DYING = 2; /**< Trampled, removed after TRAMPLE_TIME */
+	private static final byte DEAD = 3;
+
+	public static final float MAX_VELOCITY = 3f; /**< Walking speed in tiles per second */
+	public static final float DAMPING = 0.87f; /**< Damping of the x velocity per 1/MovingActor.DAMPING_RATE of a second */
+	public static final float TRAMPLE_TIME = 0.5f; /**< Time a trampled goomba stays visible */
+	private static final float TRAMPLE_DROP = 2 * 1/16f;
+	private static final float FALL_LIMIT = -3f;
+	/** Below this amount of goombas the update stays on the calling thread, even with more threads */
+	public static final int MIN_PARALLEL_GOOMBAS = 2048;
+
+	private final World world;
+	private final float width;
+	private final float height;
+
+	private float[] x = new float[16];
+	private float[] y = new float[16];
+	private float[] vx = new float[16];
+	private float[] vy = new float[16];
+	private float[] stateTime = new float[16];
+	private byte[] state = new byte[16];
+	private boolean[] left = new boolean[16];
+	private boolean[] onSlope = new boolean[16];
+	private int size = 0;
+	private boolean sorted = true;
+
+	private final ForkJoinPool pool;
+	private final Strip[] strips;
+	private final ForkJoinTask<Void> moveStrips;
+	private Rectangle tickView;
+	private float tickDelta;
+	private CollisionGrid tickGrid;
+
+	/** @brief Constructor method
+	 *  @param world The world in which the goombas exist
+	 *  @param width Width of one goomba in tiles
+	 *  @param height Height of one goomba in tiles
+	 */
+	public GoombaStore(World world, float width, float height) {
+		this(world, width, height, 1);
+	}
+
+	/** @brief Constructor method
+	 *  @param world The world in which the goombas exist
+	 *  @param width Width of one goomba in tiles
+	 *  @param height Height of one goomba in tiles
+	 *  @param threads Amount of threads that move the goombas, 1 to move them on the calling thread
+	 */
+	public GoombaStore(World world, float width, float height, int threads) {
+		this.world = world;
+		this.width = width;
+		this.height = height;
+		if(threads > 1) {
+			pool = new ForkJoinPool(threads);
+			// A few strips per thread, so a thread that finishes early can take over work
+			strips = new Strip[threads * 4];
+			for(int i = 0; i < strips.length; i++) strips[i] = new Strip();
+			moveStrips = new RecursiveAction() {
+				private static final long serialVersionUID = 1L;
+
+				@Override
+				protected void compute() {
+					for(Strip strip : strips) strip.reinitialize();
+					invokeAll(strips);
+				}
+			};
+		}
+		else {
+			pool = null;
+			strips = null;
+			moveStrips = null;
+		}
+	}
+
+	/** @brief Adds a sleeping goomba that faces left
+	 *  @param positionX x coordinate of the goomba
+	 *  @param positionY y coordinate of the goomba
+	 */
+	public void add(float positionX, float positionY) {
+		if(size == x.length) grow(size * 2);
+		x[size] = positionX;
+		y[size] = positionY;
+		vx[size] = 0;
+		vy[size] = 0;
+		stateTime[size] = 0;
+		state[size] = SLEEPING;
+		left[size] = true;
+		onSlope[size] = false;
+		if(size > 0 && positionX < x[size - 1]) sorted = false;
+		size++;
+	}
+
+	/** @brief Removes all goombas
+	 */
+	public void clear() {
+		size = 0;
+		sorted = true;
+	}
+
+	/** @brief Writes all goombas into a snapshot
+	 *  @param snapshot WorldSnapshot object
+	 */
+	public void write(WorldSnapshot snapshot) {
+		snapshot.writeInt(size);
+		snapshot.writeBoolean(sorted);
+		snapshot.writeFloats(x, size);
+		snapshot.writeFloats(y, size);
+		snapshot.writeFloats(vx, size);
+		snapshot.writeFloats(vy, size);
+		snapshot.writeFloats(stateTime, size);
+		snapshot.writeBytes(state, size);
+		for(int i = 0; i < size; i++) snapshot.writeBoolean(left[i]);
+		for(int i = 0; i < size; i++) snapshot.writeBoolean(onSlope[i]);
+	}
+
+	/** @brief Replaces all goombas with the goombas of a snapshot
+	 *  @param snapshot WorldSnapshot object
+	 */
+	public void read(WorldSnapshot snapshot) {
+		int count = snapshot.readInt();
+		if(count > x.length) grow(count);
+		size = count;
+		sorted = snapshot.readBoolean();
+		snapshot.readFloats(x, size);
+		snapshot.readFloats(y, size);
+		snapshot.readFloats(vx, size);
+		snapshot.readFloats(vy, size);
+		snapshot.readFloats(stateTime, size);
+		snapshot.readBytes(state, size);
+		for(int i = 0; i < size; i++) left[i] = snapshot.readBoolean();
+		for(int i = 0; i < size; i++) onSlope[i] = snapshot.readBoolean();
+	}
+
+	/** @brief Advances the goombas in the loaded part of the level by one tick of the world clock
+	 *  @details Goombas outside it hold still, like actors in a chunk that sleeps, so moving
+	 *  them never needs a chunk of the level that is not loaded.
+	 *  @param view The area the camera shows, goombas in it are woken
+	 *  @param left Goombas with a larger x coordinate are moved
+	 *  @param right Goombas with an x coordinate up to this one are moved
+	 */
+	public void update(Rectangle view, float left, float right) {
+		float delta = world.getClock().getDelta();
+		if(delta == 0) return;
+		CollisionGrid grid = world.getCollisionGrid();
+		if(!sorted) sortByX();
+		int first = indexAfter(left), count = indexAfter(right) - first;
+
+		if(pool != null && count >= MIN_PARALLEL_GOOMBAS) {
+			tickView = view;
+			tickDelta = delta;
+			tickGrid = grid;
+			for(int i = 0; i < strips.length; i++) {
+				strips[i].from = first + (int) ((long) count * i / strips.length);
+				strips[i].to = first + (int) ((long) count * (i + 1) / strips.length);
+			}
+			moveStrips.reinitialize();
+			pool.invoke(moveStrips);
+		}
+		else {
+			move(first, first + count, view, delta, grid);
+		}
+
+		sortByX();
+		turnAtGoombas();
+		removeDead();
+	}
+
+	/** @brief Wakes, moves and counts down the goombas in a range of indices
+	 *  @details Only touches the entries of the goombas in the range, so ranges can be moved in parallel.
+	 */
+	private void move(int from, int to, Rectangle view, float delta, CollisionGrid grid) {
+		for(int i = from; i < to; i++) {
+			if(state[i] == DYING) {
+				stateTime[i] += delta;
+				if(stateTime[i] >= TRAMPLE_TIME) state[i] = DEAD;
+				continue;
+			}
+			if(state[i] == SLEEPING && overlaps(view.x, view.y, view.width, view.height, x[i], y[i], width, height)) {
+				state[i] = WALKING;
+			}
+			applyPhysics(i, delta, grid);
+		}
+	}
+
+	/** @brief Moves one goomba, the same way MovingActor.applyPhysics() moves a Goomba
+	 */
+	private void applyPhysics(int i, float delta, CollisionGrid grid) {
+		if(world.getFixedPoint() != null) {
+			applyFixedPhysics(i, delta, grid, world.getFixedPoint());
+			return;
+		}
+		stateTime[i] += delta;
+		if(state[i] == WALKING) vx[i] = left[i] ? -MAX_VELOCITY : MAX_VELOCITY;
+		vy[i] += World.GRAVITY * delta;
+		if(Math.abs(vx[i]) < 1) vx[i] = 0;
+
+		int steps = 1;
+		float distance = Math.max(Math.abs(vx[i]), Math.abs(vy[i])) * delta;
+		if(distance > 1) steps = Math.min(MovingActor.MAX_SUBSTEPS, (int) Math.ceil(distance));
+		float stepTime = delta / steps;
+
+		for(int s = 0; s < steps; s++) {
+			float dx = vx[i] * stepTime;
+			if(blockedX(i, dx, grid)) left[i] = !left[i];
+			float dy = vy[i] * stepTime;
+			if(!landedY(i, dy, grid)) y[i] += dy;
+			x[i] += dx;
+		}
+
+		vx[i] *= MovingActor.dampingPerTick(DAMPING, delta);
+		if(y[i] < FALL_LIMIT) state[i] = DEAD;
+	}
+
+	/** @brief Moves one goomba with subpixel integers, like MovingActor.applyFixedPhysics()
+	 *  @details The collision tests get the exact float of every integer, the velocity is
+	 *  stored as the exact float of its subpixels per tick.
+	 */
+	private void applyFixedPhysics(int i, float delta, CollisionGrid grid, FixedPoint fixed) {
+		stateTime[i] += delta;
+		if(state[i] == WALKING) vx[i] = left[i] ? -MAX_VELOCITY : MAX_VELOCITY;
+		int fx = fixed.toSubpixelsPerTick(vx[i]);
+		int fy = fixed.toSubpixelsPerTick(vy[i]) + fixed.getGravity();
+		if(fixed.isSlow(fx)) fx = 0;
+
+		int distance = Math.max(Math.abs(fx), Math.abs(fy));
+		int steps = distance <= FixedPoint.ONE ? 1 : Math.min(MovingActor.MAX_SUBSTEPS, (distance + FixedPoint.ONE - 1) / FixedPoint.ONE);
+
+		for(int s = 0; s < steps; s++) {
+			// The substeps add up to exactly the whole move
+			int dx = fx * (s + 1) / steps - fx * s / steps;
+			int dy = fy * (s + 1) / steps - fy * s / steps;
+			x[i] = FixedPoint.toFloat(FixedPoint.toFixed(x[i]));
+			y[i] = FixedPoint.toFloat(FixedPoint.toFixed(y[i]));
+			if(blockedX(i, FixedPoint.toFloat(dx), grid)) left[i] = !left[i];
+			boolean landed = landedY(i, FixedPoint.toFloat(dy), grid);
+			if(landed && dy != 0) fy = 0;
+			// Landing can place the goomba off the grid, the move itself is exact
+			x[i] = FixedPoint.toFloat(FixedPoint.toFixed(x[i]) + dx);
+			y[i] = FixedPoint.toFloat(FixedPoint.toFixed(y[i]) + (landed ? 0 : dy));
+		}
+
+		vx[i] = fixed.toTilesPerSecond(fixed.damp(fx, DAMPING));
+		vy[i] = fixed.toTilesPerSecond(fy);
+		if(y[i] < FALL_LIMIT) state[i] = DEAD;
+	}
+
+	/** @brief Sweeps a goomba along x against tiles, half blocks and static actors
+	 *  @details Like MovingActor.collisionX(), a goomba on a slope walks onto a tile next to the
+	 *  top of the slope.
+	 *  @return Whether something is in the way
+	 */
+	private boolean blockedX(int i, float dx, CollisionGrid grid) {
+		float x0 = x[i], y0 = y[i];
+		int start, end;
+		if(dx > 0) {
+			start = (int) (x0 + width);
+			end = (int) (x0 + width + dx);
+		}
+		else {
+			start = (int) x0;
+			end = (int) (x0 + dx);
+		}
+		float destX = x0 + dx;
+		float sweptX = Math.min(x0, destX);
+		float sweptWidth = width + Math.abs(dx);
+
+		int columns = Math.abs(end - start);
+		int dir = end >= start ? 1 : -1;
+		for(int c = 0; c <= columns; c++) {
+			int cx = start + c * dir;
+			for(int cy = (int) y0; cy <= (int) (y0 + height); cy++) {
+				if(!grid.isSolid(cx, cy)) continue;
+				// Walking up a slope onto the tile next to its top
+				if(onSlope[i] && cy + 1 <= y0 + MovingActor.SLOPE_STEP) continue;
+				if(c == columns ? overlaps(destX, y0, width, height, cx, cy, 1, 1)
+						: (overlaps(sweptX, y0, sweptWidth, height, cx, cy, 1, 1) && distanceX(dx, x0, cx, 1) >= 0)) {
+					return true;
+				}
+			}
+		}
+
+		// Half blocks are walls as well, slopes and one-way platforms are not
+		if(grid.hasPartialShapes()) {
+			for(int cx = Math.min(start, end); cx <= Math.max(start, end); cx++) {
+				for(int cy = (int) y0; cy <= (int) (y0 + height); cy++) {
+					byte shape = grid.getShape(cx, cy);
+					if(shape == TileShape.FULL || !TileShape.blocksSides(shape)) continue;
+					float bottom = TileShape.bottom(shape);
+					if(overlaps(sweptX, y0, sweptWidth, height, cx, cy + bottom, 1, TileShape.top(shape, 0) - bottom)
+							&& distanceX(dx, x0, cx, 1) >= 0) {
+						return true;
+					}
+				}
+			}
+		}
+
+		int lastX = floor(sweptX + sweptWidth), firstY = floor(y0) - 1, lastY = floor(y0 + height);
+		for(int cx = floor(sweptX); cx <= lastX; cx++) {
+			for(int cy = firstY; cy <= lastY; cy++) {
+				StaticActor a = grid.getOccupant(cx, cy);
+				if(a == null || a.isDestroyed()) continue;
+				if(overlaps(destX, y0, width, height, a.getX(), a.getY(), a.getWidth(), a.getHeight())
+						|| (overlaps(sweptX, y0, sweptWidth, height, a.getX(), a.getY(), a.getWidth(), a.getHeight())
+						&& distanceX(dx, x0, a.getX(), a.getWidth()) >= 0)) {
+					return true;
+				}
+			}
+		}
+		return false;
+	}
+
+	/** @brief Sweeps a goomba along y and places it against the nearest tile, shape or static actor
+	 *  @details Shapes that do not fill their cell are looked at the way MovingActor.collisionY()
+	 *  does, when no static actor is in the way.
+	 *  @return Whether the goomba was placed, in that case its y velocity is zero
+	 */
+	private boolean landedY(int i, float dy, CollisionGrid grid) {
+		float x0 = x[i], y0 = y[i];
+		int start, end;
+		if(dy > 0) {
+			start = (int) (y0 + height);
+			end = (int) (y0 + height + dy);
+		}
+		else {
+			start = (int) y0;
+			end = (int) (y0 + dy);
+		}
+		float destY = y0 + dy;
+		float sweptY = Math.min(y0, destY);
+		float sweptHeight = height + Math.abs(dy);
+
+		onSlope[i] = false;
+		boolean hit = false;
+		float nearest = 0;
+		float snap = 0;
+		int tileY = 0;
+		int rows = Math.abs(end - start);
+		int dir = end >= start ? 1 : -1;
+		tiles:
+		for(int r = 0; r <= rows; r++) {
+			int cy = start + r * dir;
+			for(int cx = (int) x0; cx <= (int) (x0 + width); cx++) {
+				if(!grid.isSolid(cx, cy)) continue;
+				if(r == rows ? overlaps(x0, destY, width, height, cx, cy, 1, 1)
+						: (overlaps(x0, sweptY, width, sweptHeight, cx, cy, 1, 1) && distanceY(dy, y0, cy, 1) >= 0)) {
+					hit = true;
+					nearest = distanceY(dy, y0, cy, 1);
+					snap = dy > 0 ? cy - height : cy + 1;
+					tileY = cy;
+					break tiles;
+				}
+			}
+		}
+
+		boolean hitTile = hit, hitActor = false;
+		// A static actor wins from a tile at the same distance, like in MovingActor
+		int lastX = floor(x0 + width), firstY = floor(sweptY) - 1, lastY = floor(sweptY + sweptHeight);
+		for(int cx = floor(x0); cx <= lastX; cx++) {
+			for(int cy = firstY; cy <= lastY; cy++) {
+				StaticActor a = grid.getOccupant(cx, cy);
+				if(a == null || a.isDestroyed()) continue;
+				float d = distanceY(dy, y0, a.getY(), a.getHeight());
+				if(overlaps(x0, destY, width, height, a.getX(), a.getY(), a.getWidth(), a.getHeight())
+						|| (overlaps(x0, sweptY, width, sweptHeight, a.getX(), a.getY(), a.getWidth(), a.getHeight()) && d >= 0)) {
+					if(!hit || d <= nearest) {
+						hit = true;
+						hitActor = true;
+						nearest = d;
+						snap = dy > 0 ? a.getOriginY() - height : a.getY() + a.getHeight();
+					}
+				}
+			}
+		}
+
+		// Shapes that do not fill their cell and are nearer than the tile
+		if(!hitActor && grid.hasPartialShapes()) {
+			if(dy > 0) {
+				float ceiling = shapeCeiling(x0, y0, dy, start, end, grid);
+				if(ceiling != Float.POSITIVE_INFINITY && (!hitTile || ceiling < tileY)) {
+					hit = true;
+					snap = ceiling - height;
+				}
+			}
+			else {
+				float floor = shapeFloor(i, x0, y0, dy, start, end, grid);
+				if(floor != Float.NEGATIVE_INFINITY && (!hitTile || floor > tileY + 1)) {
+					hit = true;
+					snap = floor;
+				}
+				else {
+					// The goomba lands on a tile, not on the shape that was found
+					onSlope[i] = false;
+				}
+			}
+		}
+
+		if(!hit) return false;
+		y[i] = snap;
+		vy[i] = 0;
+		return true;
+	}
+
+	/** @brief Finds the highest top of a shape that a goomba falls onto, like MovingActor.shapeFloor()
+	 *  @details Sets whether the goomba stands on a slope when it lands on that top.
+	 *  @return the y coordinate to land on, or negative infinity
+	 */
+	private float shapeFloor(int i, float x0, float y0, float dy, int start, int end, CollisionGrid grid) {
+		float floor = Float.NEGATIVE_INFINITY;
+		float destY = y0 + dy;
+		float centre = x0 + width / 2;
+		for(int cx = (int) x0; cx <= (int) (x0 + width); cx++) {
+			if(x0 >= cx + 1 || x0 + width <= cx) continue;
+			for(int cy = end; cy <= start; cy++) {
+				byte shape = grid.getShape(cx, cy);
+				if(shape == TileShape.FULL || !TileShape.blocksAbove(shape)) continue;
+				float surface;
+				if(TileShape.isSlope(shape)) {
+					if(centre < cx || centre >= cx + 1) continue;
+					surface = cy + TileShape.top(shape, centre - cx);
+					if(y0 < surface - MovingActor.SLOPE_STEP) continue;
+				}
+				else {
+					surface = cy + TileShape.top(shape, 0);
+					if(y0 < surface) continue;
+				}
+				if(destY < surface && surface > floor) {
+					floor = surface;
+					onSlope[i] = TileShape.isSlope(shape);
+				}
+			}
+		}
+		return floor;
+	}
+
+	/** @brief Finds the lowest bottom of a shape that a goomba moves up into, like MovingActor.shapeCeiling()
+	 *  @return the y coordinate the top of the goomba stops at, or positive infinity
+	 */
+	private float shapeCeiling(float x0, float y0, float dy, int start, int end, CollisionGrid grid) {
+		float ceiling = Float.POSITIVE_INFINITY;
+		for(int cx = (int) x0; cx <= (int) (x0 + width); cx++) {
+			if(x0 >= cx + 1 || x0 + width <= cx) continue;
+			for(int cy = start; cy <= end; cy++) {
+				byte shape = grid.getShape(cx, cy);
+				if(shape == TileShape.FULL || !TileShape.blocksBelow(shape)) continue;
+				float edge = cy + TileShape.bottom(shape);
+				if(y0 + height <= edge && y0 + dy + height > edge && edge < ceiling) ceiling = edge;
+			}
+		}
+		return ceiling;
+	}
+
+	/** @brief Turns the goombas that walk into another goomba
+	 *  @details A goomba turns when it overlaps a goomba that is ahead of it in its walking
+	 *  direction. Two goombas that meet turn both, like Goomba.collisionWithCreature() does.
+	 *  A goomba that is touched from behind keeps walking, so a crowd spreads out instead of
+	 *  every goomba turning once for every goomba it overlaps. The goombas are sorted on x, so
+	 *  the search stops at the first goomba that is further away than a width.
+	 */
+	private void turnAtGoombas() {
+		for(int i = 0; i < size; i++) {
+			if(state[i] >= DYING) continue;
+			if(left[i]) {
+				for(int j = i - 1; j >= 0 && x[j] > x[i] - width; j--) {
+					if(state[j] < DYING && y[i] < y[j] + height && y[i] + height > y[j]) {
+						left[i] = false;
+						break;
+					}
+				}
+			}
+			else {
+				for(int j = i + 1; j < size && x[j] < x[i] + width; j++) {
+					if(state[j] < DYING && y[i] < y[j] + height && y[i] + height > y[j]) {
+						left[i] = true;
+						break;
+					}
+				}
+			}
+		}
+	}
+
+	/** @brief Insertion sort on x, cheap because the order hardly changes between ticks
+	 */
+	private void sortByX() {
+		for(int i = 1; i < size; i++) {
+			if(x[i] >= x[i - 1]) continue;
+			float kx = x[i], ky = y[i], kvx = vx[i], kvy = vy[i], kTime = stateTime[i];
+			byte kState = state[i];
+			boolean kLeft = left[i], kOnSlope = onSlope[i];
+			int j = i - 1;
+			while(j >= 0 && x[j] > kx) {
+				move(j, j + 1);
+				j--;
+			}
+			j++;
+			x[j] = kx;
+			y[j] = ky;
+			vx[j] = kvx;
+			vy[j] = kvy;
+			stateTime[j] = kTime;
+			state[j] = kState;
+			left[j] = kLeft;
+			onSlope[j] = kOnSlope;
+		}
+		sorted = true;
+	}
+
+	/** @brief Removes dead goombas, keeping the others in order
+	 */
+	private void removeDead() {
+		int kept = 0;
+		for(int i = 0; i < size; i++) {
+			if(state[i] == DEAD) continue;
+			if(kept != i) move(i, kept);
+			kept++;
+		}
+		size = kept;
+	}
+
+	private void move(int from, int to) {
+		x[to] = x[from];
+		y[to] = y[from];
+		vx[to] = vx[from];
+		vy[to] = vy[from];
+		stateTime[to] = stateTime[from];
+		state[to] = state[from];
+		left[to] = left[from];
+		onSlope[to] = onSlope[from];
+	}
+
+	/** @brief Finds the next goomba that touches an area
+	 *  @param area Rectangle in world coordinates, for example Mario's
+	 *  @param from Index to start searching at, 0 for the first call and the last result + 1 after
+	 *  @return index of a walking or sleeping goomba that overlaps the area, or -1
+	 */
+	public int findTouching(Rectangle area, int from) {
+		if(!sorted) sortByX();
+		for(int i = Math.max(from, indexAfter(area.x - width)); i < size && x[i] < area.x + area.width; i++) {
+			if(state[i] < DYING && overlaps(area.x, area.y, area.width, area.height, x[i], y[i], width, height)) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	/** @brief Binary search on the sorted x coordinates
+	 *  @param minX x coordinate
+	 *  @return index of the first goomba with an x coordinate larger than minX
+	 */
+	public int indexAfter(float minX) {
+		int low = 0, high = size;
+		while(low < high) {
+			int mid = (low + high) >>> 1;
+			if(x[mid] > minX) high = mid;
+			else low = mid + 1;
+		}
+		return low;
+	}
+
+	/** @brief Tramples a goomba, it stays visible for TRAMPLE_TIME and is then removed
+	 *  @param i index of the goomba
+	 */
+	public void trample(int i) {
+		state[i] = DYING;
+		vx[i] = 0;
+		vy[i] = 0;
+		y[i] -= TRAMPLE_DROP;
+		stateTime[i] = 0;
+	}
+
+	/** @brief Wakes a goomba, so it starts walking without being seen first
+	 *  @param i index of the goomba
+	 */
+	public void wake(int i) {
+		if(state[i] == SLEEPING) state[i] = WALKING;
+	}
+
+	/** @brief Stops the threads of a parallel store
+	 */
+	public void dispose() {
+		if(pool != null) pool.shutdown();
+	}
+
+	/** @brief Get the amount of goombas
+	 *  @return size
+	 */
+	public int size() {
+		return size;
+	}
+
+	/** @brief Get the x coordinate of a goomba
+	 *  @param i index of the goomba
+	 */
+	public float getX(int i) {
+		return x[i];
+	}
+
+	/** @brief Get the y coordinate of a goomba
+	 *  @param i index of the goomba
+	 */
+	public float getY(int i) {
+		return y[i];
+	}
+
+	/** @brief Get the state of a goomba: SLEEPING, WALKING or DYING
+	 *  @param i index of the goomba
+	 */
+	public byte getState(int i) {
+		return state[i];
+	}
+
+	/** @brief Get the time a goomba has been in its state, drives the animation
+	 *  @param i index of the goomba
+	 */
+	public float getStateTime(int i) {
+		return stateTime[i];
+	}
+
+	/** @brief Whether a goomba is drawn facing right
+	 *  @param i index of the goomba
+	 *  @return true for sleeping goombas and goombas walking right, like Goomba.isFacesRight()
+	 */
+	public boolean isFacesRight(int i) {
+		return state[i] == SLEEPING || !left[i];
+	}
+
+	/** @brief Get the width of every goomba
+	 */
+	public float getWidth() {
+		return width;
+	}
+
+	/** @brief Get the height of every goomba
+	 */
+	public float getHeight() {
+		return height;
+	}
+
+	private float distanceX(float dx, float x0, float rx, float rw) {
+		if(dx > 0) return rx - (x0 + width);
+		return x0 - (rx + rw);
+	}
+
+	private float distanceY(float dy, float y0, float ry, float rh) {
+		if(dy > 0) return ry - (y0 + height);
+		return y0 - (ry + rh);
+	}
+
+	private static int floor(float value) {
+		int i = (int) value;
+		return value < i ? i - 1 : i;
+	}
+
+	private static boolean overlaps(float ax, float ay, float aw, float ah, float bx, float by, float bw, float bh) {
+		return ax < bx + bw && ax + aw > bx && ay < by + bh && ay + ah > by;
+	}
+
+	private void grow(int capacity) {
+		x = grow(x, capacity);
+		y = grow(y, capacity);
+		vx = grow(vx, capacity);
+		vy = grow(vy, capacity);
+		stateTime = grow(stateTime, capacity);
+		byte[] newState = new byte[capacity];
+		System.arraycopy(state, 0, newState, 0, size);
+		state = newState;
+		boolean[] newLeft = new boolean[capacity];
+		System.arraycopy(left, 0, newLeft, 0, size);
+		left = newLeft;
+		boolean[] newOnSlope = new boolean[capacity];
+		System.arraycopy(onSlope, 0, newOnSlope, 0, size);
+		onSlope = newOnSlope;
+	}
+
+	private static float[] grow(float[] array, int capacity) {
+		float[] newArray = new float[capacity];
+		System.arraycopy(array, 0, newArray, 0, array.length);
+		return newArray;
+	}
+
+	/**
+	 * @brief Part of the map, a range of goombas in x order, moved by one task
+	 */
+	private class Strip extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+
+		int from;
+		int to;
+
+		@Override
+		protected void compute() {
+			move(from, to, tickView, tickDelta, tickGrid);
+		}
+	}
+}
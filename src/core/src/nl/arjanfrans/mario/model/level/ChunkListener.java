@@ -0,0 +1,21 @@
+/** @file ChunkListener.java
+ */
+
+package nl.arjanfrans.mario.model.level;
+
+/**
+ * @brief Builds what it needs from the chunks of a level while a LevelStreamer loads and evicts them
+ */
+public interface ChunkListener {
+	/** @brief Called when a chunk becomes resident
+	 *  @details Called on the thread that updates the streamer, after the listeners that were
+	 *  added before this one.
+	 *  @param chunk LevelChunk object with the cells of the chunk
+	 */
+	void chunkLoaded(LevelChunk chunk);
+
+	/** @brief Called when a chunk is evicted, what was built from it can be dropped
+	 *  @param chunk index of the chunk
+	 */
+	void chunkEvicted(int chunk);
+}
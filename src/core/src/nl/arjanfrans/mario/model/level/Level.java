@@ -0,0 +1,768 @@
+/** @file Level.java
+ */
+
+package nl.arjanfrans.mario.model.level;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+
+import nl.arjanfrans.mario.debug.D;
+import nl.arjanfrans.mario.graphics.Tiles;
+import nl.arjanfrans.mario.model.collision.TileShape;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.graphics.Texture;
+import com.badlogic.gdx.graphics.Texture.TextureFilter;
+import com.badlogic.gdx.graphics.TextureData;
+import com.badlogic.gdx.graphics.g2d.TextureRegion;
+import com.badlogic.gdx.maps.tiled.TiledMap;
+import com.badlogic.gdx.maps.tiled.TiledMapTile;
+import com.badlogic.gdx.maps.tiled.tiles.AnimatedTiledMapTile;
+import com.badlogic.gdx.maps.tiled.tiles.StaticTiledMapTile;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.GdxRuntimeException;
+import com.badlogic.gdx.utils.IntArray;
+import com.badlogic.gdx.utils.ObjectMap;
+import com.badlogic.gdx.utils.StreamUtils;
+
+/**
+ * @brief Everything the game reads from a level, with the tile properties already resolved
+ * @details Levels are made in Tiled and saved as tmx. The gradle task headless:compileLevels
+ * turns every tmx map in assets/data into a .lvl file next to it, see TmxReader. A .lvl
+ * file starts with a header: the collision shape, brick, animation and texture of the tiles of
+ * the tileset that have properties, the names of the tile layers, the brick cells and the spawns,
+ * hidden items, flag, background and parallax objects, in that order. It is read with a single
+ * ByteBuffer and no XML, CSV or string-keyed MapProperties are involved. The tile layers follow
+ * as column chunks of CHUNK_WIDTH columns, one short per cell. Loading a level only reads the
+ * header and maps the chunks into memory as a TileStore, a LevelStreamer hands the chunks near
+ * the camera to the collision grid and the bricks while the level is played, so a level can be
+ * as long as it likes. createMap() builds the TiledMap the renderer draws.
+ * Object coordinates are kept in map pixels, as the TmxMapLoader gives them. Loading a level
+ * needs no GL, a LevelLoader loads it and decodes its images on other threads.
+ */
+public class Level {
+	/** Extension of compiled levels */
+	public static final String EXTENSION = ".lvl";
+	static final int MAGIC = 0x4d4c564c; /**< "MLVL" */
+	static final int VERSION = 2;
+
+	/** Log2 of CHUNK_WIDTH */
+	public static final int CHUNK_SHIFT = 6;
+	/** Width in tiles of the column chunks the tile layers are stored and loaded in, one long holds a row of a chunk */
+	public static final int CHUNK_WIDTH = 1 << CHUNK_SHIFT;
+
+	/** Tile that is not a brick */
+	public static final byte NO_BRICK = 0;
+	/** Tile of a brick that breaks or empties when hit */
+	public static final byte BRICK = 1;
+	/** Tile of a bonus block */
+	public static final byte BONUS = 2;
+
+	static final int BRICK_MASK = 3; /**< Bits of the tile flags that hold the brick kind */
+	static final int DESTRUCTABLE = 4; /**< Tile flag of bricks that break */
+
+	static final int CELL_TILE = 0xfff; /**< Bits of a cell that hold the tile + 1, 0 is no tile */
+	static final int CELL_FLIP_X = 1 << 12;
+	static final int CELL_FLIP_Y = 1 << 13;
+	static final int CELL_ROTATION_SHIFT = 14;
+
+	/** Folder of the background and parallax images */
+	public static final String BACKGROUNDS = "data/backgrounds/";
+
+	private static final Charset UTF8 = Charset.forName("UTF-8");
+
+	int width, height, tileWidth, tileHeight;
+
+	/* The tileset of the tile layers */
+	String tilesetSource; /**< Image of the tileset, relative to the level */
+	FileHandle tilesetFile;
+	int firstGid, columns, spacing, margin;
+	byte[] tileFlags;
+	byte[] shapes;
+	String[] colors;
+	String[] animations;
+	float[] speeds;
+	String[] textures;
+
+	String[] layerNames;
+	TileStore tiles; /**< Cells of the tile layers */
+	int[] bricks; /**< Layer, x, y and tile of every cell with a brick or bonus tile, by layer, x and y */
+
+	float marioX, marioY;
+	int goombaCount;
+	float[] goombas; /**< x and y of every goomba */
+	int itemCount;
+	float[] items; /**< x and y of every hidden item */
+	String[] itemTypes;
+	float flagX, flagY, flagWidth, flagHeight, flagEndX, flagEndY;
+	String background, song;
+	int decorationCount;
+	String[] decorationLayers;
+	String[] decorationSources;
+	float[] decorations; /**< x and y of every parallax object */
+
+	private final ObjectMap<String, TextureData> images = new ObjectMap<String, TextureData>(); /**< Decoded images by path */
+
+	Level() {
+	}
+
+	/** @brief Loads a level
+	 *  @details Reads the compiled level next to the tmx map. When it is missing, older than the
+	 *  map, or compiled by a version of the game with another format, the map itself is read,
+	 *  which is slower. Can be called on any thread.
+	 *  @param path Internal path of the tmx map
+	 *  @return Level object
+	 */
+	public static Level load(String path) {
+		FileHandle tmx = Gdx.files.internal(path);
+		FileHandle compiled = Gdx.files.internal(compiledPath(path));
+		if(compiled.exists() && compiled.lastModified() >= tmx.lastModified()) {
+			if(isCurrent(compiled)) return read(compiled);
+			D.o(compiled.path() + " is not a level of version " + VERSION + ", reading " + tmx.path() + " instead");
+		}
+		else {
+			D.o(compiled.path() + " is missing or older than the map, reading " + tmx.path() + ", run gradlew headless:compileLevels");
+		}
+		return TmxReader.read(tmx);
+	}
+
+	/** @brief Check if a file is a compiled level that read() can read
+	 *  @param file FileHandle of the .lvl file
+	 *  @return true when the file starts with MAGIC and VERSION
+	 */
+	private static boolean isCurrent(FileHandle file) {
+		DataInputStream in = new DataInputStream(file.read());
+		try {
+			return in.readInt() == MAGIC && in.readInt() == VERSION;
+		}
+		catch(IOException e) {
+			// Too short to be a level
+			return false;
+		}
+		finally {
+			StreamUtils.closeQuietly(in);
+		}
+	}
+
+	/** @brief Get the path of the compiled level of a tmx map
+	 *  @param path of the tmx map
+	 *  @return path with the extension replaced by EXTENSION
+	 */
+	public static String compiledPath(String path) {
+		int dot = path.lastIndexOf('.');
+		return (dot > path.lastIndexOf('/') ? path.substring(0, dot) : path) + EXTENSION;
+	}
+
+	/** @brief Reads a compiled level
+	 *  @param file FileHandle of the .lvl file
+	 *  @return Level object
+	 */
+	public static Level read(FileHandle file) {
+		DataInputStream in = new DataInputStream(file.read());
+		ByteBuffer buffer;
+		try {
+			if(in.readInt() != MAGIC) {
+				throw new IllegalArgumentException(file.path() + " is not a compiled level");
+			}
+			int version = in.readInt();
+			if(version != VERSION) {
+				throw new IllegalArgumentException(file.path() + " has version " + version + " instead of " + VERSION
+						+ ", run gradlew headless:compileLevels");
+			}
+			byte[] header = new byte[in.readInt()];
+			in.readFully(header);
+			buffer = ByteBuffer.wrap(header);
+		}
+		catch(IOException e) {
+			throw new GdxRuntimeException("Error reading level: " + file.path(), e);
+		}
+		finally {
+			StreamUtils.closeQuietly(in);
+		}
+
+		Level level = new Level();
+		level.width = buffer.getInt();
+		level.height = buffer.getInt();
+		level.tileWidth = buffer.getInt();
+		level.tileHeight = buffer.getInt();
+
+		level.tilesetSource = readString(buffer);
+		level.tilesetFile = file.parent().child(level.tilesetSource);
+		level.firstGid = buffer.getInt();
+		level.columns = buffer.getInt();
+		level.spacing = buffer.getInt();
+		level.margin = buffer.getInt();
+		level.createTiles(buffer.getInt());
+		int described = buffer.getInt();
+		for(int d = 0; d < described; d++) {
+			int t = buffer.getShort();
+			level.tileFlags[t] = buffer.get();
+			level.shapes[t] = buffer.get();
+			level.colors[t] = readString(buffer);
+			level.animations[t] = readString(buffer);
+			level.speeds[t] = buffer.getFloat();
+			level.textures[t] = readString(buffer);
+		}
+
+		int layers = buffer.getInt();
+		level.layerNames = new String[layers];
+		for(int l = 0; l < layers; l++) {
+			level.layerNames[l] = readString(buffer);
+		}
+		level.tiles = TileStore.map(file, 12 + buffer.capacity(), layers, level.width, level.height);
+		level.bricks = new int[buffer.getInt() * 4];
+		buffer.asIntBuffer().get(level.bricks);
+		buffer.position(buffer.position() + level.bricks.length * 4);
+
+		level.marioX = buffer.getFloat();
+		level.marioY = buffer.getFloat();
+		level.goombaCount = buffer.getInt();
+		level.goombas = new float[level.goombaCount * 2];
+		buffer.asFloatBuffer().get(level.goombas);
+		buffer.position(buffer.position() + level.goombas.length * 4);
+
+		level.itemCount = buffer.getInt();
+		level.items = new float[level.itemCount * 2];
+		level.itemTypes = new String[level.itemCount];
+		for(int i = 0; i < level.itemCount; i++) {
+			level.items[i * 2] = buffer.getFloat();
+			level.items[i * 2 + 1] = buffer.getFloat();
+			level.itemTypes[i] = readString(buffer);
+		}
+
+		level.flagX = buffer.getFloat();
+		level.flagY = buffer.getFloat();
+		level.flagWidth = buffer.getFloat();
+		level.flagHeight = buffer.getFloat();
+		level.flagEndX = buffer.getFloat();
+		level.flagEndY = buffer.getFloat();
+		level.background = readString(buffer);
+		level.song = readString(buffer);
+
+		level.decorationCount = buffer.getInt();
+		level.createDecorations(level.decorationCount);
+		for(int d = 0; d < level.decorationCount; d++) {
+			level.decorationLayers[d] = readString(buffer);
+			level.decorationSources[d] = readString(buffer);
+			level.decorations[d * 2] = buffer.getFloat();
+			level.decorations[d * 2 + 1] = buffer.getFloat();
+		}
+		return level;
+	}
+
+	/** @brief Writes the level in the compiled format that read() takes
+	 *  @param stream OutputStream, it is not closed
+	 *  @throws IOException when writing fails
+	 */
+	public void write(OutputStream stream) throws IOException {
+		ByteArrayOutputStream header = new ByteArrayOutputStream();
+		DataOutputStream out = new DataOutputStream(header);
+		out.writeInt(width);
+		out.writeInt(height);
+		out.writeInt(tileWidth);
+		out.writeInt(tileHeight);
+
+		writeString(out, tilesetSource);
+		out.writeInt(firstGid);
+		out.writeInt(columns);
+		out.writeInt(spacing);
+		out.writeInt(margin);
+		out.writeInt(shapes.length);
+		int described = 0;
+		for(int t = 0; t < shapes.length; t++) {
+			if(isDescribed(t)) described++;
+		}
+		out.writeInt(described);
+		for(int t = 0; t < shapes.length; t++) {
+			if(!isDescribed(t)) continue;
+			out.writeShort(t);
+			out.writeByte(tileFlags[t]);
+			out.writeByte(shapes[t]);
+			writeString(out, colors[t]);
+			writeString(out, animations[t]);
+			out.writeFloat(speeds[t]);
+			writeString(out, textures[t]);
+		}
+
+		out.writeInt(layerNames.length);
+		for(int l = 0; l < layerNames.length; l++) {
+			writeString(out, layerNames[l]);
+		}
+		out.writeInt(bricks.length / 4);
+		for(int i = 0; i < bricks.length; i++) out.writeInt(bricks[i]);
+
+		out.writeFloat(marioX);
+		out.writeFloat(marioY);
+		out.writeInt(goombaCount);
+		for(int i = 0; i < goombaCount * 2; i++) out.writeFloat(goombas[i]);
+		out.writeInt(itemCount);
+		for(int i = 0; i < itemCount; i++) {
+			out.writeFloat(items[i * 2]);
+			out.writeFloat(items[i * 2 + 1]);
+			writeString(out, itemTypes[i]);
+		}
+
+		out.writeFloat(flagX);
+		out.writeFloat(flagY);
+		out.writeFloat(flagWidth);
+		out.writeFloat(flagHeight);
+		out.writeFloat(flagEndX);
+		out.writeFloat(flagEndY);
+		writeString(out, background);
+		writeString(out, song);
+
+		out.writeInt(decorationCount);
+		for(int d = 0; d < decorationCount; d++) {
+			writeString(out, decorationLayers[d]);
+			writeString(out, decorationSources[d]);
+			out.writeFloat(decorations[d * 2]);
+			out.writeFloat(decorations[d * 2 + 1]);
+		}
+
+		out = new DataOutputStream(stream);
+		out.writeInt(MAGIC);
+		out.writeInt(VERSION);
+		out.writeInt(header.size());
+		header.writeTo(out);
+		tiles.write(out);
+		out.flush();
+	}
+
+	/** @brief Reads the cells of a chunk of the tile layers
+	 *  @details The pages of the chunk are read from a mapped file, so using the chunk afterwards
+	 *  does not wait for the disk. Can be called on any thread.
+	 *  @param chunk index of the chunk, between 0 and getChunkCount(), counted from the left
+	 *  @return LevelChunk object
+	 */
+	public LevelChunk readChunk(int chunk) {
+		tiles.load(chunk);
+		return new LevelChunk(chunk, tiles);
+	}
+
+	/** @brief Lists the cells with a brick or bonus tile, once the cells of a level read from its tmx map are known
+	 */
+	void findBricks() {
+		IntArray found = new IntArray();
+		for(int l = 0; l < layerNames.length; l++) {
+			for(int x = 0; x < width; x++) {
+				for(int y = 0; y < height; y++) {
+					int tile = tiles.getTile(l, x, y);
+					if(tile < 0 || getBrick(tile) == NO_BRICK) continue;
+					found.add(l);
+					found.add(x);
+					found.add(y);
+					found.add(tile);
+				}
+			}
+		}
+		bricks = found.toArray();
+	}
+
+	/** @brief Get the images the level is drawn with
+	 *  @return FileHandles of the tileset, the background and the images of the parallax objects, each once
+	 */
+	public Array<FileHandle> getImages() {
+		Array<FileHandle> files = new Array<FileHandle>();
+		files.add(tilesetFile);
+		files.add(Gdx.files.internal(BACKGROUNDS + background + ".png"));
+		for(int d = 0; d < decorationCount; d++) {
+			FileHandle file = Gdx.files.internal(BACKGROUNDS + decorationSources[d]);
+			if(!files.contains(file, false)) files.add(file);
+		}
+		return files;
+	}
+
+	/** @brief Hands over an image that was decoded in advance
+	 *  @param file FileHandle from getImages()
+	 *  @param data TextureData of the image, prepared
+	 */
+	public void putImage(FileHandle file, TextureData data) {
+		images.put(file.path(), data);
+	}
+
+	/** @brief Creates the texture of an image of the level, on the GL thread
+	 *  @details An image that was handed over with putImage() only has to be uploaded, any other
+	 *  image is loaded from its file.
+	 *  @param file FileHandle of the image
+	 *  @return Texture object, the caller disposes it
+	 */
+	public Texture createTexture(FileHandle file) {
+		TextureData data = images.remove(file.path());
+		return data != null ? new Texture(data) : new Texture(file);
+	}
+
+	/** @brief Frees the images that were handed over but never turned into a texture
+	 */
+	public void disposeImages() {
+		for(TextureData data : images.values()) {
+			data.consumePixmap().dispose();
+		}
+		images.clear();
+	}
+
+	/** @brief Builds the map the renderer draws
+	 *  @details Only the tile layers are in it, as TileStoreLayers that look their cells up in the
+	 *  TileStore. They share one tile object per tile of the tileset that is used. Tiles with an
+	 *  'animation' are animated and tiles with a 'texture' use that tile of the atlas, which
+	 *  avoids screen tearing.
+	 *  @return TiledMap object, disposing it disposes the tileset texture
+	 */
+	public TiledMap createMap() {
+		TiledMap map = new TiledMap();
+		Texture texture = createTexture(tilesetFile);
+		texture.setFilter(TextureFilter.Nearest, TextureFilter.Nearest);
+		Array<Texture> owned = new Array<Texture>();
+		owned.add(texture);
+		map.setOwnedResources(owned);
+		map.getProperties().put("width", width);
+		map.getProperties().put("height", height);
+		map.getProperties().put("tilewidth", tileWidth);
+		map.getProperties().put("tileheight", tileHeight);
+
+		TiledMapTile[] mapTiles = new TiledMapTile[shapes.length];
+		for(int l = 0; l < layerNames.length; l++) {
+			TileStoreLayer layer = new TileStoreLayer(this, l, texture, mapTiles);
+			layer.setName(layerNames[l]);
+			map.getLayers().add(layer);
+		}
+		return map;
+	}
+
+	TiledMapTile createTile(Texture texture, int tile) {
+		TiledMapTile mapTile;
+		if(animations[tile] != null) {
+			mapTile = new AnimatedTiledMapTile(speeds[tile], Tiles.getAnimatedTile(animations[tile]));
+		}
+		else if(textures[tile] != null) {
+			mapTile = new StaticTiledMapTile(new TextureRegion(Tiles.getTile(textures[tile])));
+		}
+		else {
+			int x = margin + (tile % columns) * (tileWidth + spacing);
+			int y = margin + (tile / columns) * (tileHeight + spacing);
+			mapTile = new StaticTiledMapTile(new TextureRegion(texture, x, y, tileWidth, tileHeight));
+		}
+		mapTile.setId(firstGid + tile);
+		return mapTile;
+	}
+
+	/** Whether a tile differs from a plain solid tile, only those are written */
+	private boolean isDescribed(int tile) {
+		return tileFlags[tile] != 0 || shapes[tile] != TileShape.FULL || colors[tile] != null
+				|| animations[tile] != null || textures[tile] != null;
+	}
+
+	/** Creates the tile tables, every tile starts as a plain solid tile */
+	void createTiles(int tiles) {
+		tileFlags = new byte[tiles];
+		shapes = new byte[tiles];
+		Arrays.fill(shapes, TileShape.FULL);
+		colors = new String[tiles];
+		animations = new String[tiles];
+		speeds = new float[tiles];
+		textures = new String[tiles];
+	}
+
+	void createDecorations(int count) {
+		decorationLayers = new String[count];
+		decorationSources = new String[count];
+		decorations = new float[count * 2];
+	}
+
+	private static String readString(ByteBuffer buffer) {
+		int length = buffer.getShort();
+		if(length < 0) return null;
+		byte[] bytes = new byte[length];
+		buffer.get(bytes);
+		return new String(bytes, UTF8);
+	}
+
+	private static void writeString(DataOutputStream out, String value) throws IOException {
+		if(value == null) {
+			out.writeShort(-1);
+			return;
+		}
+		byte[] bytes = value.getBytes(UTF8);
+		out.writeShort(bytes.length);
+		out.write(bytes);
+	}
+
+	/** @brief Get the width of the level
+	 *  @return width in tiles
+	 */
+	public int getWidth() {
+		return width;
+	}
+
+	/** @brief Get the height of the level
+	 *  @return height in tiles
+	 */
+	public int getHeight() {
+		return height;
+	}
+
+	/** @brief Finds a tile layer
+	 *  @param name of the layer in the tmx map
+	 *  @return index of the layer, -1 when there is no tile layer with that name
+	 */
+	public int getLayer(String name) {
+		for(int l = 0; l < layerNames.length; l++) {
+			if(layerNames[l].equals(name)) return l;
+		}
+		return -1;
+	}
+
+	/** @brief Get the cells of the tile layers
+	 *  @return TileStore object
+	 */
+	public TileStore getTiles() {
+		return tiles;
+	}
+
+	/** @brief Get the amount of column chunks of the tile layers
+	 *  @return width / CHUNK_WIDTH, rounded up
+	 */
+	public int getChunkCount() {
+		return (width + CHUNK_WIDTH - 1) >> CHUNK_SHIFT;
+	}
+
+	/** @brief Get the amount of cells with a brick or bonus tile, in all tile layers
+	 *  @return amount, ordered by layer, then by x and then by y
+	 */
+	public int getBrickCount() {
+		return bricks.length / 4;
+	}
+
+	/** @brief Get the layer of a brick cell
+	 *  @param i index of the brick
+	 *  @return index of the tile layer
+	 */
+	public int getBrickLayer(int i) {
+		return bricks[i * 4];
+	}
+
+	/** @brief Get the position of a brick cell
+	 *  @param i index of the brick
+	 *  @return x coordinate of the cell
+	 */
+	public int getBrickX(int i) {
+		return bricks[i * 4 + 1];
+	}
+
+	/** @brief Get the position of a brick cell
+	 *  @param i index of the brick
+	 *  @return y coordinate of the cell
+	 */
+	public int getBrickY(int i) {
+		return bricks[i * 4 + 2];
+	}
+
+	/** @brief Get the tile of a brick cell
+	 *  @param i index of the brick
+	 *  @return index of the tile in the tileset
+	 */
+	public int getBrickTile(int i) {
+		return bricks[i * 4 + 3];
+	}
+
+	/** @brief Get the collision shape of a tile
+	 *  @param tile index of the tile in the tileset
+	 *  @return TileShape of the 'collision' property, FULL for tiles without it
+	 */
+	public byte getShape(int tile) {
+		return shapes[tile];
+	}
+
+	/** @brief Get the kind of brick of a tile, from its 'actor' property
+	 *  @param tile index of the tile in the tileset
+	 *  @return NO_BRICK, BRICK or BONUS
+	 */
+	public byte getBrick(int tile) {
+		return (byte) (tileFlags[tile] & BRICK_MASK);
+	}
+
+	/** @brief Check if a brick tile breaks
+	 *  @param tile index of the tile in the tileset
+	 *  @return true if the 'destructable' property is true
+	 */
+	public boolean isDestructable(int tile) {
+		return (tileFlags[tile] & DESTRUCTABLE) != 0;
+	}
+
+	/** @brief Get the color of a brick tile
+	 *  @param tile index of the tile in the tileset
+	 *  @return the 'color' property, can be null
+	 */
+	public String getColor(int tile) {
+		return colors[tile];
+	}
+
+	/** @brief Get the start position of Mario
+	 *  @return x coordinate in map pixels
+	 */
+	public float getMarioX() {
+		return marioX;
+	}
+
+	/** @brief Get the start position of Mario
+	 *  @return y coordinate in map pixels
+	 */
+	public float getMarioY() {
+		return marioY;
+	}
+
+	/** @brief Get the amount of goombas
+	 *  @return amount, in the order of the tmx map
+	 */
+	public int getGoombaCount() {
+		return goombaCount;
+	}
+
+	/** @brief Get the position of a goomba
+	 *  @param i index of the goomba
+	 *  @return x coordinate in map pixels
+	 */
+	public float getGoombaX(int i) {
+		return goombas[i * 2];
+	}
+
+	/** @brief Get the position of a goomba
+	 *  @param i index of the goomba
+	 *  @return y coordinate in map pixels
+	 */
+	public float getGoombaY(int i) {
+		return goombas[i * 2 + 1];
+	}
+
+	/** @brief Get the amount of items hidden in bricks
+	 *  @return amount of objects in the 'hidden_items' layer
+	 */
+	public int getItemCount() {
+		return itemCount;
+	}
+
+	/** @brief Get the position of a hidden item
+	 *  @param i index of the item
+	 *  @return x coordinate in map pixels
+	 */
+	public float getItemX(int i) {
+		return items[i * 2];
+	}
+
+	/** @brief Get the position of a hidden item
+	 *  @param i index of the item
+	 *  @return y coordinate in map pixels
+	 */
+	public float getItemY(int i) {
+		return items[i * 2 + 1];
+	}
+
+	/** @brief Get the type of a hidden item
+	 *  @param i index of the item
+	 *  @return the 'type' of the object, like super_mushroom, can be null
+	 */
+	public String getItemType(int i) {
+		return itemTypes[i];
+	}
+
+	/** @brief Get the position of the flag
+	 *  @return x coordinate in map pixels
+	 */
+	public float getFlagX() {
+		return flagX;
+	}
+
+	/** @brief Get the position of the flag
+	 *  @return y coordinate in map pixels
+	 */
+	public float getFlagY() {
+		return flagY;
+	}
+
+	/** @brief Get the size of the flag
+	 *  @return width in tiles, from the 'width' property of the flag
+	 */
+	public float getFlagWidth() {
+		return flagWidth;
+	}
+
+	/** @brief Get the size of the flag
+	 *  @return height in tiles, from the 'height' property of the flag
+	 */
+	public float getFlagHeight() {
+		return flagHeight;
+	}
+
+	/** @brief Get the position Mario walks to after the flag
+	 *  @return x coordinate in map pixels
+	 */
+	public float getFlagEndX() {
+		return flagEndX;
+	}
+
+	/** @brief Get the position Mario walks to after the flag
+	 *  @return y coordinate in map pixels
+	 */
+	public float getFlagEndY() {
+		return flagEndY;
+	}
+
+	/** @brief Get the background image
+	 *  @return name of the image in data/backgrounds, without extension
+	 */
+	public String getBackground() {
+		return background;
+	}
+
+	/** @brief Get the music of the level
+	 *  @return name of the song
+	 */
+	public String getSong() {
+		return song;
+	}
+
+	/** @brief Get the amount of parallax objects
+	 *  @return amount of objects with a 'src' in the background layers
+	 */
+	public int getDecorationCount() {
+		return decorationCount;
+	}
+
+	/** @brief Get the layer of a parallax object
+	 *  @param i index of the object
+	 *  @return name of the layer, like far_background
+	 */
+	public String getDecorationLayer(int i) {
+		return decorationLayers[i];
+	}
+
+	/** @brief Get the image of a parallax object
+	 *  @param i index of the object
+	 *  @return name of the image in data/backgrounds
+	 */
+	public String getDecorationSource(int i) {
+		return decorationSources[i];
+	}
+
+	/** @brief Get the position of a parallax object
+	 *  @param i index of the object
+	 *  @return x coordinate in map pixels
+	 */
+	public float getDecorationX(int i) {
+		return decorations[i * 2];
+	}
+
+	/** @brief Get the position of a parallax object
+	 *  @param i index of the object
+	 *  @return y coordinate in map pixels
+	 */
+	public float getDecorationY(int i) {
+		return decorations[i * 2 + 1];
+	}
+}
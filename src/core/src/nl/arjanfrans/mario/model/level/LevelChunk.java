@@ -0,0 +1,44 @@
+/** @file LevelChunk.java
+ */
+
+package nl.arjanfrans.mario.model.level;
+
+/**
+ * @brief The cells of every tile layer in one column chunk of a level
+ * @details Read by Level.readChunk() and handed to the ChunkListeners of a LevelStreamer. The
+ * cells are not copied, the chunk looks them up in the TileStore of the level. The columns of
+ * the last chunk that are past the end of the level are empty.
+ */
+public class LevelChunk {
+	private final int index;
+	private final TileStore tiles;
+
+	LevelChunk(int index, TileStore tiles) {
+		this.index = index;
+		this.tiles = tiles;
+	}
+
+	/** @brief Get the position of the chunk
+	 *  @return index, counted from the left
+	 */
+	public int getIndex() {
+		return index;
+	}
+
+	/** @brief Get the first column of the chunk
+	 *  @return x coordinate in tiles
+	 */
+	public int getX() {
+		return index << Level.CHUNK_SHIFT;
+	}
+
+	/** @brief Get the tile of a cell
+	 *  @param layer index of the layer
+	 *  @param x coordinate of the cell, in the level
+	 *  @param y coordinate of the cell
+	 *  @return index of the tile in the tileset, -1 for an empty cell
+	 */
+	public int getTile(int layer, int x, int y) {
+		return tiles.getTile(layer, x, y);
+	}
+}
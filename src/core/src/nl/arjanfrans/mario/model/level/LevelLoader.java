@@ -0,0 +1,100 @@
+/** @file LevelLoader.java
+ */
+
+package nl.arjanfrans.mario.model.level;
+
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.graphics.TextureData;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.Disposable;
+import com.badlogic.gdx.utils.async.AsyncExecutor;
+import com.badlogic.gdx.utils.async.AsyncResult;
+import com.badlogic.gdx.utils.async.AsyncTask;
+
+/**
+ * @brief Loads a level on other threads, while the GL thread keeps rendering
+ * @details One thread reads the level, compiled or from the tmx map. Then the images of the
+ * level are decoded in parallel, one task per image. The level is ready when every image is
+ * decoded. The GL thread only uploads the images, when the world creates its textures. Call
+ * update() every frame until it returns true.
+ */
+public class LevelLoader implements Disposable {
+	private final AsyncExecutor executor;
+	private final AsyncResult<Level> reading;
+	private Level level;
+	private Array<FileHandle> files;
+	private final Array<AsyncResult<TextureData>> decoding = new Array<AsyncResult<TextureData>>();
+	private boolean done = false;
+
+	/** @brief Constructor method
+	 *  @details Starts loading right away
+	 *  @param path Internal path of the tmx map, see Level.load()
+	 */
+	public LevelLoader(final String path) {
+		executor = new AsyncExecutor(Math.max(2, Runtime.getRuntime().availableProcessors()));
+		reading = executor.submit(new AsyncTask<Level>() {
+			@Override
+			public Level call() {
+				return Level.load(path);
+			}
+		});
+	}
+
+	/** @brief Checks on the loading, call it on the GL thread
+	 *  @details Starts decoding the images once the level is read, and hands them over to the
+	 *  level once they are all decoded. A failure on one of the threads is thrown here.
+	 *  @return true when the level is loaded
+	 */
+	public boolean update() {
+		if(done) return true;
+		if(level == null) {
+			if(!reading.isDone()) return false;
+			level = reading.get();
+			files = level.getImages();
+			for(final FileHandle file : files) {
+				decoding.add(executor.submit(new AsyncTask<TextureData>() {
+					@Override
+					public TextureData call() {
+						TextureData data = TextureData.Factory.loadFromFile(file, false);
+						data.prepare();
+						return data;
+					}
+				}));
+			}
+		}
+		for(int i = 0; i < decoding.size; i++) {
+			if(!decoding.get(i).isDone()) return false;
+		}
+		for(int i = 0; i < decoding.size; i++) {
+			level.putImage(files.get(i), decoding.get(i).get());
+		}
+		decoding.clear();
+		done = true;
+		return true;
+	}
+
+	/** @brief Get the level
+	 *  @return Level object, null until update() returned true
+	 */
+	public Level getLevel() {
+		return done ? level : null;
+	}
+
+	/** @brief Stops the threads
+	 *  @details Waits for the tasks that are running. Images that were decoded but not handed
+	 *  over to the level are freed.
+	 */
+	@Override
+	public void dispose() {
+		executor.dispose();
+		for(int i = 0; i < decoding.size; i++) {
+			try {
+				decoding.get(i).get().consumePixmap().dispose();
+			}
+			catch(RuntimeException e) {
+				// The image failed to decode, there is nothing to free
+			}
+		}
+		decoding.clear();
+	}
+}
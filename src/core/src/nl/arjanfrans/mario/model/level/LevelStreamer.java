@@ -0,0 +1,175 @@
+/** @file LevelStreamer.java
+ */
+
+package nl.arjanfrans.mario.model.level;
+
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.Bits;
+import com.badlogic.gdx.utils.Disposable;
+import com.badlogic.gdx.utils.IntArray;
+import com.badlogic.gdx.utils.async.AsyncExecutor;
+import com.badlogic.gdx.utils.async.AsyncResult;
+import com.badlogic.gdx.utils.async.AsyncTask;
+
+/**
+ * @brief Keeps the column chunks of a level near the camera loaded
+ * @details Every tick update() is given the columns that have to be resident. Chunks that come
+ * within PREFETCH chunks of them are read by a thread in the background, which pages them in
+ * from the TileStore of the level. Of the chunks further away SPARE_CHUNKS stay loaded and the
+ * ones furthest away are evicted, so the memory the level takes does not depend on its length.
+ * The listeners build their part of a chunk, the collision grid and the bricks, when it is
+ * loaded and drop it when it is evicted.
+ * They only ever do that on the thread that calls update(). A chunk that is needed before its
+ * read is done is waited for, and a chunk outside the resident columns is loaded the moment one
+ * of the listeners asks for it with require(). Which chunks are resident therefore never changes
+ * what the listeners see.
+ */
+public class LevelStreamer implements Disposable {
+	/** Chunks beside the resident columns that are read in the background before they are needed */
+	public static final int PREFETCH = 1;
+	/** Chunks outside the resident columns that stay loaded, so a short level is only read once */
+	public static final int SPARE_CHUNKS = 8;
+
+	private final Level level;
+	private final AsyncExecutor executor = new AsyncExecutor(1);
+	private final Array<ChunkListener> listeners = new Array<ChunkListener>();
+	private final Bits resident = new Bits();
+	private int residentCount = 0;
+	private final IntArray reading = new IntArray(); /**< Chunks that are read in the background */
+	private final Array<AsyncResult<LevelChunk>> reads = new Array<AsyncResult<LevelChunk>>();
+
+	/** @brief Constructor method
+	 *  @details No chunk is loaded until update() or require() is called
+	 *  @param level Level object the chunks are read from
+	 */
+	public LevelStreamer(Level level) {
+		this.level = level;
+	}
+
+	/** @brief Adds a listener, it is told about the chunks that are loaded from now on
+	 *  @param listener ChunkListener object
+	 */
+	public void addListener(ChunkListener listener) {
+		listeners.add(listener);
+	}
+
+	/** @brief Loads the chunks of an area and evicts the chunks far away from it
+	 *  @param left first column that has to be resident, in tiles
+	 *  @param right last column that has to be resident, in tiles
+	 */
+	public void update(float left, float right) {
+		int last = level.getChunkCount() - 1;
+		int first = clamp((int) Math.floor(left) >> Level.CHUNK_SHIFT, last);
+		int end = clamp((int) Math.floor(right) >> Level.CHUNK_SHIFT, last);
+		int keepFirst = Math.max(first - PREFETCH, 0), keepEnd = Math.min(end + PREFETCH, last);
+
+		// Reads that are done are loaded when they are still wanted
+		for(int r = reading.size - 1; r >= 0; r--) {
+			if(!reads.get(r).isDone()) continue;
+			int chunk = reading.removeIndex(r);
+			LevelChunk data = reads.removeIndex(r).get();
+			if(chunk >= keepFirst && chunk <= keepEnd) load(data);
+		}
+		for(int c = first; c <= end; c++) {
+			require(c);
+		}
+		while(residentCount > keepEnd - keepFirst + 1 + SPARE_CHUNKS) {
+			evict(furthest(keepFirst, keepEnd));
+		}
+		for(int c = keepFirst; c <= keepEnd; c++) {
+			if(!resident.get(c) && !reading.contains(c)) read(c);
+		}
+	}
+
+	/** @brief Loads a chunk right away, when it is not resident yet
+	 *  @details A read of the chunk that is going on in the background is waited for. The chunk
+	 *  stays resident until update() finds it too far away.
+	 *  @param chunk index of the chunk, between 0 and Level.getChunkCount()
+	 */
+	public void require(int chunk) {
+		if(resident.get(chunk)) return;
+		int r = reading.indexOf(chunk);
+		if(r != -1) {
+			reading.removeIndex(r);
+			load(reads.removeIndex(r).get());
+		}
+		else {
+			load(level.readChunk(chunk));
+		}
+	}
+
+	/** @brief Check if a chunk is loaded
+	 *  @param chunk index of the chunk
+	 *  @return true if the listeners have built it
+	 */
+	public boolean isResident(int chunk) {
+		return resident.get(chunk);
+	}
+
+	/** @brief Get the amount of chunks that are loaded
+	 *  @return amount, it only depends on the area given to update() and not on the length of the level
+	 */
+	public int getResidentCount() {
+		return residentCount;
+	}
+
+	/** @brief Get the level the chunks are read from
+	 *  @return Level object
+	 */
+	public Level getLevel() {
+		return level;
+	}
+
+	/** @brief Stops the thread that reads chunks, after the read that is going on
+	 */
+	@Override
+	public void dispose() {
+		executor.dispose();
+		reading.clear();
+		reads.clear();
+	}
+
+	private void read(final int chunk) {
+		reading.add(chunk);
+		reads.add(executor.submit(new AsyncTask<LevelChunk>() {
+			@Override
+			public LevelChunk call() {
+				return level.readChunk(chunk);
+			}
+		}));
+	}
+
+	private void load(LevelChunk data) {
+		// Marked first, so listeners that look at the chunk do not load it again
+		resident.set(data.getIndex());
+		residentCount++;
+		for(int i = 0; i < listeners.size; i++) {
+			listeners.get(i).chunkLoaded(data);
+		}
+	}
+
+	private void evict(int chunk) {
+		resident.clear(chunk);
+		residentCount--;
+		for(int i = 0; i < listeners.size; i++) {
+			listeners.get(i).chunkEvicted(chunk);
+		}
+	}
+
+	/** The resident chunk that is furthest away from a range of chunks */
+	private int furthest(int first, int end) {
+		int furthest = -1, distance = -1;
+		for(int c = resident.nextSetBit(0); c != -1; c = resident.nextSetBit(c + 1)) {
+			int d = c < first ? first - c : c - end;
+			if(d > distance) {
+				furthest = c;
+				distance = d;
+			}
+		}
+		return furthest;
+	}
+
+	private static int clamp(int chunk, int last) {
+		return chunk < 0 ? 0 : chunk > last ? last : chunk;
+	}
+}
@@ -0,0 +1,223 @@
+/** @file TileStore.java
+ */
+
+package nl.arjanfrans.mario.model.level;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ShortBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.channels.ReadableByteChannel;
+
+import com.badlogic.gdx.Files.FileType;
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.utils.GdxRuntimeException;
+import com.badlogic.gdx.utils.StreamUtils;
+
+/**
+ * @brief The cells of the tile layers of a level, outside the Java heap
+ * @details Every cell is one short with the tile, flips and rotation, in the column chunks of the
+ * compiled level: per chunk every layer, per layer CHUNK_WIDTH cells per row. A compiled level
+ * on disk is memory-mapped, so opening it reads nothing and the operating system pages the
+ * chunks in when they are used. Levels that can not be mapped, like one read from its tmx map,
+ * are copied into a direct buffer. Next to the cells there are two state flags per cell that
+ * the game changes, packed four cells to a byte in another direct buffer. The store takes no
+ * heap for its cells however long the level is. The mapping is read only, the first cell that is
+ * changed copies the cells into a direct buffer, so the file itself never changes.
+ */
+public class TileStore {
+	/** State flag of a cell that is drawn empty, like a brick that is an actor or broken */
+	public static final int HIDDEN = 1;
+	/** State flag of a cell that is drawn with the used tile of its layer, like an empty brick */
+	public static final int USED = 2;
+
+	private static final int PAGE = 4096;
+
+	private ShortBuffer cells;
+	private final ByteBuffer state;
+	private final int layers, height, chunkSize;
+	private volatile int touched; /**< Sum of the shorts load() reads, so the reads are not left out */
+
+	private TileStore(ByteBuffer cells, int layers, int width, int height) {
+		this.cells = cells.asShortBuffer();
+		this.layers = layers;
+		this.height = height;
+		this.chunkSize = layers * height * Level.CHUNK_WIDTH;
+		this.state = ByteBuffer.allocateDirect((this.cells.capacity() + 3) / 4);
+	}
+
+	/** @brief Maps the cells of a compiled level
+	 *  @details A file that is not on disk, like a classpath file or an Android asset, is read
+	 *  into a direct buffer instead.
+	 *  @param file FileHandle of the .lvl file
+	 *  @param start position of the first chunk in the file
+	 *  @param layers amount of tile layers
+	 *  @param width of the level in tiles
+	 *  @param height of the level in tiles
+	 *  @return TileStore object
+	 */
+	static TileStore map(FileHandle file, long start, int layers, int width, int height) {
+		int size = size(file, layers, width, height);
+		ByteBuffer buffer;
+		try {
+			if(file.type() != FileType.Classpath && file.file().exists()) {
+				RandomAccessFile in = new RandomAccessFile(file.file(), "r");
+				try {
+					// The mapping stays valid after the file is closed
+					buffer = in.getChannel().map(MapMode.READ_ONLY, start, size);
+				}
+				finally {
+					StreamUtils.closeQuietly(in);
+				}
+			}
+			else {
+				buffer = read(file, start, size);
+			}
+		}
+		catch(IOException e) {
+			throw new GdxRuntimeException("Error reading the tiles of level: " + file.path(), e);
+		}
+		return new TileStore(buffer, layers, width, height);
+	}
+
+	/** @brief Copies whole tile layers into a store
+	 *  @param layerCells cells of every layer, row by row
+	 *  @param width of the level in tiles
+	 *  @param height of the level in tiles
+	 *  @return TileStore object
+	 */
+	static TileStore copy(ShortBuffer[] layerCells, int width, int height) {
+		int size = size(null, layerCells.length, width, height);
+		TileStore store = new TileStore(ByteBuffer.allocateDirect(size), layerCells.length, width, height);
+		for(int l = 0; l < layerCells.length; l++) {
+			for(int y = 0; y < height; y++) {
+				for(int x = 0; x < width; x++) {
+					store.cells.put(store.index(l, x, y), layerCells[l].get(y * width + x));
+				}
+			}
+		}
+		return store;
+	}
+
+	/** @brief Writes the cells as the chunks of a compiled level
+	 *  @param out DataOutputStream
+	 *  @throws IOException when writing fails
+	 */
+	void write(DataOutputStream out) throws IOException {
+		for(int i = 0; i < cells.capacity(); i++) out.writeShort(cells.get(i));
+	}
+
+	/** @brief Reads a chunk into memory
+	 *  @details Touches every page of a chunk of a mapped file, so it is read from disk on the
+	 *  thread that calls this and not on the one that uses the cells. Can be called on any thread.
+	 *  @param chunk index of the chunk
+	 */
+	void load(int chunk) {
+		int sum = 0;
+		int end = (chunk + 1) * chunkSize;
+		for(int i = chunk * chunkSize; i < end; i += PAGE / 2) sum += cells.get(i);
+		touched += sum;
+	}
+
+	/** @brief Get the tile, flips and rotation of a cell, as the level stores them
+	 *  @param layer index of the layer
+	 *  @param x coordinate of the cell
+	 *  @param y coordinate of the cell
+	 *  @return value, see Level.CELL_TILE
+	 */
+	int getValue(int layer, int x, int y) {
+		return cells.get(index(layer, x, y)) & 0xffff;
+	}
+
+	/** @brief Sets the tile, flips and rotation of a cell
+	 *  @param layer index of the layer
+	 *  @param x coordinate of the cell
+	 *  @param y coordinate of the cell
+	 *  @param value see Level.CELL_TILE
+	 */
+	void setValue(int layer, int x, int y, int value) {
+		if(cells.isReadOnly()) {
+			ShortBuffer mapped = cells.duplicate();
+			mapped.clear();
+			cells = ByteBuffer.allocateDirect(mapped.capacity() * 2).asShortBuffer();
+			cells.put(mapped);
+			cells.clear();
+		}
+		cells.put(index(layer, x, y), (short) value);
+	}
+
+	/** @brief Get the tile of a cell
+	 *  @details The state of the cell is not looked at.
+	 *  @param layer index of the layer
+	 *  @param x coordinate of the cell
+	 *  @param y coordinate of the cell
+	 *  @return index of the tile in the tileset, -1 for an empty cell
+	 */
+	public int getTile(int layer, int x, int y) {
+		return (getValue(layer, x, y) & Level.CELL_TILE) - 1;
+	}
+
+	/** @brief Get the state of a cell
+	 *  @param layer index of the layer
+	 *  @param x coordinate of the cell
+	 *  @param y coordinate of the cell
+	 *  @return HIDDEN, USED or 0
+	 */
+	public int getState(int layer, int x, int y) {
+		int i = index(layer, x, y);
+		return (state.get(i >> 2) >> ((i & 3) << 1)) & 3;
+	}
+
+	/** @brief Sets the state of a cell
+	 *  @details The cell is drawn differently, the tile the level has in it stays the same.
+	 *  @param layer index of the layer
+	 *  @param x coordinate of the cell
+	 *  @param y coordinate of the cell
+	 *  @param flags HIDDEN, USED or 0
+	 */
+	public void setState(int layer, int x, int y, int flags) {
+		int i = index(layer, x, y);
+		int shift = (i & 3) << 1;
+		state.put(i >> 2, (byte) (state.get(i >> 2) & ~(3 << shift) | (flags & 3) << shift));
+	}
+
+	private int index(int layer, int x, int y) {
+		return (x >> Level.CHUNK_SHIFT) * chunkSize + (layer * height + y) * Level.CHUNK_WIDTH
+				+ (x & (Level.CHUNK_WIDTH - 1));
+	}
+
+	/** Size in bytes of the cells, a buffer can not be larger than 2 GB */
+	private static int size(FileHandle file, int layers, int width, int height) {
+		long size = (long) ((width + Level.CHUNK_WIDTH - 1) >> Level.CHUNK_SHIFT) * layers * height
+				* Level.CHUNK_WIDTH * 2;
+		if(size > Integer.MAX_VALUE) {
+			throw new GdxRuntimeException("Level is too large: " + (file != null ? file.path() : width + " x " + height));
+		}
+		return (int) size;
+	}
+
+	private static ByteBuffer read(FileHandle file, long start, int size) throws IOException {
+		ByteBuffer buffer = ByteBuffer.allocateDirect(size);
+		InputStream in = file.read();
+		try {
+			while(start > 0) {
+				long skipped = in.skip(start);
+				if(skipped <= 0) throw new IOException("Unexpected end of file");
+				start -= skipped;
+			}
+			ReadableByteChannel channel = Channels.newChannel(in);
+			while(buffer.hasRemaining()) {
+				if(channel.read(buffer) < 0) throw new IOException("Unexpected end of file");
+			}
+		}
+		finally {
+			StreamUtils.closeQuietly(in);
+		}
+		buffer.clear();
+		return buffer;
+	}
+}
@@ -0,0 +1,131 @@
+/** @file TileStoreLayer.java
+ */
+
+package nl.arjanfrans.mario.model.level;
+
+import com.badlogic.gdx.graphics.Texture;
+import com.badlogic.gdx.maps.tiled.TiledMapTile;
+import com.badlogic.gdx.maps.tiled.TiledMapTileLayer;
+
+/**
+ * @brief Tile layer that looks its cells up in the TileStore of a level
+ * @details It has the size of the whole level, so the renderer uses it like any
+ * TiledMapTileLayer, but it holds no Cell per tile. getCell() fills in one Cell object from the
+ * short of the cell and returns it, it is only valid until the next call. That is how the
+ * renderer uses it. The game changes how a cell is drawn with setState(). setCell() writes the
+ * tile into the store, which only changes what is drawn, the collision grid and the bricks keep
+ * the tiles the level was loaded with.
+ */
+public class TileStoreLayer extends TiledMapTileLayer {
+	private final TileStore store;
+	private final Level level;
+	private final int layer;
+	private final Texture texture;
+	private final TiledMapTile[] tiles;
+	private final Cell cell = new Cell();
+	private TiledMapTile usedTile;
+
+	/** @brief Constructor method
+	 *  @param level Level object with the TileStore
+	 *  @param layer index of the tile layer in the level
+	 *  @param texture Texture of the tileset
+	 *  @param tiles Tile objects by tile of the tileset, shared by the layers of a map and filled as tiles are used
+	 */
+	TileStoreLayer(Level level, int layer, Texture texture, TiledMapTile[] tiles) {
+		super(1, 1, level.tileWidth, level.tileHeight);
+		this.store = level.getTiles();
+		this.level = level;
+		this.layer = layer;
+		this.texture = texture;
+		this.tiles = tiles;
+	}
+
+	@Override
+	public int getWidth() {
+		return level.width;
+	}
+
+	@Override
+	public int getHeight() {
+		return level.height;
+	}
+
+	/** @brief Get a cell
+	 *  @param x coordinate of the cell
+	 *  @param y coordinate of the cell
+	 *  @return Cell object, the same one for every call, or null for an empty or HIDDEN cell
+	 */
+	@Override
+	public Cell getCell(int x, int y) {
+		if(x < 0 || y < 0 || x >= level.width || y >= level.height) return null;
+		int value = store.getValue(layer, x, y);
+		int tile = (value & Level.CELL_TILE) - 1;
+		int state = store.getState(layer, x, y);
+		if(tile < 0 || (state & TileStore.HIDDEN) != 0) return null;
+		if(tiles[tile] == null) tiles[tile] = level.createTile(texture, tile);
+		cell.setTile((state & TileStore.USED) != 0 ? usedTile : tiles[tile]);
+		cell.setFlipHorizontally((value & Level.CELL_FLIP_X) != 0);
+		cell.setFlipVertically((value & Level.CELL_FLIP_Y) != 0);
+		cell.setRotation((value >>> Level.CELL_ROTATION_SHIFT) & 3);
+		return cell;
+	}
+
+	/** @brief Sets a cell in the TileStore of the level
+	 *  @details The tile has to be one of the tileset of the level, found by its id, or the used
+	 *  tile, which makes the cell USED. A tile object that replaces the one of its id, like an
+	 *  AnimatedTiledMapTile, is drawn for every cell of the map with that tile. Any other state of
+	 *  the cell is cleared.
+	 *  @param x coordinate of the cell
+	 *  @param y coordinate of the cell
+	 *  @param cell Cell object, or null to empty the cell
+	 *  @throws IllegalArgumentException when the tile is not in the tileset of the level
+	 */
+	@Override
+	public void setCell(int x, int y, Cell cell) {
+		if(x < 0 || y < 0 || x >= level.width || y >= level.height) return;
+		if(cell == null || cell.getTile() == null) {
+			store.setValue(layer, x, y, 0);
+			store.setState(layer, x, y, 0);
+			return;
+		}
+		if(cell.getTile() == usedTile) {
+			store.setState(layer, x, y, TileStore.USED);
+			return;
+		}
+		int tile = cell.getTile().getId() - level.firstGid;
+		if(tile < 0 || tile >= tiles.length || tile + 1 > Level.CELL_TILE) {
+			throw new IllegalArgumentException("Tile " + cell.getTile().getId() + " is not in the tileset of the level");
+		}
+		tiles[tile] = cell.getTile();
+		int value = tile + 1 | (cell.getRotation() & 3) << Level.CELL_ROTATION_SHIFT;
+		if(cell.getFlipHorizontally()) value |= Level.CELL_FLIP_X;
+		if(cell.getFlipVertically()) value |= Level.CELL_FLIP_Y;
+		store.setValue(layer, x, y, value);
+		store.setState(layer, x, y, 0);
+	}
+
+	/** @brief Get how a cell is drawn
+	 *  @param x coordinate of the cell
+	 *  @param y coordinate of the cell
+	 *  @return TileStore.HIDDEN, TileStore.USED or 0
+	 */
+	public int getState(int x, int y) {
+		return store.getState(layer, x, y);
+	}
+
+	/** @brief Changes how a cell is drawn
+	 *  @param x coordinate of the cell
+	 *  @param y coordinate of the cell
+	 *  @param state TileStore.HIDDEN, TileStore.USED to draw the used tile, or 0 to draw the tile of the level
+	 */
+	public void setState(int x, int y, int state) {
+		store.setState(layer, x, y, state);
+	}
+
+	/** @brief Sets the tile that USED cells are drawn with
+	 *  @param tile TiledMapTile object
+	 */
+	public void setUsedTile(TiledMapTile tile) {
+		usedTile = tile;
+	}
+}
@@ -0,0 +1,437 @@
+/** @file TmxReader.java
+ */
+
+package nl.arjanfrans.mario.model.level;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.ShortBuffer;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.InflaterInputStream;
+
+import nl.arjanfrans.mario.model.collision.TileShape;
+
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.maps.tiled.TiledMapTileLayer.Cell;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.Base64Coder;
+import com.badlogic.gdx.utils.FloatArray;
+import com.badlogic.gdx.utils.GdxRuntimeException;
+import com.badlogic.gdx.utils.ObjectMap;
+import com.badlogic.gdx.utils.StreamUtils;
+import com.badlogic.gdx.utils.XmlReader;
+
+/**
+ * @brief Reads a tmx map into a Level in one pass, without building a document
+ * @details The XmlReader of libGDX calls open, attribute, text and close for every element while it
+ * scans the map. It is not a streaming parser: it first copies the whole file into a char array,
+ * and the text of an element is handed over as one String, so the csv or base64 data of a tile
+ * layer is one String of the size of the layer. Long levels should be compiled to a .lvl file,
+ * which Level maps without reading it. Besides that the reader only keeps the attributes of the
+ * element that is open and the properties of the tile or object that is open, so tile properties
+ * and objects go into the level as they are read. The cells of every tile layer are written into
+ * a direct buffer, outside the Java heap, and copied into the TileStore at the end, when the
+ * amount of layers its chunks hold is known. Nothing is loaded on the GL
+ * thread, a map can be read on any thread. This is the only place where the properties of the map
+ * are looked up by name. The coordinates are the ones the TmxMapLoader gives: rows are counted
+ * from the bottom and objects are placed at their bottom left corner. The tile layers may only
+ * use the first tileset of the map, which has to be inside the map. The other tilesets are the
+ * images of the parallax objects and are skipped.
+ */
+public class TmxReader extends XmlReader {
+	private static final int FLIP_X = 0x80000000;
+	private static final int FLIP_Y = 0x40000000;
+	private static final int FLIP_DIAGONAL = 0x20000000;
+	private static final int GID = 0x1fffffff;
+
+	private final FileHandle file;
+	private final Level level = new Level();
+
+	private final Array<String> open = new Array<String>(); /**< Names of the open elements */
+	private boolean started; /**< Whether the attributes of the innermost open element are all read */
+	private final ObjectMap<String, String> attributes = new ObjectMap<String, String>();
+	private final ObjectMap<String, String> properties = new ObjectMap<String, String>();
+	private String property; /**< Property without a value attribute, its value is the text */
+
+	private int tilesets = 0;
+	private int tile = -1; /**< Tile of the first tileset that is open */
+
+	private final Array<String> layerNames = new Array<String>();
+	private final Array<ShortBuffer> cells = new Array<ShortBuffer>();
+	private String layer;
+	private int layerWidth, layerHeight;
+	private String encoding, compression;
+
+	private String group; /**< Object group that is open */
+	private boolean inObjects, inHiddenItems, inBackground;
+	private boolean objectsRead, hiddenItemsRead, backgroundRead;
+	private boolean inObject;
+	private String objectName;
+	private float objectX, objectY;
+	private final FloatArray goombas = new FloatArray();
+	private final FloatArray items = new FloatArray();
+	private final Array<String> itemTypes = new Array<String>();
+	private final FloatArray decorations = new FloatArray();
+	private final Array<String> decorationLayers = new Array<String>();
+	private final Array<String> decorationSources = new Array<String>();
+	private boolean mario, flag, flagEnd, background;
+
+	private TmxReader(FileHandle file) {
+		this.file = file;
+	}
+
+	/** @brief Reads a tmx map
+	 *  @param file FileHandle of the tmx map, the tileset image is relative to it
+	 *  @return Level object
+	 */
+	public static Level read(FileHandle file) {
+		TmxReader reader = new TmxReader(file);
+		Reader in = file.reader("UTF-8");
+		try {
+			reader.parse(in);
+		}
+		catch(IOException e) {
+			throw new GdxRuntimeException("Error reading level: " + file.path(), e);
+		}
+		finally {
+			StreamUtils.closeQuietly(in);
+		}
+		return reader.finish();
+	}
+
+	@Override
+	protected void open(String name) {
+		start();
+		open.add(name);
+		started = false;
+		attributes.clear();
+	}
+
+	@Override
+	protected void attribute(String name, String value) {
+		attributes.put(name, value);
+	}
+
+	@Override
+	protected void text(String text) {
+		start();
+		if(property != null) {
+			properties.put(property, text);
+		}
+		else if(layer != null && "data".equals(open.peek())) {
+			readCells(text);
+		}
+	}
+
+	@Override
+	protected void close() {
+		start();
+		end(open.pop());
+	}
+
+	/** Handles the innermost open element, once its attributes are read */
+	private void start() {
+		if(started || open.size == 0) return;
+		started = true;
+		String name = open.peek();
+		if(name.equals("map")) {
+			level.width = integer("width", 0);
+			level.height = integer("height", 0);
+			level.tileWidth = integer("tilewidth", 0);
+			level.tileHeight = integer("tileheight", 0);
+		}
+		else if(name.equals("tileset")) {
+			if(tilesets++ > 0) return;
+			if(attributes.containsKey("source")) {
+				throw new IllegalArgumentException(file.path() + ": the first tileset has to be inside the map");
+			}
+			level.firstGid = integer("firstgid", 1);
+			level.spacing = integer("spacing", 0);
+			level.margin = integer("margin", 0);
+		}
+		else if(name.equals("image") && tilesets == 1 && "tileset".equals(parent())) {
+			startTileset();
+		}
+		else if(name.equals("tile") && tilesets == 1 && "tileset".equals(parent())) {
+			tile = integer("id", 0);
+			properties.clear();
+		}
+		else if(name.equals("property")) {
+			String value = attributes.get("value");
+			if(value != null) properties.put(attributes.get("name"), value);
+			else property = attributes.get("name");
+		}
+		else if(name.equals("layer")) {
+			layer = attributes.get("name");
+			layerWidth = integer("width", level.width);
+			layerHeight = integer("height", level.height);
+			layerNames.add(layer);
+			cells.add(ByteBuffer.allocateDirect(level.width * level.height * 2).asShortBuffer());
+		}
+		else if(name.equals("data") && layer != null) {
+			encoding = attributes.get("encoding");
+			compression = attributes.get("compression");
+		}
+		else if(name.equals("objectgroup")) {
+			group = attributes.get("name");
+			inObjects = !objectsRead && "objects".equals(group);
+			inHiddenItems = !hiddenItemsRead && "hidden_items".equals(group);
+			inBackground = !backgroundRead && "background".equals(group);
+		}
+		else if(name.equals("object") && group != null) {
+			startObject();
+		}
+	}
+
+	/** Handles an element that closes */
+	private void end(String name) {
+		if(name.equals("property")) {
+			property = null;
+		}
+		else if(name.equals("tile") && tile >= 0) {
+			endTile();
+			tile = -1;
+		}
+		else if(name.equals("layer")) {
+			layer = null;
+		}
+		else if(name.equals("objectgroup")) {
+			objectsRead |= inObjects;
+			hiddenItemsRead |= inHiddenItems;
+			backgroundRead |= inBackground;
+			inObjects = inHiddenItems = inBackground = false;
+			group = null;
+		}
+		else if(name.equals("object") && inObject) {
+			endObject();
+			inObject = false;
+		}
+	}
+
+	private void startTileset() {
+		level.tilesetSource = attributes.get("source");
+		level.tilesetFile = file.parent().child(level.tilesetSource);
+		int imageWidth = integer("width", -1);
+		int imageHeight = integer("height", -1);
+		if(imageWidth < 0 || imageHeight < 0) {
+			throw new IllegalArgumentException(file.path() + ": the image of the first tileset has no width or height");
+		}
+		// The TmxMapLoader cuts tiles from left to right and top to bottom while a whole tile fits
+		level.columns = (imageWidth - level.margin - level.tileWidth) / (level.tileWidth + level.spacing) + 1;
+		int rows = (imageHeight - level.margin - level.tileHeight) / (level.tileHeight + level.spacing) + 1;
+		level.createTiles(level.columns * rows);
+	}
+
+	private void endTile() {
+		// The TmxMapLoader drops the properties of tiles outside the image
+		if(level.shapes == null || tile >= level.shapes.length) return;
+		level.shapes[tile] = TileShape.parse(properties.get("collision"));
+
+		String actor = properties.get("actor");
+		int flags = "Brick".equals(actor) ? Level.BRICK : "Bonus".equals(actor) ? Level.BONUS : Level.NO_BRICK;
+		if("true".equals(properties.get("destructable"))) flags |= Level.DESTRUCTABLE;
+		level.tileFlags[tile] = (byte) flags;
+		level.colors[tile] = properties.get("color");
+
+		level.animations[tile] = properties.get("animation");
+		level.speeds[tile] = properties.containsKey("speed") ? Float.parseFloat(properties.get("speed")) : 0.15f;
+		level.textures[tile] = properties.get("texture");
+	}
+
+	private void readCells(String text) {
+		ShortBuffer layerCells = cells.peek();
+		if("csv".equals(encoding)) {
+			int i = 0;
+			long gid = 0;
+			boolean digits = false;
+			for(int c = 0; c < text.length(); c++) {
+				char ch = text.charAt(c);
+				if(ch >= '0' && ch <= '9') {
+					gid = gid * 10 + (ch - '0');
+					digits = true;
+				}
+				else if(ch == ',') {
+					setCell(layerCells, i++, (int) gid);
+					gid = 0;
+					digits = false;
+				}
+			}
+			if(digits) setCell(layerCells, i, (int) gid);
+		}
+		else if("base64".equals(encoding)) {
+			byte[] bytes = Base64Coder.decodeLines(text);
+			if(compression != null) bytes = inflate(bytes);
+			for(int i = 0; i + 3 < bytes.length; i += 4) {
+				int gid = (bytes[i] & 0xff) | (bytes[i + 1] & 0xff) << 8 | (bytes[i + 2] & 0xff) << 16 | (bytes[i + 3] & 0xff) << 24;
+				setCell(layerCells, i / 4, gid);
+			}
+		}
+		else {
+			throw new IllegalArgumentException(file.path() + ": layer " + layer + " has to be saved as csv or base64");
+		}
+	}
+
+	/** Puts the i-th gid of the layer data in its cell, the rows of the data go from top to bottom */
+	private void setCell(ShortBuffer layerCells, int i, int gid) {
+		int x = i % layerWidth;
+		int y = layerHeight - 1 - i / layerWidth;
+		int id = gid & GID;
+		if(id == 0 || x >= level.width || y < 0 || y >= level.height) return;
+
+		int tile = id - level.firstGid;
+		if(level.shapes == null || tile < 0 || tile >= level.shapes.length || tile + 1 > Level.CELL_TILE) {
+			throw new IllegalArgumentException(file.path() + ": cell " + x + "," + y + " of layer "
+					+ layer + " does not use the first tileset");
+		}
+		boolean flipX = (gid & FLIP_X) != 0;
+		boolean flipY = (gid & FLIP_Y) != 0;
+		int value = tile + 1;
+		// The same flips and rotations as the cells of the TmxMapLoader
+		if((gid & FLIP_DIAGONAL) != 0) {
+			if(flipX && flipY) value |= Level.CELL_FLIP_X | Cell.ROTATE_270 << Level.CELL_ROTATION_SHIFT;
+			else if(flipX) value |= Cell.ROTATE_270 << Level.CELL_ROTATION_SHIFT;
+			else if(flipY) value |= Cell.ROTATE_90 << Level.CELL_ROTATION_SHIFT;
+			else value |= Level.CELL_FLIP_Y | Cell.ROTATE_270 << Level.CELL_ROTATION_SHIFT;
+		}
+		else {
+			if(flipX) value |= Level.CELL_FLIP_X;
+			if(flipY) value |= Level.CELL_FLIP_Y;
+		}
+		layerCells.put(y * level.width + x, (short) value);
+	}
+
+	private byte[] inflate(byte[] bytes) {
+		try {
+			InputStream in = new ByteArrayInputStream(bytes);
+			if(compression.equals("gzip")) in = new GZIPInputStream(in);
+			else if(compression.equals("zlib")) in = new InflaterInputStream(in);
+			else throw new IllegalArgumentException(file.path() + ": layer " + layer + " has unknown compression " + compression);
+			byte[] out = new byte[layerWidth * layerHeight * 4];
+			int read = 0;
+			while(read < out.length) {
+				int n = in.read(out, read, out.length - read);
+				if(n < 0) break;
+				read += n;
+			}
+			in.close();
+			return out;
+		}
+		catch(IOException e) {
+			throw new IllegalArgumentException(file.path() + ": layer " + layer + " can not be decompressed", e);
+		}
+	}
+
+	private void startObject() {
+		inObject = true;
+		objectName = attributes.get("name");
+		float height = number("height");
+		objectX = number("x");
+		// The TmxMapLoader flips y and moves the object to its bottom
+		objectY = level.height * level.tileHeight - number("y") - height;
+		properties.clear();
+		String type = attributes.get("type");
+		if(type != null) properties.put("type", type);
+	}
+
+	private void endObject() {
+		if(inObjects) {
+			if("goomba".equals(properties.get("type"))) {
+				goombas.add(objectX);
+				goombas.add(objectY);
+			}
+			if(!mario && "mario".equals(objectName)) {
+				mario = true;
+				level.marioX = objectX;
+				level.marioY = objectY;
+			}
+			else if(!flag && "flag".equals(objectName)) {
+				flag = true;
+				level.flagX = objectX;
+				level.flagY = objectY;
+				level.flagWidth = Float.valueOf(property("flag", "width"));
+				level.flagHeight = Float.valueOf(property("flag", "height"));
+			}
+			else if(!flagEnd && "flag_end".equals(objectName)) {
+				flagEnd = true;
+				level.flagEndX = objectX;
+				level.flagEndY = objectY;
+			}
+		}
+		if(inHiddenItems) {
+			items.add(objectX);
+			items.add(objectY);
+			itemTypes.add(properties.get("type"));
+		}
+		if(inBackground) {
+			if(!background && "background_image".equals(objectName)) {
+				background = true;
+				level.background = properties.get("src");
+				level.song = properties.get("audio");
+			}
+		}
+		// Every other object with an image is drawn by the parallax background
+		else if(properties.containsKey("src")) {
+			decorationLayers.add(group);
+			decorationSources.add(properties.get("src"));
+			decorations.add(objectX);
+			decorations.add(objectY);
+		}
+	}
+
+	private Level finish() {
+		if(tilesets == 0 || level.shapes == null) {
+			throw new IllegalArgumentException(file.path() + " has no tileset with an image");
+		}
+		if(!mario) missing("mario");
+		if(!flag) missing("flag");
+		if(!flagEnd) missing("flag_end");
+		if(!background) missing("background_image");
+
+		level.layerNames = layerNames.toArray(String.class);
+		ShortBuffer[] layerCells = cells.toArray(ShortBuffer.class);
+		level.tiles = TileStore.copy(layerCells, level.width, level.height);
+		level.findBricks();
+		level.goombaCount = goombas.size / 2;
+		level.goombas = goombas.toArray();
+		level.itemCount = itemTypes.size;
+		level.items = items.toArray();
+		level.itemTypes = itemTypes.toArray(String.class);
+		level.decorationCount = decorationSources.size;
+		level.createDecorations(level.decorationCount);
+		for(int d = 0; d < level.decorationCount; d++) {
+			level.decorationLayers[d] = decorationLayers.get(d);
+			level.decorationSources[d] = decorationSources.get(d);
+		}
+		System.arraycopy(decorations.items, 0, level.decorations, 0, decorations.size);
+		return level;
+	}
+
+	private void missing(String name) {
+		throw new IllegalArgumentException(file.path() + " has no object named '" + name + "'");
+	}
+
+	private String property(String object, String name) {
+		String value = properties.get(name);
+		if(value == null) {
+			throw new IllegalArgumentException(file.path() + ": object '" + object + "' has no property '" + name + "'");
+		}
+		return value;
+	}
+
+	private String parent() {
+		return open.size > 1 ? open.get(open.size - 2) : null;
+	}
+
+	private int integer(String name, int defaultValue) {
+		String value = attributes.get(name);
+		return value == null ? defaultValue : Integer.parseInt(value);
+	}
+
+	private float number(String name) {
+		String value = attributes.get(name);
+		return value == null ? 0 : Float.parseFloat(value);
+	}
+}
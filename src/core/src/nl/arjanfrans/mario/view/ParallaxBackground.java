@@ -1,16 +1,14 @@
 package nl.arjanfrans.mario.view;
 
-import java.util.Iterator;
-
 import nl.arjanfrans.mario.debug.D;
 import nl.arjanfrans.mario.model.World;
+import nl.arjanfrans.mario.model.level.Level;
 
 import com.badlogic.gdx.graphics.Camera;
 import com.badlogic.gdx.graphics.Texture;
 import com.badlogic.gdx.graphics.Texture.TextureFilter;
 import com.badlogic.gdx.graphics.g2d.SpriteBatch;
-import com.badlogic.gdx.maps.Map;
-import com.badlogic.gdx.maps.MapObject;
+import com.badlogic.gdx.utils.IntArray;
 
 /** @brief The class meant to create a parallax background.
  */
@@ -55,13 +53,14 @@ public class ParallaxBackground {
 	 * @param batch - a SpriteBatch object
 	 */
 	private void drawLayer(ParallaxLayer layer, SpriteBatch batch) {
-		Iterator<MapObject> it = layer.getLayerObjects().iterator();
-		while(it.hasNext()) {
-			MapObject obj = it.next();
-			float x = (float) ((Float) obj.getProperties().get("x") * 1/16f);
-			float y = (float) ((Float) obj.getProperties().get("y") * 1/16f);
+		Level level = world.getLevel();
+		IntArray objects = layer.getLayerObjects();
+		for(int i = 0; i < objects.size; i++) {
+			int obj = objects.get(i);
+			float x = level.getDecorationX(obj) * 1/16f;
+			float y = level.getDecorationY(obj) * 1/16f;
 			
-			String file = "data/backgrounds/" + (String) obj.getProperties().get("src");
+			String file = Level.BACKGROUNDS + level.getDecorationSource(obj);
 			Texture texture = layer.getLayerTextures().get(file);
 			batch.draw(layer.getLayerTextures().get(file), x + layer.positionX,
 					y + layer.positionY, texture.getWidth() * 1/16f, texture.getHeight() * 1/16f);
@@ -86,6 +85,15 @@ public class ParallaxBackground {
 		}
 	}
 
+	/** @brief A method meant to move every layer back to its start position.
+	 */
+	public void reset() {
+		for (ParallaxLayer layer : layers) {
+			layer.positionX = 0;
+			layer.positionY = 0;
+		}
+	}
+
 	/** @brief A method meant to dispose of all layers of the ParallaxBackground.
 	 */
 	public void dispose() {
@@ -1,16 +1,14 @@
 package nl.arjanfrans.mario.view;
 
-import java.util.Iterator;
-
 import nl.arjanfrans.mario.model.World;
+import nl.arjanfrans.mario.model.level.Level;
 
+import com.badlogic.gdx.Gdx;
 import com.badlogic.gdx.graphics.Texture;
 import com.badlogic.gdx.graphics.Texture.TextureFilter;
 import com.badlogic.gdx.graphics.g2d.TextureRegion;
-import com.badlogic.gdx.maps.Map;
-import com.badlogic.gdx.maps.MapObject;
-import com.badlogic.gdx.utils.Array;
 import com.badlogic.gdx.utils.ArrayMap;
+import com.badlogic.gdx.utils.IntArray;
 
 /** @brief The class meant to retrieve a layer from a ParallaxBackground.
  */
@@ -27,7 +25,7 @@ public class ParallaxLayer {
 	float positionX, positionY;
 
 	private World world;
-	private Array<MapObject> layer_objects;
+	private IntArray layer_objects;
 	private ArrayMap<String, Texture> layer_textures;
 	private String layer_name;
 	
@@ -41,25 +39,24 @@ public class ParallaxLayer {
 	public ParallaxLayer(World world, String layer_name, float pRatioX, float pRatioY) {
 		this.world = world;
 		this.layer_name = layer_name;
-		layer_objects = new Array<MapObject>();
+		layer_objects = new IntArray();
 		layer_textures = new ArrayMap<String, Texture>();
 		ratioX = pRatioX;
 		ratioY = pRatioY;
 		loadObjects();
 	}
 	
-	/** @brief A method meant to load the objects from the tmx file, convert them into textures and put them on the layer.
+	/** @brief A method meant to load the objects of the layer from the level, convert them into textures and put them on the layer.
 	 */
 	private void loadObjects() {
 		//TODO Use a spritesheet for the background objects
-		Map map = world.getMap();
-		Iterator<MapObject> it = map.getLayers().get(layer_name).getObjects().iterator();
-		while(it.hasNext()) {
-			MapObject obj = it.next();
-			String file = "data/backgrounds/" + (String) obj.getProperties().get("src");
-			layer_objects.add(obj);
+		Level level = world.getLevel();
+		for(int i = 0; i < level.getDecorationCount(); i++) {
+			if(!layer_name.equals(level.getDecorationLayer(i))) continue;
+			String file = Level.BACKGROUNDS + level.getDecorationSource(i);
+			layer_objects.add(i);
 			if(!layer_textures.containsKey(file)) {
-				Texture texture = new Texture(file);
+				Texture texture = level.createTexture(Gdx.files.internal(file));
 				texture.setFilter(TextureFilter.Nearest, TextureFilter.Nearest);
 				layer_textures.put(file, texture);
 			}
@@ -70,7 +67,10 @@ public class ParallaxLayer {
 		return layer_textures;
 	}
 	
-	public Array<MapObject> getLayerObjects() {
+	/** @brief Get the objects on the layer
+	 * @return indices of the parallax objects of the level that are on this layer
+	 */
+	public IntArray getLayerObjects() {
 		return layer_objects;
 	}
 
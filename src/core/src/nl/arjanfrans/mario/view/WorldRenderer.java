@@ -5,6 +5,7 @@ package nl.arjanfrans.mario.view;
 
 import nl.arjanfrans.mario.model.Mario;
 import nl.arjanfrans.mario.model.World;
+import nl.arjanfrans.mario.model.level.Level;
 
 import com.badlogic.gdx.Gdx;
 import com.badlogic.gdx.graphics.GL20;
@@ -13,7 +14,6 @@ import com.badlogic.gdx.graphics.Texture;
 import com.badlogic.gdx.graphics.Texture.TextureFilter;
 import com.badlogic.gdx.graphics.Texture.TextureWrap;
 import com.badlogic.gdx.graphics.g2d.SpriteBatch;
-import com.badlogic.gdx.maps.Map;
 import com.badlogic.gdx.maps.tiled.renderers.OrthogonalTiledMapRenderer;
 import com.badlogic.gdx.math.Rectangle;
 import com.badlogic.gdx.math.Vector2;
@@ -59,14 +59,13 @@ public class WorldRenderer {
 
 
 		camera = new OrthographicCamera(VIRTUAL_WIDTH, VIRTUAL_HEIGHT);
-		camera.setToOrtho(false, 16, 12);
+		camera.setToOrtho(false, World.VIEW_WIDTH, World.VIEW_HEIGHT);
 		camera.update();
 		Gdx.gl.glEnable(GL20.GL_TEXTURE_2D);
 		Gdx.gl.glTexParameterf(GL20.GL_TEXTURE_2D, GL20.GL_TEXTURE_MAG_FILTER, GL20.GL_NEAREST);
 
-		stage.setViewport(new StretchViewport(16, 12, camera));
+		stage.setViewport(new StretchViewport(World.VIEW_WIDTH, World.VIEW_HEIGHT, camera));
 		
-		stage.act(Gdx.graphics.getDeltaTime());
 		stage.draw();
 
 		ParallaxLayer l1 = new ParallaxLayer(world, "far_background", 0.8f,0);
@@ -129,10 +128,9 @@ public class WorldRenderer {
 	 * @return texture of world
 	 */
 	private Texture loadBackground() {
-		String name = (String) world.getMap().getLayers().get("background").getObjects().get("background_image")
-				.getProperties().get("src");
+		Level level = world.getLevel();
 
-		Texture texture = new Texture("data/backgrounds/" + name + ".png");
+		Texture texture = level.createTexture(Gdx.files.internal(Level.BACKGROUNDS + level.getBackground() + ".png"));
 
 		texture.setWrap(TextureWrap.Repeat, TextureWrap.ClampToEdge);
 		texture.setFilter(TextureFilter.Nearest, TextureFilter.Nearest);
@@ -146,13 +144,19 @@ public class WorldRenderer {
 	 */
 	private void drawBackground(SpriteBatch batch, float posX, float posY) {
 		batch.begin();
-		Map map = world.getMap();
-		int width = (Integer) map.getProperties().get("width");
+		int width = world.getLevel().getWidth();
 		//getTexture("big_mountain").getWidth() * 
 		batch.draw(background_image , -16 ,0 , width * 16, 16);
 		batch.end();
 	}
 
+	/** @brief Puts the parallax background back at its start, for a world that was reset
+	 *  @details The renderer keeps its textures, the camera follows Mario on the next render.
+	 */
+	public void reset() {
+		parallax_bg.reset();
+	}
+
 	/** @brief Get camera
 	 * @return camera OrthographicCamera object
 	 */
@@ -183,7 +187,7 @@ public class WorldRenderer {
 		//drawFarBackground(renderer.getSpriteBatch(), camera.position.x, 0);
 		//parallax_bg.moveX(Gdx.graphics.getDeltaTime(), camera.position.x); // move to the right to show the effect
 
-		parallax_bg.moveX(player.getVelocity().x*Gdx.graphics.getDeltaTime());
+		parallax_bg.moveX(player.getVelocity().x*world.getClock().getElapsed());
 		parallax_bg.render();
 
 
@@ -0,0 +1,128 @@
+/** @file AllocationCheck.java
+ */
+
+package nl.arjanfrans.mario.headless;
+
+import java.lang.management.ManagementFactory;
+
+import nl.arjanfrans.mario.model.Goomba;
+import nl.arjanfrans.mario.model.Mario;
+import nl.arjanfrans.mario.model.World;
+import nl.arjanfrans.mario.model.WorldConfig;
+import nl.arjanfrans.mario.model.brick.BrickTable;
+
+import com.badlogic.gdx.ApplicationAdapter;
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.Input.Keys;
+import com.badlogic.gdx.backends.headless.mock.input.MockInput;
+
+/**
+ * @brief Counts the bytes the simulation allocates once it runs steadily
+ * @details The check runs two phases on level 1. In the first Mario walks back and forth and
+ * jumps near the start, while the goombas are still asleep. In the second Mario stands still
+ * with his controls turned off, every spawned goomba is woken and every hidden mushroom is released, so
+ * the goombas and mushrooms in the awake chunks near Mario run their physics without killing
+ * him. Each phase is warmed up first, then the bytes allocated by this thread are counted
+ * over the measured ticks. Allocation
+ * that only happens on events, like a goomba dying, is not expected in these phases. The check
+ * also fails when Mario died and the world was reset during the measured ticks.
+ * Run it with -Xint: the JIT removes some allocations and materializes others when it
+ * deoptimizes, the interpreter counts exactly what the code allocates.
+ * The application exits with status 1 when anything was allocated.
+ */
+public class AllocationCheck extends ApplicationAdapter {
+	private static final int WARMUP_TICKS = 2000;
+
+	private final long ticks;
+	private World world;
+	private long tick = 0;
+	private boolean failed = false;
+
+	/** @brief Constructor method
+	 *  @param ticks The amount of measured ticks per phase
+	 */
+	public AllocationCheck(long ticks) {
+		this.ticks = ticks;
+	}
+
+	/** @brief Loads the level and runs both phases
+	 */
+	@Override
+	public void create() {
+		NullGL20.install();
+		Gdx.input = new ScriptedInput();
+		world = new World(WorldConfig.headless());
+		com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+		run(WARMUP_TICKS);
+		report("Mario", measure(threads));
+
+		Mario player = world.getPlayer();
+		player.setControlsEnabled(false);
+		for(Goomba goomba : world.getEnemies()) goomba.setMoving(true);
+		// Bump every brick with a mushroom in it, the bricks turn back into tiles during the warm up
+		BrickTable bricks = world.getBricks();
+		for(int i = 0; i < bricks.size(); i++) {
+			if(bricks.hasItem(i)) bricks.activate(bricks.getX(i), bricks.getY(i)).hit(1);
+		}
+		run(WARMUP_TICKS);
+		report("Goomba and Super", measure(threads));
+
+		Gdx.app.exit();
+	}
+
+	private long measure(com.sun.management.ThreadMXBean threads) {
+		int resets = world.getResets();
+		long thread = Thread.currentThread().getId();
+		long before = threads.getThreadAllocatedBytes(thread);
+		run(ticks);
+		long allocated = threads.getThreadAllocatedBytes(thread) - before;
+		if(world.getResets() != resets) {
+			System.out.println("The world was reset during the measurement, the result is not steady-state.");
+			failed = true;
+		}
+		return allocated;
+	}
+
+	private void run(long amount) {
+		for(long i = 0; i < amount; i++, tick++) {
+			world.step();
+		}
+	}
+
+	private void report(String phase, long allocated) {
+		System.out.printf("%s: %d bytes allocated in %d ticks%n", phase, allocated, ticks);
+		if(allocated > 0) failed = true;
+	}
+
+	/** @brief Disposes the world and sets the exit status
+	 */
+	@Override
+	public void dispose() {
+		if(world != null) world.dispose();
+		if(failed) System.exit(1);
+	}
+
+	/**
+	 * @brief Keyboard that makes Mario hop around his starting position on a fixed schedule
+	 * @details Mario stays clear of the bricks above him and far enough away from the first
+	 * goomba that it is not woken. The schedule only depends on the tick, so every run sees
+	 * the same input.
+	 */
+	private class ScriptedInput extends MockInput {
+		@Override
+		public boolean isKeyPressed(int key) {
+			long phase = tick % 240;
+			switch(key) {
+				case Keys.RIGHT:
+					return phase < 16;
+				case Keys.LEFT:
+					return phase >= 120 && phase < 136;
+				case Keys.SPACE:
+					return tick % 97 < 30;
+				default:
+					return false;
+			}
+		}
+	}
+}
@@ -0,0 +1,77 @@
+/** @file CompileLevels.java
+ */
+
+package nl.arjanfrans.mario.headless;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+import nl.arjanfrans.mario.model.level.Level;
+import nl.arjanfrans.mario.model.level.TmxReader;
+
+import com.badlogic.gdx.ApplicationAdapter;
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.files.FileHandle;
+
+/**
+ * @brief Compiles tmx maps into the binary levels the game loads
+ * @details Every map is read into a Level by the TmxReader and written next to the map with the
+ * extension Level.EXTENSION. The compiled level is read back to check it, chunk by chunk, and
+ * the load times of both are printed. Runs from the assets directory, see the compileLevels
+ * task. The application exits with status 1 when a map fails.
+ */
+public class CompileLevels extends ApplicationAdapter {
+	private final String[] paths;
+
+	/** @brief Constructor method
+	 *  @param paths Internal paths of the tmx maps
+	 */
+	public CompileLevels(String[] paths) {
+		this.paths = paths;
+	}
+
+	/** @brief Compiles every map, then exits
+	 */
+	@Override
+	public void create() {
+		boolean failed = false;
+		for(String path : paths) {
+			try {
+				compile(path);
+			}
+			catch(RuntimeException e) {
+				System.err.println(path + ": " + e.getMessage());
+				failed = true;
+			}
+			catch(IOException e) {
+				System.err.println(path + ": " + e.getMessage());
+				failed = true;
+			}
+		}
+		Gdx.app.exit();
+		if(failed) System.exit(1);
+	}
+
+	private void compile(String path) throws IOException {
+		FileHandle tmx = Gdx.files.internal(path);
+		long start = System.nanoTime();
+		Level level = TmxReader.read(tmx);
+		long tmxTime = System.nanoTime() - start;
+
+		FileHandle compiled = Gdx.files.local(Level.compiledPath(path));
+		OutputStream out = compiled.write(false);
+		try {
+			level.write(out);
+		}
+		finally {
+			out.close();
+		}
+
+		start = System.nanoTime();
+		Level read = Level.read(compiled);
+		long readTime = System.nanoTime() - start;
+		for(int c = 0; c < read.getChunkCount(); c++) read.readChunk(c);
+		System.out.println(path + " -> " + compiled.path() + ": " + tmx.length() + " -> " + compiled.length()
+				+ " bytes, loaded in " + tmxTime / 1000 + " -> " + readTime / 1000 + " us");
+	}
+}
@@ -0,0 +1,68 @@
+/** @file HeadlessLauncher.java
+ */
+
+package nl.arjanfrans.mario.headless;
+
+import com.badlogic.gdx.backends.headless.HeadlessApplication;
+import com.badlogic.gdx.backends.headless.HeadlessApplicationConfiguration;
+
+/**
+ * @brief Runs the game simulation without a window, OpenGL or audio
+ */
+public class HeadlessLauncher {
+	private static final long DEFAULT_TICKS = 100000;
+
+	private static final long ALLOCATION_TICKS = 10000;
+
+	private static final int RESPAWN_DEATHS = 500;
+
+	private static final long SHAPE_TICKS = 3000;
+
+	/** @brief Main method
+	 *  @details Launches the simulation through the headless backend of libGDX
+	 *  @param arg - optionally the amount of ticks to simulate, or --alloc followed by an
+	 *  optional amount of ticks to count the allocations of the simulation instead, or --crowd
+	 *  followed by an amount of goombas and optionally of ticks and of threads to run a stress test,
+	 *  or --fixed followed by an optional amount of ticks to run with fixed point physics and print
+	 *  a checksum of every tick, or --compile followed by tmx maps to compile them into levels,
+	 *  or --respawn followed by an optional amount of deaths to check that respawning is cheap,
+	 *  or --shapes followed by an optional amount of ticks to check goombas and casts on tile shapes
+	 */
+	public static void main (String[] arg) {
+		HeadlessApplicationConfiguration config = new HeadlessApplicationConfiguration();
+		if(arg.length > 0 && arg[0].equals("--alloc")) {
+			long ticks = arg.length > 1 ? Long.parseLong(arg[1]) : ALLOCATION_TICKS;
+			new HeadlessApplication(new AllocationCheck(ticks), config);
+			return;
+		}
+		if(arg.length > 1 && arg[0].equals("--crowd")) {
+			long ticks = arg.length > 2 ? Long.parseLong(arg[2]) : DEFAULT_TICKS;
+			int threads = arg.length > 3 ? Integer.parseInt(arg[3]) : Runtime.getRuntime().availableProcessors();
+			new HeadlessApplication(new HeadlessSimulation(ticks, Integer.parseInt(arg[1]), threads), config);
+			return;
+		}
+		if(arg.length > 0 && arg[0].equals("--compile")) {
+			String[] paths = new String[arg.length - 1];
+			System.arraycopy(arg, 1, paths, 0, paths.length);
+			new HeadlessApplication(new CompileLevels(paths), config);
+			return;
+		}
+		if(arg.length > 0 && arg[0].equals("--respawn")) {
+			int deaths = arg.length > 1 ? Integer.parseInt(arg[1]) : RESPAWN_DEATHS;
+			new HeadlessApplication(new RespawnCheck(deaths), config);
+			return;
+		}
+		if(arg.length > 0 && arg[0].equals("--shapes")) {
+			long ticks = arg.length > 1 ? Long.parseLong(arg[1]) : SHAPE_TICKS;
+			new HeadlessApplication(new ShapeCheck(ticks), config);
+			return;
+		}
+		if(arg.length > 0 && arg[0].equals("--fixed")) {
+			long ticks = arg.length > 1 ? Long.parseLong(arg[1]) : DEFAULT_TICKS;
+			new HeadlessApplication(new HeadlessSimulation(ticks, true), config);
+			return;
+		}
+		long ticks = arg.length > 0 ? Long.parseLong(arg[0]) : DEFAULT_TICKS;
+		new HeadlessApplication(new HeadlessSimulation(ticks), config);
+	}
+}
@@ -0,0 +1,158 @@
+/** @file HeadlessSimulation.java
+ */
+
+package nl.arjanfrans.mario.headless;
+
+import nl.arjanfrans.mario.model.MovingActor;
+import nl.arjanfrans.mario.model.World;
+import nl.arjanfrans.mario.model.WorldConfig;
+import nl.arjanfrans.mario.model.enemy.GoombaStore;
+
+import com.badlogic.gdx.ApplicationAdapter;
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.scenes.scene2d.Actor;
+import com.badlogic.gdx.utils.SnapshotArray;
+
+/**
+ * @brief Steps the world as fast as possible without rendering or audio
+ * @details The level is loaded once, then advanced a fixed amount of ticks of the simulation
+ * clock. Afterwards the throughput is reported and the application exits. For stress tests a
+ * crowd of extra goombas can be spread over the level, these are kept in a GoombaStore. With
+ * fixed point physics the state of every tick is hashed, two runs have to print the same checksum.
+ */
+public class HeadlessSimulation extends ApplicationAdapter {
+	private final long ticks;
+	private final int crowd;
+	private final int threads;
+	private final boolean fixedPoint;
+	private World world;
+
+	/** @brief Constructor method
+	 *  @param ticks The amount of ticks the world is advanced
+	 */
+	public HeadlessSimulation(long ticks) {
+		this(ticks, 0, 1);
+	}
+
+	/** @brief Constructor method
+	 *  @param ticks The amount of ticks the world is advanced
+	 *  @param fixedPoint Whether the actors do their physics in subpixel integers
+	 */
+	public HeadlessSimulation(long ticks, boolean fixedPoint) {
+		this.ticks = ticks;
+		this.crowd = 0;
+		this.threads = 1;
+		this.fixedPoint = fixedPoint;
+	}
+
+	/** @brief Constructor method
+	 *  @param ticks The amount of ticks the world is advanced
+	 *  @param crowd The amount of extra goombas, 0 to run the level as it is
+	 *  @param threads The amount of threads that move the goombas
+	 */
+	public HeadlessSimulation(long ticks, int crowd, int threads) {
+		this.ticks = ticks;
+		this.crowd = crowd;
+		this.threads = threads;
+		this.fixedPoint = false;
+	}
+
+	/** @brief Loads the level and runs the simulation
+	 */
+	@Override
+	public void create() {
+		NullGL20.install();
+
+		long loadStart = System.nanoTime();
+		WorldConfig config = WorldConfig.headless();
+		config.enemyStore = crowd > 0;
+		config.enemyThreads = threads;
+		// The whole crowd moves, so the whole level stays loaded
+		if(crowd > 0) config.residentMargin = Float.POSITIVE_INFINITY;
+		config.fixedPoint = fixedPoint;
+		world = new World(config);
+		if(crowd > 0) addCrowd();
+		long loadTime = System.nanoTime() - loadStart;
+
+		long hash = 0;
+		long start = System.nanoTime();
+		for(long i = 0; i < ticks; i++) {
+			world.step();
+			if(fixedPoint) hash = hash * 31 + checksum(world);
+		}
+		long time = System.nanoTime() - start;
+
+		double seconds = time / 1e9;
+		System.out.printf("Loaded level in %.1f ms%n", loadTime / 1e6);
+		System.out.printf("Simulated %d ticks (%.1f s of game time) in %.3f s%n",
+				ticks, ticks * world.getClock().getDelta(), seconds);
+		System.out.printf("%.0f ticks per second%n", ticks / seconds);
+		if(crowd > 0) {
+			System.out.printf("%d of %d goombas left, moved by %d threads%n", world.getGoombaStore().size(), crowd, threads);
+			System.out.printf("Checksum of the goombas: %016x%n", checksum(world.getGoombaStore()));
+		}
+		if(fixedPoint) System.out.printf("Checksum of all ticks: %016x%n", hash);
+
+		Gdx.app.exit();
+	}
+
+	/** @brief Drops the crowd of goombas from the top of the level, spread evenly over its width
+	 */
+	private void addCrowd() {
+		GoombaStore store = world.getGoombaStore();
+		float width = world.getCollisionGrid().getWidth() - 2;
+		float top = world.getCollisionGrid().getHeight() - 2;
+		for(int i = 0; i < crowd; i++) {
+			store.add(1 + width * i / crowd, top);
+		}
+		for(int i = 0; i < store.size(); i++) {
+			store.wake(i);
+		}
+		// Mario stays out of the way, otherwise the crowd kills him and the reset removes it
+		world.getPlayer().setControlsEnabled(false);
+	}
+
+	/** @brief Hashes the exact position and state of every goomba
+	 *  @details Runs with a different amount of threads have to print the same checksum.
+	 *  @param store The goombas
+	 *  @return checksum
+	 */
+	private static long checksum(GoombaStore store) {
+		long hash = store.size();
+		for(int i = 0; i < store.size(); i++) {
+			hash = hash * 31 + Float.floatToIntBits(store.getX(i));
+			hash = hash * 31 + Float.floatToIntBits(store.getY(i));
+			hash = hash * 31 + store.getState(i);
+		}
+		return hash;
+	}
+
+	/** @brief Hashes the exact position and velocity of Mario and of the actors that are awake
+	 *  @param world The world
+	 *  @return checksum
+	 */
+	private static long checksum(World world) {
+		long hash = hash(0, world.getPlayer());
+		for(int c = 0; c < world.getChunks().activeSize(); c++) {
+			SnapshotArray<Actor> actors = world.getChunks().getActive(c).getChildren();
+			for(int i = 0; i < actors.size; i++) {
+				if(actors.get(i) instanceof MovingActor) hash = hash(hash, (MovingActor) actors.get(i));
+			}
+		}
+		return hash;
+	}
+
+	private static long hash(long hash, MovingActor actor) {
+		hash = hash * 31 + Float.floatToIntBits(actor.getX());
+		hash = hash * 31 + Float.floatToIntBits(actor.getY());
+		hash = hash * 31 + Float.floatToIntBits(actor.getVelocity().x);
+		return hash * 31 + Float.floatToIntBits(actor.getVelocity().y);
+	}
+
+	/** @brief Disposes the world
+	 */
+	@Override
+	public void dispose() {
+		if(world != null) world.dispose();
+	}
+}
@@ -0,0 +1,58 @@
+/** @file NullGL20.java
+ */
+
+package nl.arjanfrans.mario.headless;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.nio.IntBuffer;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.graphics.GL20;
+
+/**
+ * @brief OpenGL implementation that does nothing
+ * @details The headless backend does not provide OpenGL, but loading a level still creates
+ * textures, a sprite batch and its shader. This handler accepts every call, hands out object
+ * names so they look valid and reports that shaders compile and link.
+ */
+public class NullGL20 implements InvocationHandler {
+	private static final int GL_COMPILE_STATUS = 0x8B81;
+	private static final int GL_LINK_STATUS = 0x8B82;
+
+	private int names = 0;
+
+	/** @brief Installs the empty implementation as Gdx.gl
+	 */
+	public static void install() {
+		GL20 gl = (GL20) Proxy.newProxyInstance(GL20.class.getClassLoader(),
+				new Class<?>[] { GL20.class }, new NullGL20());
+		Gdx.gl = gl;
+		Gdx.gl20 = gl;
+	}
+
+	/** @brief Handles a call on the proxy
+	 *  @return a neutral value for the return type of the method
+	 */
+	@Override
+	public Object invoke(Object proxy, Method method, Object[] args) {
+		String name = method.getName();
+		Class<?> type = method.getReturnType();
+
+		if((name.equals("glGetShaderiv") || name.equals("glGetProgramiv")) && args[2] instanceof IntBuffer) {
+			int pname = (Integer) args[1];
+			IntBuffer params = (IntBuffer) args[2];
+			params.put(params.position(), pname == GL_COMPILE_STATUS || pname == GL_LINK_STATUS ? 1 : 0);
+			return null;
+		}
+
+		if(type == int.class) {
+			return name.startsWith("glGen") || name.startsWith("glCreate") ? ++names : 0;
+		}
+		if(type == boolean.class) return false;
+		if(type == float.class) return 0f;
+		if(type == String.class) return "";
+		return null;
+	}
+}
@@ -0,0 +1,122 @@
+/** @file RespawnCheck.java
+ */
+
+package nl.arjanfrans.mario.headless;
+
+import nl.arjanfrans.mario.model.World;
+import nl.arjanfrans.mario.model.WorldConfig;
+import nl.arjanfrans.mario.view.WorldRenderer;
+
+import com.badlogic.gdx.ApplicationAdapter;
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.Input.Keys;
+import com.badlogic.gdx.backends.headless.mock.input.MockInput;
+import com.badlogic.gdx.graphics.Texture;
+
+/**
+ * @brief Kills Mario over and over and checks that respawning stays cheap
+ * @details The world is rendered, on the OpenGL implementation that does nothing, so the
+ * renderer, the fonts of the HUD and the textures of the parallax background are created like
+ * in the game. Every life Mario runs to the right for a fixed amount of ticks, with a frame drawn
+ * after every tick, and is then killed, so the world resets on the next tick. The first life is
+ * a warm up, it loads the textures the level only needs once it is played. After that the
+ * world has to keep its renderer, with its sprite batch and parallax layers, and the amount of
+ * managed textures may not change, a reset that loads the fonts or backgrounds again would leak
+ * them. The average and the
+ * slowest respawn tick are printed. The application exits with status 1 when anything was
+ * created again or a death did not reset the world.
+ */
+public class RespawnCheck extends ApplicationAdapter {
+	private static final int LIFE_TICKS = 137;
+
+	private final int deaths;
+	private World world;
+	private long tick = 0; /**< Tick of the current life */
+	private boolean failed = false;
+
+	/** @brief Constructor method
+	 *  @param deaths The amount of measured deaths
+	 */
+	public RespawnCheck(int deaths) {
+		this.deaths = deaths;
+	}
+
+	/** @brief Loads the level and lets Mario die the given amount of times
+	 */
+	@Override
+	public void create() {
+		NullGL20.install();
+		Gdx.input = new ScriptedInput();
+		WorldConfig config = WorldConfig.headless();
+		config.render = true;
+		world = new World(config);
+
+		die();
+		WorldRenderer renderer = world.getRenderer();
+		int textures = Texture.getNumManagedTextures();
+		int resets = world.getResets();
+		long total = 0;
+		long slowest = 0;
+		for(int i = 0; i < deaths; i++) {
+			long time = die();
+			total += time;
+			slowest = Math.max(slowest, time);
+		}
+		int leaked = Texture.getNumManagedTextures() - textures;
+		System.out.printf("%d respawns: %.1f us on average, %.1f us at most, %d textures leaked%n",
+				world.getResets() - resets, total / 1000f / Math.max(1, deaths), slowest / 1000f, leaked);
+		if(leaked != 0) failed = true;
+		if(world.getRenderer() != renderer) {
+			System.out.println("The renderer was created again, a reset may only call WorldRenderer.reset().");
+			failed = true;
+		}
+		if(world.getResets() - resets != deaths) {
+			System.out.printf("%d deaths but %d resets%n", deaths, world.getResets() - resets);
+			failed = true;
+		}
+
+		Gdx.app.exit();
+	}
+
+	/** @brief Plays one life
+	 *  @return The nanoseconds the tick that reset the world took
+	 */
+	private long die() {
+		for(tick = 0; tick < LIFE_TICKS; tick++) {
+			world.step();
+			world.getRenderer().render();
+		}
+		world.getPlayer().setDead(true);
+		long start = System.nanoTime();
+		world.step();
+		long time = System.nanoTime() - start;
+		world.getRenderer().render();
+		return time;
+	}
+
+	/** @brief Disposes the world and sets the exit status
+	 */
+	@Override
+	public void dispose() {
+		if(world != null) world.dispose();
+		if(failed) System.exit(1);
+	}
+
+	/**
+	 * @brief Keyboard that makes Mario run to the right and jump on a fixed schedule
+	 * @details The schedule starts over every life, so every life is played the same.
+	 */
+	private class ScriptedInput extends MockInput {
+		@Override
+		public boolean isKeyPressed(int key) {
+			switch(key) {
+				case Keys.RIGHT:
+					return true;
+				case Keys.SPACE:
+					return tick % 97 < 30;
+				default:
+					return false;
+			}
+		}
+	}
+}
@@ -0,0 +1,174 @@
+/** @file ShapeCheck.java
+ */
+
+package nl.arjanfrans.mario.headless;
+
+import java.util.Arrays;
+
+import nl.arjanfrans.mario.model.Goomba;
+import nl.arjanfrans.mario.model.World;
+import nl.arjanfrans.mario.model.WorldConfig;
+import nl.arjanfrans.mario.model.collision.CastHit;
+import nl.arjanfrans.mario.model.collision.GridCaster;
+import nl.arjanfrans.mario.model.collision.TileShape;
+import nl.arjanfrans.mario.model.enemy.GoombaStore;
+
+import com.badlogic.gdx.ApplicationAdapter;
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.backends.headless.mock.input.MockInput;
+
+/**
+ * @brief Checks that goomba actors, the goomba store and the caster agree on tile shapes
+ * @details The shapes level has half blocks, slopes of 45 and 22.5 degrees and one-way
+ * platforms, which level 1 does not. It is played twice, once with a Goomba actor per enemy
+ * and once with a GoombaStore. Mario stands behind a wall and every goomba is woken, so they
+ * all walk into the shapes. After every tick the positions of the goombas
+ * of both runs, in x order, have to be the same within TOLERANCE. The actors keep their
+ * velocity in a vector that is scaled per substep, so the last bits may differ.
+ * Then rays and boxes are cast at the shapes and have to hit them at known distances.
+ * The application exits with status 1 when anything differs.
+ */
+public class ShapeCheck extends ApplicationAdapter {
+	private static final String LEVEL = "data/shapes.tmx";
+	private static final float TOLERANCE = 1e-3f;
+
+	private final long ticks;
+	private boolean failed = false;
+
+	/** @brief Constructor method
+	 *  @param ticks The amount of ticks each run is played
+	 */
+	public ShapeCheck(long ticks) {
+		this.ticks = ticks;
+	}
+
+	/** @brief Plays the level with actors and with a store, and casts at its shapes
+	 */
+	@Override
+	public void create() {
+		NullGL20.install();
+		Gdx.input = new MockInput();
+
+		World actors = new World(config(false));
+		World store = new World(config(true));
+		// Spawns the goomba actors, they act from the next tick on like the goombas of the store from the first
+		actors.step();
+		int mismatches = 0;
+		float largest = 0;
+		for(long tick = 0; tick < ticks; tick++) {
+			for(Goomba goomba : actors.getEnemies()) goomba.setMoving(true);
+			for(int i = 0; i < store.getGoombaStore().size(); i++) store.getGoombaStore().wake(i);
+			actors.step();
+			store.step();
+
+			float[] a = positions(actors), s = positions(store);
+			if(a.length != s.length) {
+				if(mismatches++ == 0) System.out.printf("tick %d: %d goomba actors, %d in the store%n", tick, a.length / 2, s.length / 2);
+				continue;
+			}
+			float difference = 0;
+			for(int i = 0; i < a.length; i++) difference = Math.max(difference, Math.abs(a[i] - s[i]));
+			largest = Math.max(largest, difference);
+			if(difference > TOLERANCE && mismatches++ == 0) {
+				System.out.printf("tick %d: goombas differ by %f%n actors %s%n store  %s%n", tick, difference,
+						Arrays.toString(a), Arrays.toString(s));
+			}
+		}
+		System.out.printf("%d ticks, %d goombas left: %d mismatches, largest difference %f%n", ticks,
+				store.getGoombaStore().size(), mismatches, largest);
+		if(mismatches > 0) failed = true;
+
+		GridCaster caster = store.getCaster();
+		CastHit hit = new CastHit();
+		// Down onto the slopes, where the top is below the ray
+		expect("ray down onto slope45_up", caster.raycast(17.75f, 5, 0, -1, 10, hit), hit,
+				4 - TileShape.top(TileShape.SLOPE45_UP, 0.75f), 17, 1);
+		expect("ray down onto slope45_down", caster.raycast(20.25f, 5, 0, -1, 10, hit), hit,
+				3 - TileShape.top(TileShape.SLOPE45_DOWN, 0.25f), 20, 2);
+		expect("ray down onto slope22_up_high", caster.raycast(33.5f, 5, 0, -1, 10, hit), hit,
+				4 - TileShape.top(TileShape.SLOPE22_UP_HIGH, 0.5f), 33, 1);
+		// One-way platforms stop what comes down onto them and nothing else
+		expect("ray down onto oneway", caster.raycast(45.5f, 5, 0, -1, 10, hit), hit, 2, 45, 2);
+		expect("ray up through oneway", caster.raycast(45.5f, 1.5f, 0, 1, 20, hit), hit, -1, 0, 0);
+		expect("ray left through oneway", caster.raycast(48.5f, 2.5f, -1, 0, 6, hit), hit, -1, 0, 0);
+		// Half blocks only fill half of their cell
+		expect("ray up into half_top", caster.raycast(8.5f, 1.2f, 0, 1, 10, hit), hit, 0.3f, 8, 1);
+		expect("ray left over half_bottom", caster.raycast(6.5f, 1.75f, -1, 0, 5, hit), hit, -1, 0, 0);
+		expect("box right into half_top", caster.boxcast(6, 1.05f, 0.9f, 0.9f, 1, 0, 10, hit), hit, 1.1f, 8, 1);
+		// The box covers the columns of the slope from 0.5 up to 0.75, it lands on the highest one
+		expect("box down onto slope45_up", caster.boxcast(17.5f, 5, 0.25f, 1, 0, -1, 10, hit), hit,
+				4 - TileShape.top(TileShape.SLOPE45_UP, 0.75f - 1f / TileShape.SAMPLES), 17, 1);
+
+		Gdx.app.exit();
+	}
+
+	/** @brief Disposes nothing but sets the exit status
+	 */
+	@Override
+	public void dispose() {
+		if(failed) System.exit(1);
+	}
+
+	private static WorldConfig config(boolean enemyStore) {
+		WorldConfig config = WorldConfig.headless();
+		config.level = LEVEL;
+		config.enemyStore = enemyStore;
+		// Every goomba is spawned at the start and none is despawned or held still
+		config.spawnMargin = 64;
+		config.despawnMargin = 128;
+		config.residentMargin = 128;
+		config.chunkSize = 64;
+		return config;
+	}
+
+	/** @brief Get the positions of the goombas that are alive, sorted on x */
+	private static float[] positions(World world) {
+		GoombaStore store = world.getGoombaStore();
+		float[] positions;
+		int count = 0;
+		if(store != null) {
+			positions = new float[store.size() * 2];
+			for(int i = 0; i < store.size(); i++) {
+				if(store.getState(i) == GoombaStore.DYING) continue;
+				positions[count++] = store.getX(i);
+				positions[count++] = store.getY(i);
+			}
+		}
+		else {
+			positions = new float[world.getEnemies().size() * 2];
+			for(Goomba goomba : world.getEnemies()) {
+				if(goomba.isDead()) continue;
+				positions[count++] = goomba.getX();
+				positions[count++] = goomba.getY();
+			}
+		}
+		return sort(Arrays.copyOf(positions, count));
+	}
+
+	/** @brief Sorts x, y pairs on x */
+	private static float[] sort(float[] positions) {
+		for(int i = 2; i < positions.length; i += 2) {
+			float x = positions[i], y = positions[i + 1];
+			int j = i - 2;
+			while(j >= 0 && positions[j] > x) {
+				positions[j + 2] = positions[j];
+				positions[j + 3] = positions[j + 1];
+				j -= 2;
+			}
+			positions[j + 2] = x;
+			positions[j + 3] = y;
+		}
+		return positions;
+	}
+
+	/** @brief Prints a cast and fails the check when it did not hit as expected
+	 *  @param distance The expected distance, or -1 when nothing should be hit
+	 */
+	private void expect(String name, boolean hit, CastHit result, float distance, int cellX, int cellY) {
+		boolean ok = distance < 0 ? !hit
+				: hit && Math.abs(result.distance - distance) < TOLERANCE && result.cellX == cellX && result.cellY == cellY;
+		System.out.printf("%-30s %s%s%n", name, ok ? "ok" : "FAILED",
+				hit ? String.format(" (%.4f at %d, %d)", result.distance, result.cellX, result.cellY) : " (no hit)");
+		if(!ok) failed = true;
+	}
+}